@@ -0,0 +1,97 @@
+package com.github.mkouba;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The tag-level throughput of the analysis of a locally generated fixture repository. A new cache is used for each
+ * invocation, i.e. each invocation is a cold run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AnalyzeBenchmark {
+
+    @Param({ "5" })
+    int tags;
+
+    @Param({ "1000" })
+    int files;
+
+    private Path dir;
+    private Git git;
+    private List<Ref> refs;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() throws IOException, GitAPIException {
+        dir = Fixtures.createRepository(Files.createTempDirectory("analyzer-benchmark"), tags, files);
+        git = Git.open(dir.toFile());
+        refs = new ArrayList<>(git.tagList().call());
+        refs.sort(Comparator.comparing(r -> new QuarkusVersion(Repository.shortenRefName(r.getName()))));
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdownNow();
+        git.close();
+        Fixtures.delete(dir);
+    }
+
+    /**
+     * Every tag is analyzed with a full scan of its tree; the unchanged files are served from the cache.
+     */
+    @Benchmark
+    public List<Result> fullScan() throws IOException {
+        SourceAnalyzer analyzer = new SourceAnalyzer();
+        FileFactsCache cache = new FileFactsCache();
+        List<Result> results = new ArrayList<>();
+        for (Ref ref : refs) {
+            results.add(new TagChainAnalyzer(git.getRepository(), pool, analyzer, cache, SourceFilter.defaults())
+                    .analyze(ref));
+        }
+        return results;
+    }
+
+    /**
+     * Every tag is derived from the diff to its predecessor.
+     */
+    @Benchmark
+    public List<Result> incremental() throws IOException {
+        TagChainAnalyzer chainAnalyzer = new TagChainAnalyzer(git.getRepository(), pool, new SourceAnalyzer(),
+                new FileFactsCache(), SourceFilter.defaults());
+        List<Result> results = new ArrayList<>();
+        for (Ref ref : refs) {
+            results.add(chainAnalyzer.analyze(ref));
+        }
+        return results;
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.github.mkouba;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+
+/**
+ * The sources used by the benchmarks and a generator of a local fixture repository.
+ */
+final class Fixtures {
+
+    static final String PROCESSOR = "LargeProcessor.java";
+    static final String CONFIG_ROOT = "AcmeBuildTimeConfig.java";
+    static final String BUILD_ITEM = "DatasourceBuildItem.java";
+    static final String PLAIN = "AcmeResource.java";
+
+    private Fixtures() {
+    }
+
+    /**
+     * Generates a fixture repository for the benchmarks that run the application, e.g. {@code startup.sh}.
+     * <p>
+     * Arguments: the target directory, the number of tags and the number of files of the first tag.
+     */
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            throw new IllegalArgumentException("Usage: Fixtures <dir> <tags> <files>");
+        }
+        createRepository(Path.of(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+    }
+
+    static byte[] load(String source) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/sources/" + source)) {
+            if (in == null) {
+                throw new IllegalStateException("Source not found: " + source);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Generates a repository with the given number of tags named {@code 1.x.0.Final}. Every tag adds new files and
+     * modifies every tenth file of the previous tag. One in twenty files is a processor, a config root and a build item
+     * respectively, the rest are plain classes; every fifth file is a test.
+     *
+     * @param dir
+     * @param tags
+     * @param files the number of files of the first tag
+     * @return the repository directory
+     */
+    static Path createRepository(Path dir, int tags, int files) {
+        String processor = new String(load(PROCESSOR), StandardCharsets.UTF_8);
+        String configRoot = new String(load(CONFIG_ROOT), StandardCharsets.UTF_8);
+        String buildItem = new String(load(BUILD_ITEM), StandardCharsets.UTF_8);
+        String plain = new String(load(PLAIN), StandardCharsets.UTF_8);
+        try (Git git = Git.init().setDirectory(dir.toFile()).call()) {
+            int count = 0;
+            for (int tag = 0; tag < tags; tag++) {
+                for (int i = 0; i < count; i += 10) {
+                    Path file = path(dir, i);
+                    Files.writeString(file, Files.readString(file) + "// Modified in tag " + tag + "\n");
+                }
+                int newCount = count + (tag == 0 ? files : files / 10);
+                for (int i = count; i < newCount; i++) {
+                    String content;
+                    switch (i % 20) {
+                        case 0:
+                            content = processor.replace("LargeProcessor", "LargeProcessor" + i);
+                            break;
+                        case 1:
+                            content = configRoot.replace("AcmeBuildTimeConfig", "AcmeBuildTimeConfig" + i);
+                            break;
+                        case 2:
+                            content = buildItem.replace("DatasourceBuildItem", "DatasourceBuildItem" + i);
+                            break;
+                        default:
+                            content = plain.replace("AcmeResource", "AcmeResource" + i);
+                            break;
+                    }
+                    Path file = path(dir, i);
+                    Files.createDirectories(file.getParent());
+                    Files.writeString(file, content);
+                }
+                count = newCount;
+                git.add().addFilepattern(".").call();
+                git.commit().setMessage("Tag " + tag).setSign(false).call();
+                git.tag().setName("1." + tag + ".0.Final").call();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (GitAPIException e) {
+            throw new IllegalStateException(e);
+        }
+        return dir;
+    }
+
+    static void delete(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Path path(Path dir, int i) {
+        String kind = i % 5 == 4 ? "test" : "main";
+        String name;
+        switch (i % 20) {
+            case 0:
+                name = "LargeProcessor" + i;
+                break;
+            case 1:
+                name = "AcmeBuildTimeConfig" + i;
+                break;
+            case 2:
+                name = "DatasourceBuildItem" + i;
+                break;
+            default:
+                name = "AcmeResource" + i;
+                break;
+        }
+        return dir.resolve("module" + (i % 10)).resolve("src").resolve(kind).resolve("java").resolve(name + ".java");
+    }
+
+}
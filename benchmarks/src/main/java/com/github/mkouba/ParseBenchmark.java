@@ -0,0 +1,58 @@
+package com.github.mkouba;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The per-file hot path: the lexical pre-filter, and the parse plus extraction.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({ Fixtures.PROCESSOR, Fixtures.CONFIG_ROOT, Fixtures.BUILD_ITEM, Fixtures.PLAIN })
+    String source;
+
+    private byte[] content;
+    private SourceAnalyzer analyzer;
+    private SourceAnalyzer parseAll;
+
+    @Setup
+    public void setup() {
+        content = Fixtures.load(source);
+        analyzer = new SourceAnalyzer();
+        // The verification mode parses all files
+        parseAll = new SourceAnalyzer(true);
+    }
+
+    @Benchmark
+    public SourceScanner scan() {
+        return new SourceScanner().scan(content);
+    }
+
+    @Benchmark
+    public FileFacts analyze() {
+        return analyzer.analyze(source, content);
+    }
+
+    @Benchmark
+    public FileFacts parseAndExtract() {
+        return parseAll.analyze(source, content);
+    }
+
+}
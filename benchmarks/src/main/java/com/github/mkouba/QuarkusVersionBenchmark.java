@@ -0,0 +1,64 @@
+package com.github.mkouba;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuarkusVersionBenchmark {
+
+    private static final String[] CLASSIFIERS = { "Final", "CR1", "CR2", "Alpha1", "Beta1" };
+
+    @Param({ "500" })
+    int versions;
+
+    private List<String> values;
+    private List<QuarkusVersion> parsed;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        values = new ArrayList<>(versions);
+        for (int i = 0; i < versions; i++) {
+            values.add(random.nextInt(3) + "." + random.nextInt(30) + "." + random.nextInt(10) + "."
+                    + CLASSIFIERS[random.nextInt(CLASSIFIERS.length)]);
+        }
+        parsed = parse();
+    }
+
+    @Benchmark
+    public List<QuarkusVersion> parse() {
+        List<QuarkusVersion> result = new ArrayList<>(values.size());
+        for (String value : values) {
+            result.add(new QuarkusVersion(value));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<QuarkusVersion> sort() {
+        List<QuarkusVersion> result = new ArrayList<>(parsed);
+        Collections.sort(result);
+        return result;
+    }
+
+}
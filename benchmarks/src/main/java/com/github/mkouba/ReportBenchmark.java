@@ -0,0 +1,114 @@
+package com.github.mkouba;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.quarkus.qute.Engine;
+import io.quarkus.qute.HtmlEscaper;
+import io.quarkus.qute.ReflectionValueResolver;
+import io.quarkus.qute.Template;
+import io.quarkus.qute.TemplateLocator.TemplateLocation;
+import io.quarkus.qute.Variant;
+
+/**
+ * Renders the report template. {@link Templates#report(String, List)} is only implemented inside a running Quarkus
+ * application and so the same template is rendered by a standalone engine configured like the one of the application.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+
+    @Param({ "100", "1000" })
+    int size;
+
+    private Template report;
+    private List<Result> results;
+
+    @Setup
+    public void setup() {
+        Engine engine = Engine.builder()
+                .addDefaults()
+                .addValueResolver(new ReflectionValueResolver())
+                .addResultMapper(new HtmlEscaper(List.of(Variant.TEXT_HTML)))
+                .removeStandaloneLines(true)
+                .addLocator(ReportBenchmark::locate)
+                .build();
+        report = engine.getTemplate("report");
+        results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Result result = new Result();
+            result.setTagName((i / 100) + "." + (i % 100) + ".0.Final");
+            result.setJavaSourceFiles(10_000 + i);
+            result.setTestSourceFiles(5_000 + i);
+            result.setJavaTypes(15_000 + i);
+            result.setTestTypes(6_000 + i);
+            result.setBuildItems(800 + i);
+            result.setBuildSteps(1_500 + i);
+            result.setConfigItems(2_000 + i);
+            results.add(result);
+        }
+    }
+
+    @Benchmark
+    public String render() {
+        return report.data("dataset", Reports.dataset(results)).render();
+    }
+
+    @Benchmark
+    public void stream() throws IOException {
+        // The way the report is written to the file, i.e. without the intermediate string
+        try (Writer out = Writer.nullWriter()) {
+            report.data("dataset", Reports.dataset(results)).consume(chunk -> {
+                try {
+                    out.write(chunk);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).toCompletableFuture().join();
+        }
+    }
+
+    private static Optional<TemplateLocation> locate(String id) {
+        String path = "/templates/" + id + ".html";
+        if (ReportBenchmark.class.getResource(path) == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new TemplateLocation() {
+
+            @Override
+            public Reader read() {
+                return new InputStreamReader(ReportBenchmark.class.getResourceAsStream(path), StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public Optional<Variant> getVariant() {
+                return Optional.of(new Variant(null, Variant.TEXT_HTML, StandardCharsets.UTF_8.name()));
+            }
+        });
+    }
+
+}
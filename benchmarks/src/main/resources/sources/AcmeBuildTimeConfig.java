@@ -0,0 +1,78 @@
+package org.acme.deployment;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import io.quarkus.runtime.annotations.ConfigDocMapKey;
+import io.quarkus.runtime.annotations.ConfigGroup;
+import io.quarkus.runtime.annotations.ConfigItem;
+import io.quarkus.runtime.annotations.ConfigPhase;
+import io.quarkus.runtime.annotations.ConfigRoot;
+
+/**
+ * A typical config root.
+ */
+@ConfigRoot(name = "acme", phase = ConfigPhase.BUILD_TIME)
+public class AcmeBuildTimeConfig {
+
+    /**
+     * Whether the extension is enabled.
+     */
+    @ConfigItem(defaultValue = "true")
+    public boolean enabled;
+
+    /**
+     * The base path.
+     */
+    @ConfigItem(defaultValue = "/acme")
+    public String path;
+
+    /**
+     * The list of packages to include.
+     */
+    @ConfigItem
+    public Optional<List<String>> packages;
+
+    /**
+     * The named datasources.
+     */
+    @ConfigItem(name = "datasource")
+    @ConfigDocMapKey("datasource-name")
+    public Map<String, DatasourceConfig> datasources;
+
+    /**
+     * The health check config.
+     */
+    @ConfigItem
+    public HealthConfig health;
+
+    @ConfigGroup
+    public static class DatasourceConfig {
+
+        /**
+         * The JDBC URL.
+         */
+        @ConfigItem
+        public Optional<String> url;
+
+        /**
+         * The max size of the pool.
+         */
+        @ConfigItem(defaultValue = "20")
+        public int maxSize;
+
+    }
+
+    @ConfigGroup
+    public static class HealthConfig {
+
+        /**
+         * Whether the health check is enabled.
+         */
+        @ConfigItem(name = "enabled", defaultValue = "true")
+        public boolean enabled;
+
+    }
+
+}
@@ -0,0 +1,48 @@
+package org.acme;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * A plain class, i.e. not a candidate for the full parse.
+ */
+@Path("/acme")
+public class AcmeResource {
+
+    @Inject
+    AcmeService service;
+
+    @GET
+    @Produces(MediaType.TEXT_PLAIN)
+    public String hello() {
+        return "Hello from " + service.getName();
+    }
+
+    @GET
+    @Path("/{name}")
+    public List<String> find(@PathParam("name") String name) {
+        return service.findAll().stream()
+                .filter(item -> item.startsWith(name))
+                .map(String::toUpperCase)
+                .collect(Collectors.toList());
+    }
+
+    enum Mode {
+        FAST,
+        SLOW
+    }
+
+    interface Callback {
+
+        void done(String result);
+
+    }
+
+}
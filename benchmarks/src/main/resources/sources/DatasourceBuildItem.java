@@ -0,0 +1,34 @@
+package org.acme.deployment;
+
+import java.util.Objects;
+
+import io.quarkus.builder.item.MultiBuildItem;
+
+/**
+ * A typical build item.
+ */
+public final class DatasourceBuildItem extends MultiBuildItem {
+
+    private final String name;
+    private final String kind;
+    private final boolean isDefault;
+
+    public DatasourceBuildItem(String name, String kind, boolean isDefault) {
+        this.name = Objects.requireNonNull(name);
+        this.kind = Objects.requireNonNull(kind);
+        this.isDefault = isDefault;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public boolean isDefault() {
+        return isDefault;
+    }
+
+}
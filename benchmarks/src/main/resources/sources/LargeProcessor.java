@@ -0,0 +1,673 @@
+package org.acme.deployment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.IndexView;
+
+import io.quarkus.builder.item.MultiBuildItem;
+import io.quarkus.builder.item.SimpleBuildItem;
+import io.quarkus.deployment.annotations.BuildProducer;
+import io.quarkus.deployment.annotations.BuildStep;
+import io.quarkus.deployment.annotations.ExecutionTime;
+import io.quarkus.deployment.annotations.Record;
+
+/**
+ * A large processor with many build steps, nested build items and helper methods.
+ */
+public class LargeProcessor {
+
+    static final String FEATURE = "acme";
+    static final DotName ENTITY = DotName.createSimple("org.acme.Entity");
+    static final DotName RESOURCE = DotName.createSimple("org.acme.Resource");
+
+    @BuildStep
+    void stepFeature(CombinedIndexBuildItem index, BuildProducer<FeatureProducedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(ENTITY)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "feature")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new FeatureProducedBuildItem(classes));
+        }
+    }
+
+    @BuildStep
+    void stepCapability(CombinedIndexBuildItem index, BuildProducer<CapabilityConsumedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(RESOURCE)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "capability")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new CapabilityConsumedBuildItem(classes));
+        }
+    }
+
+    @BuildStep
+    void stepReflectiveClass(CombinedIndexBuildItem index, BuildProducer<ReflectiveClassProducedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(ENTITY)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "reflectiveclass")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new ReflectiveClassProducedBuildItem(classes));
+        }
+    }
+
+    @BuildStep
+    void stepAdditionalBean(CombinedIndexBuildItem index, BuildProducer<AdditionalBeanConsumedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(RESOURCE)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "additionalbean")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new AdditionalBeanConsumedBuildItem(classes));
+        }
+    }
+
+    @BuildStep
+    void stepSyntheticBean(CombinedIndexBuildItem index, BuildProducer<SyntheticBeanProducedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(ENTITY)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "syntheticbean")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new SyntheticBeanProducedBuildItem(classes));
+        }
+    }
+
+    @BuildStep
+    void stepNativeImageResource(CombinedIndexBuildItem index, BuildProducer<NativeImageResourceConsumedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(RESOURCE)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "nativeimageresource")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new NativeImageResourceConsumedBuildItem(classes));
+        }
+    }
+
+    @BuildStep
+    void stepRuntimeInitializedClass(CombinedIndexBuildItem index, BuildProducer<RuntimeInitializedClassProducedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(ENTITY)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "runtimeinitializedclass")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new RuntimeInitializedClassProducedBuildItem(classes));
+        }
+    }
+
+    @BuildStep
+    void stepServiceProvider(CombinedIndexBuildItem index, BuildProducer<ServiceProviderConsumedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(RESOURCE)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "serviceprovider")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new ServiceProviderConsumedBuildItem(classes));
+        }
+    }
+
+    @BuildStep
+    void stepHotDeploymentWatchedFile(CombinedIndexBuildItem index, BuildProducer<HotDeploymentWatchedFileProducedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(ENTITY)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "hotdeploymentwatchedfile")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new HotDeploymentWatchedFileProducedBuildItem(classes));
+        }
+    }
+
+    @BuildStep
+    void stepIndexDependency(CombinedIndexBuildItem index, BuildProducer<IndexDependencyConsumedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(RESOURCE)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "indexdependency")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new IndexDependencyConsumedBuildItem(classes));
+        }
+    }
+
+    @BuildStep
+    void stepBeanDefiningAnnotation(CombinedIndexBuildItem index, BuildProducer<BeanDefiningAnnotationProducedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(ENTITY)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "beandefiningannotation")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new BeanDefiningAnnotationProducedBuildItem(classes));
+        }
+    }
+
+    @BuildStep
+    void stepUnremovableBean(CombinedIndexBuildItem index, BuildProducer<UnremovableBeanConsumedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(RESOURCE)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "unremovablebean")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new UnremovableBeanConsumedBuildItem(classes));
+        }
+    }
+
+    @BuildStep
+    void stepExtensionSslNativeSupport(CombinedIndexBuildItem index, BuildProducer<ExtensionSslNativeSupportProducedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(ENTITY)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "extensionsslnativesupport")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new ExtensionSslNativeSupportProducedBuildItem(classes));
+        }
+    }
+
+    @BuildStep
+    void stepGeneratedClass(CombinedIndexBuildItem index, BuildProducer<GeneratedClassConsumedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(RESOURCE)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "generatedclass")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new GeneratedClassConsumedBuildItem(classes));
+        }
+    }
+
+    @BuildStep
+    void stepGeneratedResource(CombinedIndexBuildItem index, BuildProducer<GeneratedResourceProducedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(ENTITY)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "generatedresource")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new GeneratedResourceProducedBuildItem(classes));
+        }
+    }
+
+    @BuildStep
+    void stepServletInitContext(CombinedIndexBuildItem index, BuildProducer<ServletInitContextConsumedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(RESOURCE)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "servletinitcontext")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new ServletInitContextConsumedBuildItem(classes));
+        }
+    }
+
+    @BuildStep
+    void stepRouteBuildItem(CombinedIndexBuildItem index, BuildProducer<RouteBuildItemProducedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(ENTITY)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "routebuilditem")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new RouteBuildItemProducedBuildItem(classes));
+        }
+    }
+
+    @BuildStep
+    void stepLogCategory(CombinedIndexBuildItem index, BuildProducer<LogCategoryConsumedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(RESOURCE)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "logcategory")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new LogCategoryConsumedBuildItem(classes));
+        }
+    }
+
+    @BuildStep
+    void stepShutdownContext(CombinedIndexBuildItem index, BuildProducer<ShutdownContextProducedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(ENTITY)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "shutdowncontext")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new ShutdownContextProducedBuildItem(classes));
+        }
+    }
+
+    @BuildStep
+    void stepExecutorBuildItem(CombinedIndexBuildItem index, BuildProducer<ExecutorBuildItemConsumedBuildItem> producer) {
+        // Collect all the annotated classes
+        List<String> classes = new ArrayList<>();
+        for (AnnotationInstance annotation : index.getIndex().getAnnotations(RESOURCE)) {
+            ClassInfo target = annotation.target().asClass();
+            if (target.name().toString().startsWith("org.acme.")) {
+                classes.add(target.name().toString());
+            } else if (isExcluded(target, "executorbuilditem")) {
+                continue;
+            }
+        }
+        if (!classes.isEmpty()) {
+            producer.produce(new ExecutorBuildItemConsumedBuildItem(classes));
+        }
+    }
+
+    @BuildStep(onlyIf = IsEnabled.class)
+    @Record(ExecutionTime.STATIC_INIT)
+    FeatureBuildItem feature(AcmeRecorder recorder, List<ProducedBuildItem> produced, Optional<ConsumedBuildItem> consumed) {
+        Map<String, Object> values = Map.of("size", produced.size(), "consumed", consumed.isPresent());
+        recorder.init(values);
+        return new FeatureBuildItem(FEATURE);
+    }
+
+    static boolean isExcluded(ClassInfo clazz, String category) {
+        return clazz.name().local().contains("$") || clazz.name().toString().contains(category + ".internal");
+    }
+
+    public static final class FeatureProducedBuildItem extends MultiBuildItem {
+
+        private final List<String> classes;
+
+        public FeatureProducedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    public static final class CapabilityConsumedBuildItem extends SimpleBuildItem {
+
+        private final List<String> classes;
+
+        public CapabilityConsumedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    public static final class ReflectiveClassProducedBuildItem extends MultiBuildItem {
+
+        private final List<String> classes;
+
+        public ReflectiveClassProducedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    public static final class AdditionalBeanConsumedBuildItem extends SimpleBuildItem {
+
+        private final List<String> classes;
+
+        public AdditionalBeanConsumedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    public static final class SyntheticBeanProducedBuildItem extends MultiBuildItem {
+
+        private final List<String> classes;
+
+        public SyntheticBeanProducedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    public static final class NativeImageResourceConsumedBuildItem extends SimpleBuildItem {
+
+        private final List<String> classes;
+
+        public NativeImageResourceConsumedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    public static final class RuntimeInitializedClassProducedBuildItem extends MultiBuildItem {
+
+        private final List<String> classes;
+
+        public RuntimeInitializedClassProducedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    public static final class ServiceProviderConsumedBuildItem extends SimpleBuildItem {
+
+        private final List<String> classes;
+
+        public ServiceProviderConsumedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    public static final class HotDeploymentWatchedFileProducedBuildItem extends MultiBuildItem {
+
+        private final List<String> classes;
+
+        public HotDeploymentWatchedFileProducedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    public static final class IndexDependencyConsumedBuildItem extends SimpleBuildItem {
+
+        private final List<String> classes;
+
+        public IndexDependencyConsumedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    public static final class BeanDefiningAnnotationProducedBuildItem extends MultiBuildItem {
+
+        private final List<String> classes;
+
+        public BeanDefiningAnnotationProducedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    public static final class UnremovableBeanConsumedBuildItem extends SimpleBuildItem {
+
+        private final List<String> classes;
+
+        public UnremovableBeanConsumedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    public static final class ExtensionSslNativeSupportProducedBuildItem extends MultiBuildItem {
+
+        private final List<String> classes;
+
+        public ExtensionSslNativeSupportProducedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    public static final class GeneratedClassConsumedBuildItem extends SimpleBuildItem {
+
+        private final List<String> classes;
+
+        public GeneratedClassConsumedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    public static final class GeneratedResourceProducedBuildItem extends MultiBuildItem {
+
+        private final List<String> classes;
+
+        public GeneratedResourceProducedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    public static final class ServletInitContextConsumedBuildItem extends SimpleBuildItem {
+
+        private final List<String> classes;
+
+        public ServletInitContextConsumedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    public static final class RouteBuildItemProducedBuildItem extends MultiBuildItem {
+
+        private final List<String> classes;
+
+        public RouteBuildItemProducedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    public static final class LogCategoryConsumedBuildItem extends SimpleBuildItem {
+
+        private final List<String> classes;
+
+        public LogCategoryConsumedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    public static final class ShutdownContextProducedBuildItem extends MultiBuildItem {
+
+        private final List<String> classes;
+
+        public ShutdownContextProducedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    public static final class ExecutorBuildItemConsumedBuildItem extends SimpleBuildItem {
+
+        private final List<String> classes;
+
+        public ExecutorBuildItemConsumedBuildItem(List<String> classes) {
+            this.classes = classes;
+        }
+
+        public List<String> getClasses() {
+            return classes;
+        }
+
+    }
+
+    static class IsEnabled implements BooleanSupplier {
+
+        AcmeBuildTimeConfig config;
+
+        @Override
+        public boolean getAsBoolean() {
+            return config.enabled;
+        }
+
+    }
+
+}
@@ -0,0 +1,90 @@
+#!/usr/bin/env bash
+#
+# Measures the time to the first tag result, the total time and the peak RSS of the analyzer in JVM and native mode.
+# Every run starts a new process that analyzes a locally generated fixture repository; the median of the runs is
+# reported.
+#
+# Prerequisites (from the project root):
+#   mvn install -DskipTests && (cd benchmarks && mvn package)  # the fixture generator
+#   mvn package -DskipTests -Dnative                           # the native executable; skipped if not found
+#
+# Usage: benchmarks/startup.sh [runs] [tags] [files]
+#   runs  - the number of measured runs per mode, default 5
+#   tags  - the number of tags of the fixture repository, default 5
+#   files - the number of java files of the first tag, default 500
+#
+# JVM_APP and NATIVE_APP can be used to override the location of the application.
+
+set -euo pipefail
+
+RUNS=${1:-5}
+TAGS=${2:-5}
+FILES=${3:-500}
+
+BASE_DIR=$(cd "$(dirname "$0")/.." && pwd)
+BENCHMARKS_JAR=$BASE_DIR/benchmarks/target/benchmarks.jar
+JVM_APP=${JVM_APP:-$BASE_DIR/target/quarkus-app/quarkus-run.jar}
+NATIVE_APP=${NATIVE_APP:-$(ls "$BASE_DIR"/target/*-runner 2>/dev/null | head -1 || true)}
+ARGS=(-t 2 --no-store)
+
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+java -cp "$BENCHMARKS_JAR" com.github.mkouba.Fixtures "$WORK/fixture" "$TAGS" "$FILES"
+
+# Prints "<first result ms> <total ms> <peak RSS MB>"
+measure() {
+    local log=$WORK/run.log
+    local start end pid hwm first
+    local peak=0
+    start=$(date +%s%3N)
+    "$@" > "$log" 2>&1 &
+    pid=$!
+    # VmHWM is the peak resident set size so far; the last sample before the process exits is kept
+    while kill -0 "$pid" 2>/dev/null; do
+        hwm=$(awk '/^VmHWM:/ { print $2 }' "/proc/$pid/status" 2>/dev/null || true)
+        if [ -n "$hwm" ]; then
+            peak=$hwm
+        fi
+        sleep 0.01
+    done
+    if ! wait "$pid"; then
+        cat "$log" >&2
+        exit 1
+    fi
+    end=$(date +%s%3N)
+    # The log timestamp of the first "<tag> analyzed in" message, e.g. 2022-10-18 04:34:24,628
+    first=$(grep -m1 " analyzed in " "$log" | cut -c1-23)
+    first=$(date -d "${first/,/.}" +%s%3N)
+    echo "$((first - start)) $((end - start)) $((peak / 1024))"
+}
+
+median() {
+    sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+# Usage: benchmark <mode> <command...>
+benchmark() {
+    local mode=$1
+    shift
+    local dir=$WORK/$mode
+    git clone -q "$WORK/fixture" "$dir/quarkus/_0"
+    # The first run prepares the worker repositories and is not measured
+    measure "$@" -w "$dir" "${ARGS[@]}" > /dev/null
+    for ((i = 1; i <= RUNS; i++)); do
+        measure "$@" -w "$dir" "${ARGS[@]}"
+    done > "$WORK/$mode.txt"
+    printf "%-8s %18s %12s %15s\n" "$mode" \
+        "$(cut -d' ' -f1 "$WORK/$mode.txt" | median)" \
+        "$(cut -d' ' -f2 "$WORK/$mode.txt" | median)" \
+        "$(cut -d' ' -f3 "$WORK/$mode.txt" | median)"
+}
+
+echo "Fixture: $TAGS tags, $FILES files; $RUNS runs"
+printf "%-8s %18s %12s %15s\n" "mode" "first result [ms]" "total [ms]" "peak RSS [MB]"
+benchmark jvm java -jar "$JVM_APP"
+if [ -n "$NATIVE_APP" ] && [ -x "$NATIVE_APP" ]; then
+    benchmark native "$NATIVE_APP"
+else
+    echo "native   skipped; build the native executable with: mvn package -Dnative"
+fi
@@ -0,0 +1,142 @@
+package com.github.mkouba;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Coordinates the stages of an analysis run:
+ * <ol>
+ * <li>tag dispatch - a worker takes a tag and obtains a future for its result via {@link #dispatch(String, List)},</li>
+ * <li>checkout or tree resolution, and file discovery - performed by the worker,</li>
+ * <li>parse/extract - the sources are handed off to the shared pool via {@link #handOff(Supplier, Executor)},</li>
+ * <li>aggregate - the result of the tag is completed,</li>
+ * <li>render - performed by the caller of {@link #await(long)} once the last result lands.</li>
+ * </ol>
+ * The number of tags handed off to the parse stage is bounded, so that the discovery does not run too far ahead of the
+ * parsing. A tag that does not complete within the tag timeout fails, and the first failure fails the whole run
+ * immediately.
+ */
+class AnalysisPipeline {
+
+    private final AtomicInteger remaining;
+    private final Semaphore handOffs;
+    private final long tagTimeout;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    /**
+     * @param tags the number of tags to analyze
+     * @param maxHandOffs the max number of tags handed off to the parse stage at a time
+     * @param tagTimeout the tag timeout in milliseconds, or zero if tags should not time out
+     */
+    AnalysisPipeline(int tags, int maxHandOffs, long tagTimeout) {
+        this.remaining = new AtomicInteger(tags);
+        this.handOffs = new Semaphore(maxHandOffs);
+        this.tagTimeout = tagTimeout;
+        if (tags == 0) {
+            completion.complete(null);
+        }
+        // Wake up all workers blocked in handOff() once the run is done
+        completion.whenComplete((r, e) -> handOffs.release(Integer.MAX_VALUE - maxHandOffs));
+    }
+
+    /**
+     * @param tag
+     * @param results the list the result is added to once completed
+     * @return the future that must be completed with the result of the given tag
+     */
+    CompletableFuture<Result> dispatch(String tag, List<Result> results) {
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        if (tagTimeout > 0) {
+            future.orTimeout(tagTimeout, TimeUnit.MILLISECONDS);
+        }
+        future.whenComplete((result, failure) -> {
+            if (failure != null) {
+                Throwable cause = unwrap(failure);
+                fail(new IllegalStateException(
+                        cause instanceof TimeoutException ? "Analysis of " + tag + " timed out"
+                                : "Unable to analyze " + tag,
+                        cause));
+            } else {
+                results.add(result);
+                if (remaining.decrementAndGet() == 0) {
+                    completion.complete(null);
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Hand off a task to the parse stage. This method blocks if too many tasks are in flight, until a task completes or
+     * the run is done.
+     *
+     * @param <T>
+     * @param task
+     * @param executor
+     * @return the future of the task
+     * @throws CancellationException if the run fails while waiting
+     * @throws InterruptedException
+     */
+    <T> CompletableFuture<T> handOff(Supplier<T> task, Executor executor) throws InterruptedException {
+        handOffs.acquire();
+        if (isDone()) {
+            throw new CancellationException();
+        }
+        try {
+            return CompletableFuture.supplyAsync(task, executor).whenComplete((r, e) -> handOffs.release());
+        } catch (RuntimeException e) {
+            handOffs.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return {@code true} if all tags were completed or the run failed
+     */
+    boolean isDone() {
+        return completion.isDone();
+    }
+
+    void fail(Throwable failure) {
+        completion.completeExceptionally(failure);
+    }
+
+    /**
+     * Wait until the last result lands or the run fails.
+     *
+     * @param timeout the timeout in milliseconds, or zero to wait without a timeout
+     * @throws IllegalStateException if the run fails or times out
+     */
+    void await(long timeout) {
+        try {
+            if (timeout > 0) {
+                completion.get(timeout, TimeUnit.MILLISECONDS);
+            } else {
+                completion.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IllegalStateException ? (IllegalStateException) cause
+                    : new IllegalStateException(cause);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Analysis timed out; " + remaining.get() + " tags were not analyzed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+}
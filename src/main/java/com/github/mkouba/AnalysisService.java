@@ -0,0 +1,226 @@
+package com.github.mkouba;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.RevisionSyntaxException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.jboss.logging.Logger;
+
+/**
+ * Analyzes the tags, commits or other refs of a repository on demand.
+ * <p>
+ * Everything is kept warm between the requests: the repository is opened only once, the facts of the java sources are
+ * cached by the blob id and the results by the commit id. Concurrent requests for the same commit share a single
+ * analysis. A failed analysis is not cached so that it can be retried.
+ * <p>
+ * Both caches are bounded so that a long-running server does not run out of memory: the file facts cache by the number
+ * of blobs, see {@link FileFactsCache}, and the results by the number of commits; the oldest completed results are
+ * evicted first. The names of the items are interned in a table that is replaced with an empty one once it holds the
+ * max number of names; the old table is released together with the last cached result that refers to it.
+ */
+final class AnalysisService implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(AnalysisService.class);
+
+    static final int DEFAULT_CACHE_SIZE = 500_000;
+    static final int DEFAULT_MAX_RESULTS = 10_000;
+    static final int DEFAULT_MAX_ITEM_NAMES = 100_000;
+
+    private final Repository repository;
+    private final SourceAnalyzer sourceAnalyzer;
+    private final SourceFilter sourceFilter;
+    private final FileFactsCache cache;
+    // commit id -> pending or completed analysis
+    private final ConcurrentMap<ObjectId, CompletableFuture<Result>> results = new ConcurrentHashMap<>();
+    // The commit ids of the completed analyses in the order of completion
+    private final Queue<ObjectId> completed = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger completedCount = new AtomicInteger();
+    private final int maxResults;
+    // The table used by new analyses
+    private volatile ItemNames itemNames = new ItemNames();
+    private final int maxItemNames;
+    private final LongAdder analyses = new LongAdder();
+
+    // Each analysis is a full scan of a tree in the sources pool
+    private final ExecutorService executor;
+    private final ForkJoinPool sourcesPool;
+
+    /**
+     * @param repository
+     * @param sourceAnalyzer
+     * @param sourceFilter
+     * @param threads the maximum number of commits analyzed at the same time and the parallelism of the sources pool
+     */
+    AnalysisService(Repository repository, SourceAnalyzer sourceAnalyzer, SourceFilter sourceFilter, int threads) {
+        this(repository, sourceAnalyzer, sourceFilter, threads, DEFAULT_CACHE_SIZE, DEFAULT_MAX_RESULTS,
+                DEFAULT_MAX_ITEM_NAMES);
+    }
+
+    /**
+     * @param repository
+     * @param sourceAnalyzer
+     * @param sourceFilter
+     * @param threads the maximum number of commits analyzed at the same time and the parallelism of the sources pool
+     * @param cacheSize the max number of cached file facts, or zero if not bounded
+     * @param maxResults the max number of cached results
+     * @param maxItemNames the number of item names after which a new names table is used
+     */
+    AnalysisService(Repository repository, SourceAnalyzer sourceAnalyzer, SourceFilter sourceFilter, int threads,
+            int cacheSize, int maxResults, int maxItemNames) {
+        if (maxResults < 1) {
+            throw new IllegalArgumentException("Invalid max number of results: " + maxResults);
+        }
+        if (maxItemNames < 1) {
+            throw new IllegalArgumentException("Invalid max number of item names: " + maxItemNames);
+        }
+        this.repository = repository;
+        this.cache = new FileFactsCache(cacheSize);
+        this.maxResults = maxResults;
+        this.maxItemNames = maxItemNames;
+        this.sourceAnalyzer = sourceAnalyzer;
+        this.sourceFilter = sourceFilter;
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.sourcesPool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * @param ref a tag name, a branch name, a commit id or any other revision string supported by git
+     * @return the result named after the ref, or {@code null} if the ref cannot be resolved to a commit
+     * @throws IOException
+     */
+    CompletableFuture<Result> analyze(String ref) throws IOException {
+        ObjectId commitId = resolve(ref);
+        if (commitId == null) {
+            return null;
+        }
+        // refs/tags/2.1.1.Final -> 2.1.1.Final
+        String name = Repository.shortenRefName(ref);
+        CompletableFuture<Result> analysis = results.get(commitId);
+        if (analysis == null) {
+            CompletableFuture<Result> created = new CompletableFuture<>();
+            analysis = results.putIfAbsent(commitId, created);
+            if (analysis == null) {
+                analysis = created;
+                submit(commitId, created);
+            }
+        }
+        return analysis.thenApply(result -> named(result, name));
+    }
+
+    /**
+     * @return the names of all tags of the repository
+     * @throws IOException
+     */
+    List<String> getTags() throws IOException {
+        List<String> tags = new ArrayList<>();
+        for (Ref tag : repository.getRefDatabase().getRefsByPrefix(Constants.R_TAGS)) {
+            tags.add(Repository.shortenRefName(tag.getName()));
+        }
+        return tags;
+    }
+
+    /**
+     * @return the number of analyses started, i.e. the number of commits that were not found in the cache
+     */
+    long getAnalyses() {
+        return analyses.sum();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        sourcesPool.shutdownNow();
+    }
+
+    private ObjectId resolve(String ref) throws IOException {
+        try {
+            return repository.resolve(ref + "^{commit}");
+        } catch (RevisionSyntaxException | IncorrectObjectTypeException e) {
+            // E.g. "2.0.0.Final^{foo}" or a tree id
+            return null;
+        }
+    }
+
+    private void submit(ObjectId commitId, CompletableFuture<Result> analysis) {
+        analyses.increment();
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                Result result = new TagChainAnalyzer(repository, sourcesPool, sourceAnalyzer, cache, sourceFilter,
+                        itemNames()).analyze(commitId.name(), commitId, null);
+                LOG.infof("Commit %s analyzed in %s ms; file facts cache: %s blobs, %s evicted", commitId.name(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), cache.size(), cache.getEvictions());
+                // Evict first so that the cache is bounded once the analysis is completed
+                evict(commitId);
+                analysis.complete(result);
+            } catch (Throwable e) {
+                LOG.errorf(e, "Unable to analyze commit %s", commitId.name());
+                // Remove first so that the next request starts a new analysis
+                results.remove(commitId, analysis);
+                analysis.completeExceptionally(e);
+            }
+        });
+    }
+
+    private ItemNames itemNames() {
+        ItemNames current = itemNames;
+        if (current.size() >= maxItemNames) {
+            synchronized (this) {
+                if (itemNames == current) {
+                    LOG.infof("Replacing the item names table with %s names", current.size());
+                    itemNames = new ItemNames();
+                }
+                current = itemNames;
+            }
+        }
+        return current;
+    }
+
+    private void evict(ObjectId commitId) {
+        completed.add(commitId);
+        if (completedCount.incrementAndGet() > maxResults) {
+            ObjectId oldest = completed.poll();
+            if (oldest != null) {
+                completedCount.decrementAndGet();
+                // A pending analysis is never evicted
+                results.computeIfPresent(oldest, (id, analysis) -> analysis.isDone() ? null : analysis);
+            }
+        }
+    }
+
+    private static Result named(Result result, String name) {
+        // The cached result is shared by all refs that point to the same commit
+        Result named = new Result();
+        named.setTagName(name);
+        named.setCommitId(result.getCommitId());
+        named.setCommitTime(result.getCommitTime());
+        named.setJavaSourceFiles(result.getJavaSourceFiles());
+        named.setTestSourceFiles(result.getTestSourceFiles());
+        named.setJavaTypes(result.getJavaTypes());
+        named.setTestTypes(result.getTestTypes());
+        named.setBuildItems(result.getBuildItems());
+        named.setBuildSteps(result.getBuildSteps());
+        named.setConfigItems(result.getConfigItems());
+        named.setItems(result.getItems());
+        named.setCounters(result.getCounters());
+        return named;
+    }
+
+}
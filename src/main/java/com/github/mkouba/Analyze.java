@@ -1,63 +1,54 @@
 package com.github.mkouba;
 
-import static java.util.function.Predicate.not;
-
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
-import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
-import org.eclipse.jgit.api.CloneCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.CheckoutConflictException;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.InvalidRefNameException;
 import org.eclipse.jgit.api.errors.RefAlreadyExistsException;
 import org.eclipse.jgit.api.errors.RefNotFoundException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
 import org.jboss.logging.Logger;
 
-import com.github.javaparser.ParseProblemException;
-import com.github.javaparser.StaticJavaParser;
-import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.NodeList;
-import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.body.FieldDeclaration;
-import com.github.javaparser.ast.body.MethodDeclaration;
-import com.github.javaparser.ast.body.TypeDeclaration;
-import com.github.javaparser.ast.body.VariableDeclarator;
-import com.github.javaparser.ast.expr.AnnotationExpr;
-import com.github.javaparser.ast.type.ClassOrInterfaceType;
-
-import io.quarkus.runtime.annotations.ConfigItem;
+import io.quarkus.picocli.runtime.annotations.TopCommand;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
-@Command(name = "analyze", mixinStandardHelpOptions = true)
+@TopCommand
+@Command(name = "analyze", mixinStandardHelpOptions = true, subcommands = { Merge.class, Render.class, Serve.class, History.class, Query.class })
 public class Analyze implements Runnable {
 
     private static final Logger LOG = Logger.getLogger(Analyze.class);
@@ -66,6 +57,10 @@ public class Analyze implements Runnable {
             "--clear" }, description = "Clear the working dir and clone the repo")
     boolean clear = false;
 
+    @Option(names = { "-u",
+            "--update" }, description = "Fetch the new tags into the existing clone instead of cloning the repo again; the tags analyzed in previous runs are reused from the results store; cannot be combined with --no-store")
+    boolean update = false;
+
     @Option(names = { "-o", "--organization" }, description = "GitHub organization")
     String organization = "quarkusio";
 
@@ -85,18 +80,89 @@ public class Analyze implements Runnable {
     @Option(names = { "-t", "--threads" }, description = "The number of threads used to analyze the tags")
     int threads = Runtime.getRuntime().availableProcessors();
 
+    @Option(names = {
+            "--no-checkout" }, description = "Read the java sources directly from the git object database instead of checking out the tags")
+    boolean noCheckout = false;
+
+    @Option(names = {
+            "--no-store" }, description = "Do not reuse the stored results of previous runs and do not store the results")
+    boolean noStore = false;
+
+    @Option(names = {
+            "--incremental" }, description = "Analyze the sorted tags as chains where each tag is derived from the diff to the previous tag; implies --no-checkout")
+    boolean incremental = false;
+
+    @Option(names = {
+            "--verify-scanner" }, description = "Parse all java sources and verify the results of the lexical pre-filter")
+    boolean verifyScanner = false;
+
+    @Option(names = {
+            "--timeout" }, description = "The timeout of the whole analysis in minutes; 0 means no timeout")
+    long timeout = 0;
+
+    @Option(names = {
+            "--tag-timeout" }, description = "The timeout of the analysis of a single tag in minutes; 0 means no timeout")
+    long tagTimeout = 30;
+
+    @Option(names = {
+            "--include" }, split = ",", description = "Comma-separated globs of the java sources; default: **/*.java")
+    List<String> includes;
+
+    @Option(names = {
+            "--exclude" }, split = ",", description = "Comma-separated globs of the excluded files; a glob ending with /** excludes a whole directory")
+    List<String> excludes;
+
+    @Option(names = {
+            "--test-sources" }, split = ",", description = "Comma-separated globs of the test sources; default: **/*test/java/**,**/*integration-tests*/**")
+    List<String> testSources;
+
+    @Option(names = {
+            "--repositories" }, split = ",", description = "Comma-separated repositories to analyze on a shared worker pool, either organization/repository or any URI supported by git, e.g. file:///path/to/quarkus-foo; overrides --organization and --repository")
+    List<String> repositories;
+
+    @Option(names = {
+            "--heap-budget" }, description = "The heap budget in percent of the max heap size; the number of files parsed concurrently is adjusted at runtime and the discovery of tags is throttled to fit the budget, 0 disables the adjustment")
+    int heapBudget = 70;
+
+    @Option(names = {
+            "--shard" }, description = "Only analyze the tags of the given shard, e.g. 2/4, and write the partial results to the reports directory instead of the report; use the merge command to combine the partial results")
+    String shard;
+
+    private final FileFactsCache cache = new FileFactsCache();
+
+    // The names of the items of all the results of the run
+    private final ItemNames itemNames = new ItemNames();
+
+    private SourceAnalyzer sourceAnalyzer;
+
+    private SourceFilter sourceFilter;
+
+    // Used to analyze the java sources of a tag in parallel; shared by all tag workers
+    private ForkJoinPool sourcesPool;
+
+    private RunMetrics metrics;
+
+    // May be null
+    private ConcurrencyController controller;
+
+    // Hands out the tags to the workers; not used by the incremental chains
+    private TagScheduler<RepositoryTag> scheduler;
+
     @Override
     public void run() {
+        if (update && noStore) {
+            // Without the stored results all the tags would be analyzed again and the report would be the same as
+            // with a fresh clone
+            throw new IllegalArgumentException(
+                    "The --update option requires the results store; it cannot be combined with --no-store");
+        }
         long start = System.nanoTime();
         Path workDir = workDirPath != null ? new File(workDirPath).toPath() : Paths.get("work");
-        Path repoDir = workDir.resolve(repository);
         Path reportsDir = workDir.resolve("reports");
         boolean workDirExists = Files.exists(workDir);
 
         LOG.infof("Working directory: %s", workDirExists ? workDir.toAbsolutePath() : workDir);
 
-        List<Path> threadRepoDirs = new ArrayList<>(threads);
-
         if (clear || !workDirExists) {
             if (workDirExists) {
                 try {
@@ -109,133 +175,381 @@ public class Analyze implements Runnable {
                 }
             }
         }
-        String remoteRepoName = "https://github.com/" + organization + "/" + repository + ".git";
-
-        // We need a repo per each thread
-        Path zeroThreadRepoDir = repoDir.resolve("_0");
-        if (!Files.exists(zeroThreadRepoDir)) {
-            LOG.infof("Clone %s into %s", remoteRepoName, zeroThreadRepoDir);
-            CloneCommand clone = Git.cloneRepository()
-                    .setURI(remoteRepoName)
-                    .setDirectory(zeroThreadRepoDir.toFile());
-            long cloneStart = System.nanoTime();
-            try {
-                clone.call();
-            } catch (GitAPIException e) {
-                throw new IllegalStateException("Unable to clone the repo in: " + zeroThreadRepoDir, e);
+
+        List<AnalyzedRepository> repos = new ArrayList<>();
+        if (repositories != null) {
+            Set<String> names = new HashSet<>();
+            for (String spec : repositories) {
+                AnalyzedRepository repo = AnalyzedRepository.of(spec, workDir, reportsDir);
+                if (!names.add(repo.getName())) {
+                    throw new IllegalStateException("Duplicate repository name: " + repo.getName());
+                }
+                repos.add(repo);
             }
-            LOG.infof("Cloned into %s in %s s", repoDir.toAbsolutePath(),
-                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - cloneStart));
+        } else {
+            repos.add(new AnalyzedRepository(repository,
+                    "https://github.com/" + organization + "/" + repository + ".git", workDir.resolve(repository),
+                    reportsDir, workDir.resolve("results.db"), false));
         }
-        threadRepoDirs.add(zeroThreadRepoDir);
-
-        for (int i = 1; i < threads; i++) {
-            Path threadRepoDir = repoDir.resolve("_" + i);
-            threadRepoDirs.add(threadRepoDir);
-            if (!Files.exists(threadRepoDir)) {
-                LOG.infof("Copy clone from %s into %s", threadRepoDirs.get(0), threadRepoDir);
-                try (Stream<Path> files = Files.walk(zeroThreadRepoDir)) {
-                    files.forEach(source -> {
-                        if (!source.equals(zeroThreadRepoDir)) {
-                            Path dest = threadRepoDir.resolve(zeroThreadRepoDir.relativize(source));
+        for (AnalyzedRepository repo : repos) {
+            if (update) {
+                // The returned new and moved tags need not be used; they are not found in the results store
+                Workspace.fetch(repo.getUri(), repo.getMainDir());
+            } else {
+                Workspace.cloneIfMissing(repo.getUri(), repo.getMainDir());
+            }
+        }
+
+        if (incremental) {
+            noCheckout = true;
+        }
+        controller = heapBudget > 0 ? ConcurrencyController.ofMaxHeap(heapBudget, threads) : null;
+        sourceAnalyzer = new SourceAnalyzer(verifyScanner, controller);
+        sourceFilter = new SourceFilter(includes != null ? includes : SourceFilter.DEFAULT_INCLUDES,
+                excludes != null ? excludes : SourceFilter.DEFAULT_EXCLUDES,
+                testSources != null ? testSources : SourceFilter.DEFAULT_TESTS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        sourcesPool = new ForkJoinPool(threads);
+        metrics = new RunMetrics(threads, controller);
+
+        Shard selectedShard = shard != null ? Shard.parse(shard) : null;
+        int rulesVersion = 31 * sourceAnalyzer.getRulesVersion() + sourceFilter.getFingerprint();
+        int tagCount = 0;
+        for (AnalyzedRepository repo : repos) {
+            // We need a repo per each thread; the git object database can be read concurrently and so no worker
+            // repositories are needed in the no-checkout mode
+            List<Path> workerRepoDirs = new ArrayList<>();
+            for (int i = 1; i < (noCheckout ? 1 : threads); i++) {
+                workerRepoDirs.add(repo.getRepoDir().resolve("_" + i));
+            }
+            Workspace.prepareWorkers(repo.getMainDir(), workerRepoDirs, executor);
+            repo.getThreadRepoDirs().addAll(workerRepoDirs);
+            findTags(repo, selectedShard, rulesVersion);
+            tagCount += repo.getTagsToAnalyze().size();
+        }
+
+        AnalysisPipeline pipeline = new AnalysisPipeline(tagCount, threads, TimeUnit.MINUTES.toMillis(tagTimeout));
+        try {
+            if (incremental) {
+                // Every repository gets a share of the chains proportional to its number of tags, and the chains of
+                // all repositories are interleaved so that the repositories progress at the same pace
+                List<List<Runnable>> chainWorkers = new ArrayList<>();
+                for (AnalyzedRepository repo : repos) {
+                    List<Ref> refs = new ArrayList<>();
+                    for (String tag : repo.getTagsToAnalyze()) {
+                        refs.add(findTag(tag, repo.getFoundTags()));
+                    }
+                    List<Runnable> workers = new ArrayList<>();
+                    for (List<Ref> chain : chains(refs, chainCount(refs.size(), tagCount))) {
+                        workers.add(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                LOG.infof("Started chain worker for %s tags of %s", chain.size(), repo);
+                                long workerStart = System.nanoTime();
+                                try (Git git = Git.open(repo.getMainDir().toFile())) {
+                                    analyzeChain(repo, git.getRepository(), chain, pipeline);
+                                } catch (Exception e) {
+                                    pipeline.fail(e);
+                                } finally {
+                                    metrics.workerFinished(Thread.currentThread().getName(),
+                                            System.nanoTime() - workerStart);
+                                }
+                            }
+                        });
+                    }
+                    chainWorkers.add(workers);
+                }
+                for (Runnable worker : interleave(chainWorkers)) {
+                    executor.execute(worker);
+                }
+            } else {
+                scheduler = new TagScheduler<>(estimateCosts(repos, executor), next -> next.cost, threads);
+                for (int i = 0; i < threads; i++) {
+                    int workerIndex = i;
+                    int threadIndex = noCheckout ? 0 : i;
+                    executor.execute(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            LOG.infof("Started thread worker %s", threadIndex);
+                            long workerStart = System.nanoTime();
+                            // Each worker opens its clone of a repository when it gets the first tag of the repository
+                            Map<AnalyzedRepository, Git> gits = new HashMap<>();
                             try {
-                                Files.createDirectories(dest);
-                                Files.copy(source, dest, StandardCopyOption.REPLACE_EXISTING,
-                                        StandardCopyOption.COPY_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
-                            } catch (IOException e) {
-                                throw new IllegalStateException(e);
+                                RepositoryTag next;
+                                while (!pipeline.isDone() && (next = scheduler.next(workerIndex)) != null) {
+                                    Path threadRepoDir = next.repo.getThreadRepoDirs().get(threadIndex);
+                                    Git git = gits.get(next.repo);
+                                    if (git == null) {
+                                        git = Git.open(threadRepoDir.toFile());
+                                        gits.put(next.repo, git);
+                                    }
+                                    analyzeTag(next.repo, next.tag, pipeline, threadRepoDir, git);
+                                }
+                            } catch (Exception e) {
+                                pipeline.fail(e);
+                            } finally {
+                                gits.values().forEach(Git::close);
+                                metrics.workerFinished(Thread.currentThread().getName(),
+                                        System.nanoTime() - workerStart);
                             }
                         }
                     });
-                } catch (IOException e1) {
-                    throw new IllegalStateException(e1);
                 }
             }
-        }
 
-        ExecutorService executor = Executors.newFixedThreadPool(threads);
+            // Wait for the last result or the first failure
+            pipeline.await(TimeUnit.MINUTES.toMillis(timeout));
+            if (scheduler != null) {
+                LOG.infof("%s segments of tags stolen by idle workers", scheduler.getSteals());
+            }
+        } finally {
+            executor.shutdownNow();
+            sourcesPool.shutdownNow();
+        }
 
-        // First find the tags
-        List<Ref> foundTags;
+        // Sort the results and render reports
+        List<RepositoryResults> repoResults = new ArrayList<>();
         try {
-            foundTags = Git.open(threadRepoDirs.get(0).toFile()).tagList().call();
-        } catch (GitAPIException | IOException e) {
-            throw new IllegalStateException("Unable to get the tags from the repo: " + threadRepoDirs.get(0), e);
-        }
-        LOG.infof("Found %s tags in the repository", foundTags.size());
-        List<String> tags = this.tags != null ? Arrays.asList(this.tags.split(","))
-                : foundTags.stream().map(Ref::getName).map(Repository::shortenRefName).collect(Collectors.toList());
-        LOG.infof("Going to analyze %s tags: %s", tags.size(), tags);
-
-        List<Result> results = new CopyOnWriteArrayList<>();
-        BlockingQueue<String> tagsQueue = new ArrayBlockingQueue<>(tags.size(), false, tags);
-
-        for (int i = 0; i < threads; i++) {
-            Path threadRepoDir = threadRepoDirs.get(i);
-            executor.execute(new Runnable() {
-
-                @Override
-                public void run() {
-                    LOG.infof("Started thread worker for: %s", threadRepoDir);
-                    try {
-                        Git git = Git.open(threadRepoDir.toFile());
-                        String tag;
-                        while ((tag = tagsQueue.poll()) != null) {
-                            analyzeTag(tag, foundTags, results, threadRepoDir, git);
-                        }
-                    } catch (Exception e) {
-                        throw new IllegalStateException(e);
+            for (AnalyzedRepository repo : repos) {
+                List<Result> results = new ArrayList<>(repo.getResults());
+                Collections.sort(results);
+                repoResults.add(new RepositoryResults(repo.getName(), results));
+                Path repoReportsDir = repo.getReportsDir();
+                if (selectedShard != null) {
+                    if (!Files.exists(repoReportsDir)) {
+                        Files.createDirectories(repoReportsDir);
                     }
+                    Path partialFile = repoReportsDir.resolve(selectedShard.getPartialFileName());
+                    ResultStore partial = new ResultStore(partialFile, rulesVersion, itemNames);
+                    partial.putAll(results);
+                    partial.save();
+                    LOG.infof("Partial results of shard %s written to %s", selectedShard, partialFile.toAbsolutePath());
+                } else {
+                    Reports.write(repoReportsDir, results, rulesVersion);
                 }
-            });
+            }
+            if (repositories != null && selectedShard == null) {
+                Path combined = Reports.renderCombined(reportsDir, repoResults);
+                LOG.infof("Combined report of %s repositories written to %s", repos.size(), combined.toAbsolutePath());
+            }
+            metrics.write(reportsDir.resolve("metrics.json"));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
         }
 
-        // Wait for the results...
-        // TODO add timeout
-        while (results.size() != tags.size()) {
+        for (AnalyzedRepository repo : repos) {
+            ResultStore store = repo.getStore();
             try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                throw new IllegalStateException(e);
+                if (store != null) {
+                    store.putAll(repo.getResults());
+                    store.save();
+                }
+                repo.getCosts().save();
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to save the results store", e);
             }
         }
 
-        // Sort the results
-        Collections.sort(results);
-
-        // Render reports
-        try {
-            if (!Files.exists(reportsDir)) {
-                Files.createDirectories(reportsDir);
-            }
-            Files.write(reportsDir.resolve("report.html"),
-                    Templates.report(results).render().getBytes(StandardCharsets.UTF_8));
-        } catch (Exception e) {
-            throw new IllegalStateException(e);
+        LOG.infof("File facts cache: %s blobs, %s hits, %s misses", cache.size(), cache.getHits(), cache.getMisses());
+        LOG.infof("Lexical pre-filter: %s of %s scanned files parsed", sourceAnalyzer.getParsed(),
+                sourceAnalyzer.getScanned());
+        if (verifyScanner) {
+            LOG.infof("Lexical pre-filter verification: %s mismatches", sourceAnalyzer.getMismatches());
         }
 
         long total = System.nanoTime() - start;
         LOG.infof("Analysis finished in %s",
-                total < TimeUnit.MINUTES.toNanos(1) ? TimeUnit.NANOSECONDS.toSeconds(total) + " s"
+                total < TimeUnit.MINUTES.toNanos(1) ? TimeUnit.NANOSECONDS.toMillis(total) + " ms"
                         : TimeUnit.NANOSECONDS.toMinutes(total) + " min");
+    }
 
-        executor.shutdownNow();
+    /**
+     * Find the tags of the repository and reuse the stored results.
+     */
+    private void findTags(AnalyzedRepository repo, Shard selectedShard, int rulesVersion) {
+        Path mainDir = repo.getMainDir();
+        List<Ref> foundTags;
+        try (Git git = Git.open(mainDir.toFile())) {
+            foundTags = git.tagList().call();
+        } catch (GitAPIException | IOException e) {
+            throw new IllegalStateException("Unable to get the tags from the repo: " + mainDir, e);
+        }
+        repo.setFoundTags(foundTags);
+        LOG.infof("Found %s tags in the repository %s", foundTags.size(), repo);
+        List<String> tags = foundTags.stream().map(Ref::getName).map(Repository::shortenRefName)
+                .collect(Collectors.toList());
+        if (this.tags != null) {
+            List<String> selected = Arrays.asList(this.tags.split(","));
+            // A tag that is missing in one of multiple repositories is skipped
+            tags = repositories != null ? selected.stream().filter(tags::contains).collect(Collectors.toList())
+                    : selected;
+        }
+        if (selectedShard != null) {
+            tags = selectedShard.select(tags);
+            LOG.infof("Shard %s: %s tags of %s assigned", selectedShard, tags.size(), repo);
+        }
+
+        List<String> tagsToAnalyze = tags;
+        if (!noStore) {
+            // Reuse the results of the tags that were already analyzed from the same commit
+            ResultStore store = new ResultStore(repo.getStoreFile(), rulesVersion, itemNames);
+            store.load();
+            repo.setStore(store);
+            Map<String, String> commitIds = resolveCommitIds(mainDir, foundTags);
+            tagsToAnalyze = new ArrayList<>();
+            for (String tag : tags) {
+                String commitId = commitIds.get(tag);
+                Result stored = commitId != null ? store.get(tag, commitId) : null;
+                if (stored != null) {
+                    repo.getResults().add(stored);
+                } else {
+                    tagsToAnalyze.add(tag);
+                }
+            }
+            LOG.infof("Reusing %s stored results of %s", repo.getResults().size(), repo);
+        }
+        repo.setTagsToAnalyze(tagsToAnalyze);
+        LOG.infof("Going to analyze %s tags of %s: %s", tagsToAnalyze.size(), repo, tagsToAnalyze);
     }
 
-    private void analyzeTag(String tag, List<Ref> foundTags, List<Result> results, Path threadRepoDir, Git git)
-            throws RefAlreadyExistsException, RefNotFoundException, InvalidRefNameException, CheckoutConflictException,
-            GitAPIException, IOException {
+    /**
+     * Estimate the cost of each tag from the work time recorded in a previous run, or from the number of java sources
+     * in the tree of the tag.
+     *
+     * @return the tags of each repository sorted by version
+     */
+    private List<List<RepositoryTag>> estimateCosts(List<AnalyzedRepository> repos, ExecutorService executor) {
+        long start = System.nanoTime();
+        List<List<RepositoryTag>> runs = new ArrayList<>();
+        List<CompletableFuture<Void>> counts = new ArrayList<>();
+        List<Git> gits = new ArrayList<>();
+        int recorded = 0;
+        try {
+            for (AnalyzedRepository repo : repos) {
+                Git git = Git.open(repo.getMainDir().toFile());
+                gits.add(git);
+                TagCosts costs = repo.getCosts();
+                costs.load();
+                long nanosPerFile = costs.getNanosPerFile();
+                List<RepositoryTag> run = new ArrayList<>();
+                for (String tag : repo.getTagsToAnalyze()) {
+                    RepositoryTag next = new RepositoryTag(repo, tag);
+                    next.cost = costs.getRecorded(tag);
+                    if (next.cost >= 0) {
+                        recorded++;
+                    } else {
+                        Optional<Ref> ref = repo.getFoundTags().stream()
+                                .filter(r -> Repository.shortenRefName(r.getName()).equals(tag)).findFirst();
+                        if (ref.isPresent()) {
+                            Repository repository = git.getRepository();
+                            counts.add(CompletableFuture.runAsync(() -> {
+                                try {
+                                    next.cost = nanosPerFile
+                                            * TagCosts.countJavaSources(repository, ref.get().getObjectId(),
+                                                    sourceFilter);
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                }
+                            }, executor));
+                        } else {
+                            // The tag fails later
+                            next.cost = 0;
+                        }
+                    }
+                    run.add(next);
+                }
+                run.sort(Comparator.comparing(next -> next.tag, QuarkusVersion.TAG_NAMES));
+                runs.add(run);
+            }
+            CompletableFuture.allOf(counts.toArray(new CompletableFuture<?>[0])).join();
+        } catch (IOException | CompletionException e) {
+            throw new IllegalStateException("Unable to estimate the cost of the tags", e);
+        } finally {
+            gits.forEach(Git::close);
+        }
+        LOG.infof("Estimated the cost of %s tags in %s ms; %s from recorded timings", recorded + counts.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), recorded);
+        return runs;
+    }
+
+    /**
+     * @return the number of chains of a repository proportional to its share of all tags of the run
+     */
+    private int chainCount(int repoTags, int allTags) {
+        return allTags == 0 ? 1 : Math.max(1, (int) Math.round((double) threads * repoTags / allTags));
+    }
+
+    private Map<String, String> resolveCommitIds(Path repoDir, List<Ref> foundTags) {
+        Map<String, String> commitIds = new HashMap<>();
+        try (Git git = Git.open(repoDir.toFile()); RevWalk revWalk = new RevWalk(git.getRepository())) {
+            for (Ref tag : foundTags) {
+                // Annotated tags are peeled
+                commitIds.put(Repository.shortenRefName(tag.getName()), revWalk.parseCommit(tag.getObjectId()).name());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to resolve the tags in: " + repoDir, e);
+        }
+        return commitIds;
+    }
+
+    private void analyzeTag(AnalyzedRepository repo, String tag, AnalysisPipeline pipeline, Path threadRepoDir,
+            Git git) throws InterruptedException {
+        CompletableFuture<Result> future = pipeline.dispatch(repo.qualify(tag), repo.getResults());
+        TagMetrics tagMetrics = metrics.tag(repo.qualify(tag));
+        String worker = Thread.currentThread().getName();
+        try {
+            Ref foundTag = findTag(tag, repo.getFoundTags());
+            if (controller != null) {
+                controller.awaitHeadroom(pipeline::isDone);
+            }
+            TagSources sources = noCheckout ? resolveTree(git.getRepository(), foundTag, tagMetrics)
+                    : checkout(threadRepoDir, git, foundTag, tagMetrics);
+            long handOffStart = System.nanoTime();
+            CompletableFuture<Result> analyzed = pipeline.handOff(() -> analyzeSources(repo, sources), sourcesPool);
+            metrics.addWorkerIdle(worker, System.nanoTime() - handOffStart);
+            analyzed.whenComplete((result, failure) -> {
+                if (failure != null) {
+                    future.completeExceptionally(failure);
+                } else {
+                    future.complete(result);
+                }
+            });
+            if (!noCheckout) {
+                // The working tree must not change until all sources are read
+                long joinStart = System.nanoTime();
+                try {
+                    analyzed.join();
+                } catch (CompletionException | CancellationException ignored) {
+                    // The failure is propagated through the tag future
+                }
+                metrics.addWorkerIdle(worker, System.nanoTime() - joinStart);
+            }
+        } catch (CancellationException e) {
+            // The run failed in the meantime
+            future.cancel(false);
+        } catch (RuntimeException | IOException | GitAPIException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    private static Ref findTag(String tag, List<Ref> foundTags) {
         Optional<Ref> foundTag = foundTags.stream()
                 .filter(ref -> Repository.shortenRefName(ref.getName()).equals(tag))
                 .findFirst();
         if (foundTag.isEmpty()) {
             throw new IllegalStateException("Tag not found: " + tag);
         }
-        results.add(analyze(threadRepoDir, git, foundTag.get()));
+        return foundTag.get();
     }
 
-    private Result analyze(Path workDir, Git git, Ref tag) throws RefAlreadyExistsException, RefNotFoundException,
-            InvalidRefNameException, CheckoutConflictException, GitAPIException, IOException {
+    /**
+     * Checkout the tag and discover the java sources in the working tree.
+     */
+    private TagSources checkout(Path workDir, Git git, Ref tag, TagMetrics tagMetrics) throws RefAlreadyExistsException,
+            RefNotFoundException, InvalidRefNameException, CheckoutConflictException, GitAPIException, IOException {
 
         Result result = new Result();
         result.setTag(tag);
@@ -243,188 +557,208 @@ public class Analyze implements Runnable {
         // Checkout the tag
         long checkoutStart = System.nanoTime();
         git.checkout().setName(tag.getName()).call();
-        LOG.infof("Checked out %s in %s ms", tag.getName(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - checkoutStart));
+        long checkoutTime = System.nanoTime() - checkoutStart;
+        tagMetrics.setResolve(checkoutTime);
+        LOG.infof("Checked out %s in %s ms", tag.getName(), TimeUnit.NANOSECONDS.toMillis(checkoutTime));
 
         long analyzeStart = System.nanoTime();
-        List<Path> javaSources;
-        List<Path> testJavaSources = new ArrayList<>();
-        AtomicInteger foundFiles = new AtomicInteger();
-        LongAdder javaTypes = new LongAdder();
-        LongAdder testJavaTypes = new LongAdder();
-        List<String> buildSteps = new ArrayList<>();
-        List<String> buildItems = new ArrayList<>();
-        List<String> configItems = new ArrayList<>();
-
-        javaSources = Files
-                .find(workDir, Integer.MAX_VALUE, (path, attrs) -> {
-                    if (attrs.isRegularFile()) {
-                        foundFiles.incrementAndGet();
-                        String pathStr = path.toString();
-                        return pathStr.endsWith(".java")
-                                && !pathStr.contains("create-extension-pom")
-                                && !pathStr.contains("create-extension-templates")
-                                && !pathStr.contains("maven-archetype/src/main/resources/archetype-resources")
-                                && !pathStr.endsWith(".tpl.qute.java");
-                    }
-                    return false;
-                })
-                .collect(Collectors.toList());
 
-        // Collect build items - a build item must be final and extend one of the abstract classes
-        Set<String> oldBuildItemNames = Set.of("org.jboss.builder.item.SimpleBuildItem",
-                "org.jboss.builder.item.MultiBuildItem");
-        Set<String> newBuildItemNames = Set.of("io.quarkus.builder.item.SimpleBuildItem",
-                "io.quarkus.builder.item.MultiBuildItem", "io.quarkus.builder.item.EmptyBuildItem");
-        Set<String> buildStepNames = Set.of("org.jboss.shamrock.annotations.BuildStep",
-                "org.jboss.shamrock.deployment.annotations.BuildStep",
-                "io.quarkus.deployment.annotations.BuildStep");
-
-        // Parse and analyze java sources
-        for (Path javaSource : javaSources) {
-            try {
-                String fileName = javaSource.toString();
-                boolean isTest = fileName.contains("test/java") || fileName.contains("test\\java")
-                        || fileName.contains("integration-tests");
-                if (isTest) {
-                    testJavaSources.add(javaSource);
+        // Blob ids of the java sources of the tag; relative path -> blob id
+        Map<String, ObjectId> blobIds = new HashMap<>();
+        try (RevWalk revWalk = new RevWalk(git.getRepository());
+                TreeWalk treeWalk = new TreeWalk(git.getRepository())) {
+            RevCommit commit = revWalk.parseCommit(tag.getObjectId());
+            result.setCommitId(commit.name());
+            treeWalk.addTree(commit.getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(sourceFilter.toTreeFilter());
+            while (treeWalk.next()) {
+                if (sourceFilter.isSource(treeWalk.getPathString())) {
+                    blobIds.put(treeWalk.getPathString(), treeWalk.getObjectId(0));
                 }
+            }
+        }
 
-                CompilationUnit unit = StaticJavaParser.parse(javaSource.toFile());
+        List<SourceFile> javaSources = new ArrayList<>();
+        long foundFiles = sourceFilter.walk(workDir, path -> javaSources
+                .add(new SourceFile(path, blobIds.get(path), sourceFilter.isTest(path))));
+        tagMetrics.setDiscovery(System.nanoTime() - analyzeStart, foundFiles);
 
-                Map<String, String> imports = new HashMap<>();
-                // Foo -> org.acme.Foo
-                unit.getImports().stream().forEach(i -> imports.put(i.getName().getIdentifier(), i.getNameAsString()));
+        return new TagSources(result, javaSources, source -> Files.readAllBytes(workDir.resolve(source.getPath())),
+                foundFiles, analyzeStart, tagMetrics);
+    }
 
-                // Java types
-                long typesFound = unit.findAll(TypeDeclaration.class).stream().count();
-                javaTypes.add(typesFound);
-                if (isTest) {
-                    testJavaTypes.add(typesFound);
+    /**
+     * Discover the java sources of the tag directly in the git object database. Nothing is written to disk, and so
+     * multiple tags can be analyzed concurrently from a single repository.
+     */
+    private TagSources resolveTree(Repository repository, Ref tag, TagMetrics tagMetrics) throws IOException {
+        Result result = new Result();
+        result.setTag(tag);
+
+        long analyzeStart = System.nanoTime();
+        int foundFiles = 0;
+        List<SourceFile> javaSources = new ArrayList<>();
+
+        try (ObjectReader reader = repository.newObjectReader();
+                RevWalk revWalk = new RevWalk(reader);
+                TreeWalk treeWalk = new TreeWalk(repository, reader)) {
+            long resolveStart = System.nanoTime();
+            RevCommit commit = revWalk.parseCommit(tag.getObjectId());
+            result.setCommitId(commit.name());
+            long discoveryStart = System.nanoTime();
+            tagMetrics.setResolve(discoveryStart - resolveStart);
+            treeWalk.addTree(commit.getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(sourceFilter.toTreeFilter());
+            while (treeWalk.next()) {
+                if (!FileMode.REGULAR_FILE.equals(treeWalk.getFileMode(0))
+                        && !FileMode.EXECUTABLE_FILE.equals(treeWalk.getFileMode(0))) {
+                    continue;
                 }
-                unit.findAll(ClassOrInterfaceDeclaration.class).stream()
-                        .filter(c -> {
-                            return c.isFinal() && c.getExtendedTypes().stream().anyMatch(e -> {
-                                String fqcn = null;
-                                if (e.getScope().isEmpty()) {
-                                    fqcn = imports.get(e.getNameAsString());
-                                    if (fqcn == null) {
-                                        LOG.debugf("No scope and no import matches: " + e.getNameAsString());
-                                    }
-                                } else {
-                                    fqcn = getFullyQualifiedName(e);
-                                }
-                                return fqcn != null
-                                        && (oldBuildItemNames.contains(fqcn) || newBuildItemNames.contains(fqcn));
-                            });
-                        })
-                        .filter(not(ClassOrInterfaceDeclaration::isLocalClassDeclaration))
-                        .forEach(c -> buildItems.add(c.getFullyQualifiedName().get()));
-
-                // Collect config items
-                String oldConfigItemName = "org.jboss.shamrock.runtime.annotations.ConfigItem";
-                unit.findAll(FieldDeclaration.class).stream()
-                        .filter(f -> !f.isPrivate())
-                        .filter(f -> {
-                            NodeList<AnnotationExpr> annotations = f.getAnnotations();
-                            if (annotations.isEmpty()) {
-                                return false;
-                            }
-                            for (AnnotationExpr annotation : annotations) {
-                                String name = annotation.getNameAsString();
-                                if (name.equals(oldConfigItemName) ||
-                                        name.equals(ConfigItem.class.getName())) {
-                                    return true;
-                                }
-                                if (name.equals("ConfigItem")) {
-                                    // Check imports
-                                    String importName = imports.get("ConfigItem");
-                                    return oldConfigItemName.equals(importName)
-                                            || ConfigItem.class.getName().equals(importName);
-                                }
-                            }
-                            return false;
-                        })
-                        .forEach(f -> {
-                            if (!f.getVariables().isEmpty()) {
-                                // We only take the first variable... not 100% correct but should work in most cases
-                                VariableDeclarator vd = f.getVariables().get(0);
-
-                                configItems.add(javaSource.getFileName() + "_" + vd.getNameAsString());
-                            }
-                        });
+                foundFiles++;
+                String path = treeWalk.getPathString();
+                if (sourceFilter.isSource(path)) {
+                    javaSources.add(new SourceFile(path, treeWalk.getObjectId(0), sourceFilter.isTest(path)));
+                }
+            }
+            tagMetrics.setDiscovery(System.nanoTime() - discoveryStart, foundFiles);
+            LOG.infof("Resolved tree of %s in %s ms", tag.getName(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - resolveStart));
 
-                // Collect build steps
-                unit.findAll(MethodDeclaration.class).stream()
-                        .filter(f -> {
-                            if (f.isStatic() || f.isAbstract()) {
-                                return false;
-                            }
-                            NodeList<AnnotationExpr> annotations = f.getAnnotations();
-                            if (annotations.isEmpty()) {
-                                return false;
-                            }
-                            for (AnnotationExpr annotation : annotations) {
-                                String name = annotation.getNameAsString();
-                                if (buildStepNames.contains(name)) {
-                                    return true;
-                                }
-                                if (name.equals("BuildStep")) {
-                                    // Check imports
-                                    String importName = imports.get("BuildStep");
-                                    return importName != null && buildStepNames.contains(importName);
-                                }
-                            }
-                            return false;
-                        })
-                        .forEach(
-                                m -> buildSteps
-                                        .add(javaSource.getFileName() + ": " + m.getDeclarationAsString(false, false, true)));
-
-            } catch (ParseProblemException e) {
-                // Quarkus contains a lot of java source templates
-                LOG.warnf("Unable to parse: " + javaSource);
+        }
+
+        // ObjectReader is not thread-safe and so each load uses a new reader
+        return new TagSources(result, javaSources,
+                source -> repository.open(source.getBlobId(), Constants.OBJ_BLOB).getBytes(Integer.MAX_VALUE),
+                foundFiles, analyzeStart, tagMetrics);
+    }
+
+    /**
+     * The parse/extract and aggregate stages; executed by the shared pool.
+     */
+    private Result analyzeSources(AnalyzedRepository repo, TagSources sources) {
+        TagStats stats = new AnalyzeSourcesTask(sources.getJavaSources(), sources.getLoader(), sourceAnalyzer, cache,
+                sources.getMetrics()).invoke();
+        TagMetrics tagMetrics = sources.getMetrics();
+        tagMetrics.finish();
+        Result result = sources.getResult();
+        repo.getCosts().record(result.getTagName(), tagMetrics.getResolve() + tagMetrics.getDiscovery(),
+                tagMetrics.getRead() + tagMetrics.getScan() + tagMetrics.getParse() + tagMetrics.getExtract(),
+                tagMetrics.getJavaSources(), tagMetrics.getJavaSources() - tagMetrics.getCacheHits());
+        stats.apply(result, itemNames);
+        sourceAnalyzer.verify(result.getTagName(), stats);
+        logResult(result, stats, stats.getParsed(), sources.getStart(), sources.getFoundFiles(),
+                paths(sources.getJavaSources()));
+        return result;
+    }
+
+    private void analyzeChain(AnalyzedRepository repo, Repository repository, List<Ref> chain,
+            AnalysisPipeline pipeline) {
+        TagChainAnalyzer chainAnalyzer = new TagChainAnalyzer(repository, sourcesPool, sourceAnalyzer, cache,
+                sourceFilter, itemNames);
+        for (Ref tag : chain) {
+            if (pipeline.isDone()) {
+                return;
+            }
+            String tagName = repo.qualify(Repository.shortenRefName(tag.getName()));
+            CompletableFuture<Result> future = pipeline.dispatch(tagName, repo.getResults());
+            TagMetrics tagMetrics = metrics.tag(tagName);
+            try {
+                if (controller != null) {
+                    controller.awaitHeadroom(pipeline::isDone);
+                }
+                long analyzeStart = System.nanoTime();
+                Result result = chainAnalyzer.analyze(tag, tagMetrics);
+                tagMetrics.finish();
+                sourceAnalyzer.verify(result.getTagName(), chainAnalyzer.getStats());
+                LOG.infof("%s java source files changed in %s", chainAnalyzer.getChanged(), result.getTagName());
+                logResult(result, chainAnalyzer.getStats(), chainAnalyzer.getParsed(), analyzeStart,
+                        chainAnalyzer.getFiles(), chainAnalyzer.getJavaSources());
+                future.complete(result);
+            } catch (RuntimeException | IOException e) {
+                future.completeExceptionally(e);
+                return;
+            } catch (InterruptedException e) {
+                // The run is shutting down
+                Thread.currentThread().interrupt();
+                future.cancel(false);
+                return;
             }
         }
+    }
 
-        result.setBuildItems(buildItems.size());
-        result.setBuildSteps(buildSteps.size());
-        result.setConfigItems(configItems.size());
-        result.setJavaSourceFiles(javaSources.size());
-        result.setJavaTypes(javaTypes.sum());
-        result.setTestSourceFiles(testJavaSources.size());
-        result.setTestTypes(testJavaTypes.sum());
+    /**
+     * Split the sorted tags into at most {@code count} chains of consecutive versions.
+     */
+    static List<List<Ref>> chains(List<Ref> tags, int count) {
+        List<Ref> sorted = new ArrayList<>(tags);
+        sorted.sort(Comparator.comparing(t -> Repository.shortenRefName(t.getName()), QuarkusVersion.TAG_NAMES));
+        int chains = Math.max(1, Math.min(count, sorted.size()));
+        List<List<Ref>> ret = new ArrayList<>(chains);
+        for (int i = 0; i < chains; i++) {
+            ret.add(sorted.subList(i * sorted.size() / chains, (i + 1) * sorted.size() / chains));
+        }
+        return ret;
+    }
 
+    /**
+     * Round-robin interleave of the lists, e.g. {@code [[a1, a2, a3], [b1]]} results in {@code [a1, b1, a2, a3]}.
+     */
+    static <T> List<T> interleave(List<List<T>> lists) {
+        int size = lists.stream().mapToInt(List::size).sum();
+        List<T> ret = new ArrayList<>(size);
+        for (int i = 0; ret.size() < size; i++) {
+            for (List<T> list : lists) {
+                if (i < list.size()) {
+                    ret.add(list.get(i));
+                }
+            }
+        }
+        return ret;
+    }
+
+    private static List<String> paths(List<SourceFile> javaSources) {
+        return javaSources.stream().map(SourceFile::getPath).collect(Collectors.toList());
+    }
+
+    private void logResult(Result result, TagStats stats, long parsed, long analyzeStart, long foundFiles,
+            Collection<String> javaSources) {
         LOG.infof(
-                "%s analyzed in %s s:\n\t- %s files\n\t- %s java source files\n\t- %s java types\n\t- %s build items\n\t- %s config items\n\t- %s build steps",
+                "%s analyzed in %s ms:\n\t- %s files\n\t- %s java source files (%s parsed)\n\t- %s java types\n\t- %s build items\n\t- %s config items\n\t- %s build steps",
                 result.getTagName(),
-                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - analyzeStart),
-                foundFiles.get(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - analyzeStart),
+                foundFiles,
                 javaSources.size(),
-                javaTypes.sum(),
-                buildItems.size(),
-                configItems.size(),
-                buildSteps.size());
+                parsed,
+                stats.getJavaTypes(),
+                stats.getBuildItems(),
+                stats.getConfigItems(),
+                stats.getBuildSteps());
 
         if (dump) {
-            LOG.infof("Java sources found:\n- %s", javaSources.stream().map(p -> {
-                String str = p.toString();
-                if (testJavaSources.contains(p)) {
+            LOG.infof("Java sources found:\n- %s", javaSources.stream().map(s -> {
+                String str = s;
+                if (sourceFilter.isTest(str)) {
                     str += " [TEST]";
                 }
                 return str;
             }).collect(Collectors.joining("\n- ")));
         }
-
-        return result;
     }
 
-    private static String getFullyQualifiedName(ClassOrInterfaceType type) {
-        StringBuilder name = new StringBuilder();
-        if (type.getScope().isPresent()) {
-            name.append(getFullyQualifiedName(type.getScope().get()));
-            name.append(".");
+    private static final class RepositoryTag {
+
+        final AnalyzedRepository repo;
+        final String tag;
+        // The estimated cost
+        long cost;
+
+        RepositoryTag(AnalyzedRepository repo, String tag) {
+            this.repo = repo;
+            this.tag = tag;
         }
-        name.append(type.getNameAsString());
-        return name.toString();
+
     }
+
 }
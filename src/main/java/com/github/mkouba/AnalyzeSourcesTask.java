@@ -0,0 +1,123 @@
+package com.github.mkouba;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Analyzes a range of java source files of a tag. The range is split recursively so that idle workers of the pool can
+ * steal the work. Each leaf task accumulates its own {@link TagStats} which are merged when the subtasks are joined.
+ */
+class AnalyzeSourcesTask extends RecursiveTask<TagStats> {
+
+    private static final long serialVersionUID = 1L;
+
+    // The number of files analyzed by a leaf task
+    static final int THRESHOLD = 32;
+
+    private final List<SourceFile> sources;
+    private final int from;
+    private final int to;
+    private final ContentLoader loader;
+    private final SourceAnalyzer sourceAnalyzer;
+    private final FileFactsCache cache;
+    // If not null then the facts of each file are collected; path -> facts
+    private final Map<String, FileFacts> factsByPath;
+    // May be null
+    private final TagMetrics metrics;
+
+    AnalyzeSourcesTask(List<SourceFile> sources, ContentLoader loader, SourceAnalyzer sourceAnalyzer,
+            FileFactsCache cache, TagMetrics metrics) {
+        this(sources, loader, sourceAnalyzer, cache, null, metrics);
+    }
+
+    /**
+     * @param sources
+     * @param loader
+     * @param sourceAnalyzer
+     * @param cache
+     * @param factsByPath a thread-safe map used to collect the facts of each file
+     * @param metrics the metrics of the tag, may be {@code null}
+     */
+    AnalyzeSourcesTask(List<SourceFile> sources, ContentLoader loader, SourceAnalyzer sourceAnalyzer,
+            FileFactsCache cache, Map<String, FileFacts> factsByPath, TagMetrics metrics) {
+        this(sources, 0, sources.size(), loader, sourceAnalyzer, cache, factsByPath, metrics);
+    }
+
+    private AnalyzeSourcesTask(List<SourceFile> sources, int from, int to, ContentLoader loader,
+            SourceAnalyzer sourceAnalyzer, FileFactsCache cache, Map<String, FileFacts> factsByPath,
+            TagMetrics metrics) {
+        this.sources = sources;
+        this.from = from;
+        this.to = to;
+        this.loader = loader;
+        this.sourceAnalyzer = sourceAnalyzer;
+        this.cache = cache;
+        this.factsByPath = factsByPath;
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected TagStats compute() {
+        if (to - from <= THRESHOLD) {
+            return analyze();
+        }
+        int middle = (from + to) >>> 1;
+        AnalyzeSourcesTask left = new AnalyzeSourcesTask(sources, from, middle, loader, sourceAnalyzer, cache,
+                factsByPath, metrics);
+        AnalyzeSourcesTask right = new AnalyzeSourcesTask(sources, middle, to, loader, sourceAnalyzer, cache,
+                factsByPath, metrics);
+        left.fork();
+        TagStats stats = right.compute();
+        return left.join().merge(stats);
+    }
+
+    private TagStats analyze() {
+        TagStats stats = new TagStats();
+        for (int i = from; i < to; i++) {
+            SourceFile source = sources.get(i);
+            ObjectId blobId = source.getBlobId();
+            FileFacts facts = blobId != null ? cache.get(blobId) : null;
+            if (metrics != null) {
+                metrics.addJavaSource(facts != null);
+            }
+            if (facts == null) {
+                byte[] content;
+                long readStart = System.nanoTime();
+                try {
+                    content = loader.load(source);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Unable to read: " + source.getPath(), e);
+                }
+                if (metrics != null) {
+                    metrics.addRead(System.nanoTime() - readStart, content.length);
+                }
+                facts = sourceAnalyzer.analyze(source.getPath(), content, metrics);
+                stats.incrementParsed();
+                if (blobId != null) {
+                    cache.put(blobId, facts);
+                }
+            }
+            stats.add(source.isTest(), facts);
+            if (factsByPath != null) {
+                factsByPath.put(source.getPath(), facts);
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Loads the content of a source file. A loader may be invoked concurrently from multiple threads.
+     */
+    @FunctionalInterface
+    interface ContentLoader {
+
+        byte[] load(SourceFile source) throws IOException;
+
+    }
+
+}
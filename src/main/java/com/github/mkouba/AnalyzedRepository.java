@@ -0,0 +1,164 @@
+package com.github.mkouba;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.jgit.lib.Ref;
+
+/**
+ * A repository analyzed in a run, e.g. {@code quarkusio/quarkus}.
+ * <p>
+ * Each repository has its own clones, results store and reports directory. The workers, the sources pool and the file
+ * facts cache are shared by all repositories of a run.
+ */
+final class AnalyzedRepository {
+
+    private final String name;
+    private final String uri;
+    private final Path repoDir;
+    private final Path reportsDir;
+    private final Path storeFile;
+    // If set to true then the tag names are prefixed with the repository name in the logs and metrics
+    private final boolean qualified;
+    private final TagCosts costs;
+
+    // The first dir is the main clone, the others are the worker clones used in the checkout mode
+    private final List<Path> threadRepoDirs = new ArrayList<>();
+    private final List<Result> results = new CopyOnWriteArrayList<>();
+    private List<Ref> foundTags = List.of();
+    private List<String> tagsToAnalyze = List.of();
+    private ResultStore store;
+
+    /**
+     * @param spec {@code organization/repository} for a GitHub repository, or any URI or path supported by git, e.g.
+     *        {@code file:///path/to/quarkus-foo}
+     * @param workDir
+     * @param reportsDir the parent of the reports directory of the repository
+     * @return the repository
+     * @throws IllegalArgumentException if the spec is not valid
+     */
+    static AnalyzedRepository of(String spec, Path workDir, Path reportsDir) {
+        String value = spec.trim();
+        String uri;
+        if (value.contains(":") || value.startsWith("/") || value.startsWith(".")) {
+            uri = value;
+        } else if (value.indexOf('/') > 0 && value.indexOf('/') == value.lastIndexOf('/')) {
+            uri = "https://github.com/" + value + ".git";
+        } else {
+            throw new IllegalArgumentException(
+                    "Invalid repository: " + spec + "; expected organization/repository or a URI");
+        }
+        String name = nameOf(uri);
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Invalid repository: " + spec + "; unable to derive the name");
+        }
+        return new AnalyzedRepository(name, uri, workDir.resolve(name), reportsDir.resolve(name),
+                workDir.resolve(name).resolve("results.db"), true);
+    }
+
+    AnalyzedRepository(String name, String uri, Path repoDir, Path reportsDir, Path storeFile, boolean qualified) {
+        this.name = name;
+        this.uri = uri;
+        this.repoDir = repoDir;
+        this.reportsDir = reportsDir;
+        this.storeFile = storeFile;
+        this.qualified = qualified;
+        this.threadRepoDirs.add(getMainDir());
+        this.costs = new TagCosts(repoDir.resolve("costs.properties"));
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getUri() {
+        return uri;
+    }
+
+    Path getRepoDir() {
+        return repoDir;
+    }
+
+    Path getMainDir() {
+        return repoDir.resolve("_0");
+    }
+
+    Path getReportsDir() {
+        return reportsDir;
+    }
+
+    Path getStoreFile() {
+        return storeFile;
+    }
+
+    List<Path> getThreadRepoDirs() {
+        return threadRepoDirs;
+    }
+
+    /**
+     * @return the stored and the analyzed results, unsorted
+     */
+    List<Result> getResults() {
+        return results;
+    }
+
+    List<Ref> getFoundTags() {
+        return foundTags;
+    }
+
+    void setFoundTags(List<Ref> foundTags) {
+        this.foundTags = foundTags;
+    }
+
+    List<String> getTagsToAnalyze() {
+        return tagsToAnalyze;
+    }
+
+    void setTagsToAnalyze(List<String> tagsToAnalyze) {
+        this.tagsToAnalyze = tagsToAnalyze;
+    }
+
+    /**
+     * @return the results store, or {@code null} if the results are not stored
+     */
+    ResultStore getStore() {
+        return store;
+    }
+
+    void setStore(ResultStore store) {
+        this.store = store;
+    }
+
+    TagCosts getCosts() {
+        return costs;
+    }
+
+    /**
+     * @param tag
+     * @return the tag name used in the logs and metrics, e.g. {@code quarkus-foo/1.0.0}
+     */
+    String qualify(String tag) {
+        return qualified ? name + "/" + tag : tag;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static String nameOf(String uri) {
+        String path = uri;
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        if (path.endsWith(".git")) {
+            path = path.substring(0, path.length() - ".git".length());
+        }
+        // Also handles scp-like URIs, e.g. git@github.com:quarkiverse/quarkus-foo.git
+        int separator = Math.max(path.lastIndexOf('/'), path.lastIndexOf(':'));
+        return path.substring(separator + 1);
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.github.mkouba;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Selects the commits of a range that are analyzed, e.g. {@code 10}, {@code daily} or {@code weekly}.
+ * <p>
+ * A number {@code N} selects every N-th commit counted from the newest one, which is always selected. The
+ * {@code daily} and {@code weekly} sampling selects the last commit of each day or ISO week (in UTC) that contains a
+ * commit, i.e. the state of the codebase at the end of the period.
+ */
+final class CommitSampling {
+
+    static final String DAILY = "daily";
+    static final String WEEKLY = "weekly";
+
+    // 0 for daily/weekly
+    private final int every;
+    private final String period;
+
+    /**
+     * @param value a positive number, {@code daily} or {@code weekly}
+     * @return the sampling
+     * @throws IllegalArgumentException if the value is not valid
+     */
+    static CommitSampling parse(String value) {
+        String trimmed = value.trim();
+        if (DAILY.equals(trimmed) || WEEKLY.equals(trimmed)) {
+            return new CommitSampling(0, trimmed);
+        }
+        int every;
+        try {
+            every = Integer.parseInt(trimmed);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid sampling: " + value + "; expected N, daily or weekly", e);
+        }
+        if (every < 1) {
+            throw new IllegalArgumentException("Invalid sampling: " + value + "; N must be positive");
+        }
+        return new CommitSampling(every, null);
+    }
+
+    private CommitSampling(int every, String period) {
+        this.every = every;
+        this.period = period;
+    }
+
+    /**
+     * @param <T>
+     * @param commits the commits ordered from the oldest to the newest
+     * @param commitTime the commit time in seconds since the epoch
+     * @return the selected commits ordered from the oldest to the newest
+     */
+    <T> List<T> select(List<T> commits, ToIntFunction<T> commitTime) {
+        if (commits.isEmpty()) {
+            return List.of();
+        }
+        if (period == null) {
+            List<T> selected = new ArrayList<>();
+            for (int i = (commits.size() - 1) % every; i < commits.size(); i += every) {
+                selected.add(commits.get(i));
+            }
+            return selected;
+        }
+        // The commit times of a first-parent history are not necessarily monotonic; the last commit of a period wins
+        Map<LocalDate, T> last = new LinkedHashMap<>();
+        for (T commit : commits) {
+            LocalDate date = LocalDate.ofInstant(Instant.ofEpochSecond(commitTime.applyAsInt(commit)), ZoneOffset.UTC);
+            if (WEEKLY.equals(period)) {
+                date = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            }
+            last.remove(date);
+            last.put(date, commit);
+        }
+        return new ArrayList<>(last.values());
+    }
+
+    @Override
+    public String toString() {
+        return period != null ? period : "every " + every + " commits";
+    }
+
+}
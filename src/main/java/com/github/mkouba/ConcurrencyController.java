@@ -0,0 +1,253 @@
+package com.github.mkouba;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Limits the number of java sources parsed concurrently and applies backpressure to the discovery of tags, so that a
+ * run fits a heap budget regardless of the number of threads.
+ * <p>
+ * The controller samples the parse throughput, the share of time spent in GC and the heap occupied after the last GC.
+ * If the GC overhead is too high or the budget is exceeded, the limit is halved. Otherwise, the limit grows by one
+ * while the parses wait for it, unless the previous increase lowered the throughput; then it steps back and holds for
+ * a while.
+ * <p>
+ * The heap held by the files being parsed is estimated from the size of their content, see {@link #AST_FACTOR}.
+ */
+final class ConcurrencyController {
+
+    private static final Logger LOG = Logger.getLogger(ConcurrencyController.class);
+
+    // The heap occupied by a parsed CompilationUnit relative to the size of the source
+    static final int AST_FACTOR = 12;
+
+    static final long ADJUST_INTERVAL = TimeUnit.MILLISECONDS.toNanos(500);
+
+    // The max share of time spent in GC during an interval
+    static final double GC_OVERHEAD_LIMIT = 0.2;
+
+    // A drop in throughput smaller than this is considered noise
+    static final double THROUGHPUT_TOLERANCE = 0.05;
+
+    // The number of intervals the limit is not increased after an increase that did not pay off
+    static final int HOLD_INTERVALS = 10;
+
+    private final int maxLimit;
+    private final long budget;
+    // The heap occupied after the last GC in bytes
+    private final LongSupplier liveHeap;
+    // The accumulated GC time in milliseconds
+    private final LongSupplier gcTime;
+    private final LongSupplier clock;
+
+    // All the fields below are guarded by this
+    private int limit;
+    private int active;
+    private int waiting;
+    // The content size of the files being parsed
+    private long inFlight;
+    private long live;
+    private boolean increased;
+    private int hold;
+
+    private long intervalStart;
+    private long intervalBytes;
+    private long intervalGcTime;
+    private double lastThroughput;
+
+    private int minLimitReached;
+    private int adjustments;
+    private long throttled;
+
+    /**
+     * @param maxLimit the max number of concurrent parses, usually the parallelism of the sources pool
+     * @param budget the heap budget in bytes
+     */
+    ConcurrencyController(int maxLimit, long budget) {
+        this(maxLimit, budget, ConcurrencyController::liveHeap, ConcurrencyController::gcTime, System::nanoTime);
+    }
+
+    ConcurrencyController(int maxLimit, long budget, LongSupplier liveHeap, LongSupplier gcTime, LongSupplier clock) {
+        if (maxLimit < 1) {
+            throw new IllegalArgumentException("The max limit must be positive: " + maxLimit);
+        }
+        this.maxLimit = maxLimit;
+        this.budget = budget;
+        this.liveHeap = liveHeap;
+        this.gcTime = gcTime;
+        this.clock = clock;
+        this.limit = maxLimit;
+        this.minLimitReached = maxLimit;
+        this.intervalStart = clock.getAsLong();
+        this.intervalGcTime = gcTime.getAsLong();
+        this.live = liveHeap.getAsLong();
+    }
+
+    /**
+     * @param percent the budget in percent of the max heap size
+     * @param maxLimit
+     * @return the controller
+     */
+    static ConcurrencyController ofMaxHeap(int percent, int maxLimit) {
+        if (percent <= 0 || percent > 100) {
+            throw new IllegalArgumentException("The heap budget must be between 1 and 100: " + percent);
+        }
+        return new ConcurrencyController(maxLimit, Runtime.getRuntime().maxMemory() / 100 * percent);
+    }
+
+    /**
+     * Blocks until a parse of a file of the given size may start. A parse is always allowed if no other file is being
+     * parsed.
+     *
+     * @param bytes the size of the content
+     * @throws IllegalStateException if interrupted while waiting
+     */
+    synchronized void acquire(long bytes) {
+        waiting++;
+        try {
+            while (active >= limit || (active > 0 && exceedsBudget(inFlight + bytes))) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a parse", e);
+        } finally {
+            waiting--;
+        }
+        active++;
+        inFlight += bytes;
+    }
+
+    /**
+     * @param bytes the size of the content passed to {@link #acquire(long)}
+     */
+    synchronized void release(long bytes) {
+        intervalBytes += bytes;
+        // The finished parse still counts as active, i.e. all parses allowed by the limit were in progress
+        adjust();
+        active--;
+        inFlight -= bytes;
+        notifyAll();
+    }
+
+    /**
+     * Blocks the discovery of a tag while the heap budget is exceeded and there are parses in progress that will free
+     * the heap.
+     *
+     * @param cancelled
+     * @throws InterruptedException
+     */
+    synchronized void awaitHeadroom(BooleanSupplier cancelled) throws InterruptedException {
+        long start = clock.getAsLong();
+        while (!cancelled.getAsBoolean() && (active > 0 || waiting > 0) && exceedsBudget(inFlight)) {
+            wait(100);
+            adjust();
+        }
+        throttled += clock.getAsLong() - start;
+    }
+
+    synchronized int getLimit() {
+        return limit;
+    }
+
+    synchronized int getMinLimitReached() {
+        return minLimitReached;
+    }
+
+    synchronized int getAdjustments() {
+        return adjustments;
+    }
+
+    /**
+     * @return the time the discovery was blocked in nanoseconds
+     */
+    synchronized long getThrottled() {
+        return throttled;
+    }
+
+    int getMaxLimit() {
+        return maxLimit;
+    }
+
+    long getBudget() {
+        return budget;
+    }
+
+    private boolean exceedsBudget(long bytes) {
+        return live + bytes * AST_FACTOR > budget;
+    }
+
+    // Must be called while holding the lock
+    private void adjust() {
+        long now = clock.getAsLong();
+        long elapsed = now - intervalStart;
+        if (elapsed < ADJUST_INTERVAL) {
+            return;
+        }
+        long gc = gcTime.getAsLong();
+        double gcOverhead = (double) TimeUnit.MILLISECONDS.toNanos(gc - intervalGcTime) / elapsed;
+        double throughput = (double) intervalBytes / elapsed;
+        live = liveHeap.getAsLong();
+        int previous = limit;
+        boolean demand = intervalBytes > 0 && (waiting > 0 || active >= limit);
+        if (gcOverhead > GC_OVERHEAD_LIMIT || exceedsBudget(inFlight)) {
+            limit = Math.max(1, limit / 2);
+            increased = false;
+        } else if (demand) {
+            if (increased && throughput < lastThroughput * (1 - THROUGHPUT_TOLERANCE)) {
+                limit--;
+                hold = HOLD_INTERVALS;
+                increased = false;
+            } else if (hold > 0) {
+                hold--;
+                increased = false;
+            } else {
+                increased = limit < maxLimit;
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+        if (intervalBytes > 0) {
+            lastThroughput = throughput;
+        }
+        intervalStart = now;
+        intervalBytes = 0;
+        intervalGcTime = gc;
+        if (limit != previous) {
+            adjustments++;
+            minLimitReached = Math.min(minLimitReached, limit);
+            LOG.debugf("Parse limit changed from %s to %s [throughput: %.1f MB/s, GC overhead: %.0f%%, live heap: %s MB]",
+                    previous, limit, throughput * 1000, gcOverhead * 100, live / (1024 * 1024));
+            notifyAll();
+        }
+    }
+
+    private static long liveHeap() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()) {
+                MemoryUsage usage = pool.getCollectionUsage();
+                if (usage != null) {
+                    used += usage.getUsed();
+                }
+            }
+        }
+        return used;
+    }
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, gc.getCollectionTime());
+        }
+        return time;
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.github.mkouba;
+
+import java.util.List;
+
+/**
+ * A class declared in a java source file that extends another class. Local classes are not included.
+ * <p>
+ * The superclass cannot be always resolved from a single file, e.g. it may be declared in the same package or
+ * imported on demand. Therefore, all the possible fully qualified names are kept and the superclass is resolved when
+ * the classes of a tag are indexed.
+ *
+ * @see TypeIndex
+ */
+final class DeclaredClass {
+
+    private final String name;
+    private final boolean isFinal;
+    private final List<String> superclassCandidates;
+
+    /**
+     * @param name the fully qualified name
+     * @param isFinal
+     * @param superclassCandidates the possible fully qualified names of the superclass, in the order of precedence
+     */
+    DeclaredClass(String name, boolean isFinal, List<String> superclassCandidates) {
+        this.name = name;
+        this.isFinal = isFinal;
+        this.superclassCandidates = List.copyOf(superclassCandidates);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    boolean isFinal() {
+        return isFinal;
+    }
+
+    List<String> getSuperclassCandidates() {
+        return superclassCandidates;
+    }
+
+}
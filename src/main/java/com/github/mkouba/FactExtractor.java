@@ -0,0 +1,42 @@
+package com.github.mkouba;
+
+import java.util.List;
+
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+
+/**
+ * Extracts a single kind of facts from a parsed java source file.
+ * <p>
+ * All extractors are dispatched from one traversal of the syntax tree, i.e. adding an extractor does not add another
+ * tree walk. The nodes are visited in pre-order. An extractor must be stateless; the per-file state is held by the
+ * {@link FileContext}.
+ * <p>
+ * Besides the built-in facts, an extractor may report its own facts as named counters via
+ * {@link FileContext#count(String)}, e.g. the number of {@code @Recorder} classes. The counters are summed up per tag
+ * and kept in {@link Result#getCounters()}. The files are only parsed if they pass the lexical pre-filter, and so an
+ * extractor should declare the identifiers it looks for, see {@link #getCandidateTokens()}.
+ *
+ * @see FactExtractors#defaults()
+ */
+interface FactExtractor {
+
+    /**
+     * @return the identifiers that make a file a candidate for this extractor, e.g. {@code Recorder}
+     * @see SourceScanner
+     */
+    default List<String> getCandidateTokens() {
+        return List.of();
+    }
+
+    default void visitType(TypeDeclaration<?> type, FileContext context) {
+    }
+
+    default void visitField(FieldDeclaration field, FileContext context) {
+    }
+
+    default void visitMethod(MethodDeclaration method, FileContext context) {
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.github.mkouba;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+
+import io.quarkus.runtime.annotations.ConfigItem;
+
+/**
+ * The built-in extractors.
+ */
+final class FactExtractors {
+
+    // A build item must be final and extend one of the abstract classes, possibly through intermediate classes
+    static final Set<String> OLD_BUILD_ITEM_NAMES = Set.of("org.jboss.builder.item.SimpleBuildItem",
+            "org.jboss.builder.item.MultiBuildItem");
+    static final Set<String> NEW_BUILD_ITEM_NAMES = Set.of("io.quarkus.builder.item.SimpleBuildItem",
+            "io.quarkus.builder.item.MultiBuildItem", "io.quarkus.builder.item.EmptyBuildItem");
+    static final Set<String> BUILD_STEP_NAMES = Set.of("org.jboss.shamrock.annotations.BuildStep",
+            "org.jboss.shamrock.deployment.annotations.BuildStep",
+            "io.quarkus.deployment.annotations.BuildStep");
+    static final String OLD_CONFIG_ITEM_NAME = "org.jboss.shamrock.runtime.annotations.ConfigItem";
+
+    private FactExtractors() {
+    }
+
+    /**
+     * @return the extractors of java types, build items, config items and build steps
+     */
+    static List<FactExtractor> defaults() {
+        return List.of(new JavaTypes(), new BuildItems(), new ConfigItems(), new BuildSteps());
+    }
+
+    /**
+     * @return the name prefixed with the fully qualified name of the declaring type, e.g. {@code org.acme.FooConfig.name}
+     */
+    static String qualify(Node member, String separator, String name) {
+        Node parent = member.getParentNode().orElse(null);
+        while (parent != null && !(parent instanceof TypeDeclaration)) {
+            parent = parent.getParentNode().orElse(null);
+        }
+        Optional<String> declaringType = parent != null ? ((TypeDeclaration<?>) parent).getFullyQualifiedName()
+                : Optional.empty();
+        return declaringType.isPresent() ? declaringType.get() + separator + name : name;
+    }
+
+    static final class JavaTypes implements FactExtractor {
+
+        @Override
+        public void visitType(TypeDeclaration<?> type, FileContext context) {
+            context.addJavaType();
+        }
+
+    }
+
+    /**
+     * Records the classes that extend another class. The build items are resolved per tag by the {@link TypeIndex}.
+     */
+    static final class BuildItems implements FactExtractor {
+
+        @Override
+        public void visitType(TypeDeclaration<?> type, FileContext context) {
+            if (type.isClassOrInterfaceDeclaration() && type.asClassOrInterfaceDeclaration().isLocalClassDeclaration()) {
+                return;
+            }
+            Optional<String> fqcn = type.getFullyQualifiedName();
+            if (fqcn.isEmpty()) {
+                return;
+            }
+            context.addDeclaredType(type.getNameAsString(), fqcn.get());
+            if (!type.isClassOrInterfaceDeclaration()) {
+                return;
+            }
+            ClassOrInterfaceDeclaration clazz = type.asClassOrInterfaceDeclaration();
+            if (clazz.isInterface() || clazz.getExtendedTypes().isEmpty()) {
+                return;
+            }
+            context.addClass(fqcn.get(), clazz.isFinal(), clazz.getExtendedTypes(0).getNameWithScope());
+        }
+
+    }
+
+    static final class ConfigItems implements FactExtractor {
+
+        @Override
+        public void visitField(FieldDeclaration field, FileContext context) {
+            if (field.isPrivate() || field.getVariables().isEmpty() || !isConfigItem(field.getAnnotations(), context)) {
+                return;
+            }
+            // We only take the first variable... not 100% correct but should work in most cases
+            VariableDeclarator vd = field.getVariables().get(0);
+            context.addConfigItem(qualify(field, ".", vd.getNameAsString()));
+        }
+
+        private static boolean isConfigItem(NodeList<AnnotationExpr> annotations, FileContext context) {
+            for (AnnotationExpr annotation : annotations) {
+                String name = annotation.getNameAsString();
+                if (name.equals(OLD_CONFIG_ITEM_NAME) ||
+                        name.equals(ConfigItem.class.getName())) {
+                    return true;
+                }
+                if (name.equals("ConfigItem")) {
+                    // Check imports
+                    String importName = context.getImport("ConfigItem");
+                    return OLD_CONFIG_ITEM_NAME.equals(importName)
+                            || ConfigItem.class.getName().equals(importName);
+                }
+            }
+            return false;
+        }
+
+    }
+
+    static final class BuildSteps implements FactExtractor {
+
+        @Override
+        public void visitMethod(MethodDeclaration method, FileContext context) {
+            if (method.isStatic() || method.isAbstract() || !isBuildStep(method.getAnnotations(), context)) {
+                return;
+            }
+            context.addBuildStep(qualify(method, "#", method.getDeclarationAsString(false, false, true)));
+        }
+
+        private static boolean isBuildStep(NodeList<AnnotationExpr> annotations, FileContext context) {
+            for (AnnotationExpr annotation : annotations) {
+                String name = annotation.getNameAsString();
+                if (BUILD_STEP_NAMES.contains(name)) {
+                    return true;
+                }
+                if (name.equals("BuildStep")) {
+                    // Check imports
+                    String importName = context.getImport("BuildStep");
+                    return importName != null && BUILD_STEP_NAMES.contains(importName);
+                }
+            }
+            return false;
+        }
+
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.github.mkouba;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+
+/**
+ * The state of the extraction of a single java source file.
+ */
+final class FileContext {
+
+    private final String packageName;
+    // Foo -> org.acme.Foo
+    private final Map<String, String> imports;
+    // org.acme
+    private final List<String> onDemandImports;
+    // Types declared in the file; Foo -> org.acme.Outer.Foo
+    private final Map<String, String> declaredTypes;
+
+    private long javaTypes;
+    private final List<PendingClass> classes = new ArrayList<>();
+    private final List<String> configItems = new ArrayList<>();
+    private final List<String> buildSteps = new ArrayList<>();
+    // Created lazily; most files have no counters
+    private Map<String, Long> counters;
+
+    FileContext(CompilationUnit unit) {
+        this.packageName = unit.getPackageDeclaration().map(p -> p.getNameAsString()).orElse("");
+        this.imports = new HashMap<>();
+        this.onDemandImports = new ArrayList<>();
+        this.declaredTypes = new HashMap<>();
+        for (ImportDeclaration i : unit.getImports()) {
+            if (!i.isAsterisk()) {
+                imports.put(i.getName().getIdentifier(), i.getNameAsString());
+            } else if (!i.isStatic()) {
+                onDemandImports.add(i.getNameAsString());
+            }
+        }
+    }
+
+    /**
+     * @param simpleName
+     * @return the fully qualified name of the import, or {@code null} if no import matches
+     */
+    String getImport(String simpleName) {
+        return imports.get(simpleName);
+    }
+
+    void addJavaType() {
+        javaTypes++;
+    }
+
+    /**
+     * @param simpleName
+     * @param fqcn
+     */
+    void addDeclaredType(String simpleName, String fqcn) {
+        declaredTypes.putIfAbsent(simpleName, fqcn);
+    }
+
+    /**
+     * The superclass is resolved when all the types declared in the file are known.
+     *
+     * @param fqcn
+     * @param isFinal
+     * @param superclass the name of the superclass as used in the source, e.g. {@code Foo} or {@code org.acme.Foo}
+     */
+    void addClass(String fqcn, boolean isFinal, String superclass) {
+        classes.add(new PendingClass(fqcn, isFinal, superclass));
+    }
+
+    void addConfigItem(String name) {
+        configItems.add(name);
+    }
+
+    void addBuildStep(String declaration) {
+        buildSteps.add(declaration);
+    }
+
+    /**
+     * Increment the named counter of a custom fact.
+     *
+     * @param counter the name of the counter, e.g. {@code recorders}
+     * @see Result#getCounters()
+     */
+    void count(String counter) {
+        if (counters == null) {
+            counters = new HashMap<>();
+        }
+        counters.merge(counter, 1L, Long::sum);
+    }
+
+    FileFacts toFacts() {
+        List<DeclaredClass> declared = new ArrayList<>(classes.size());
+        for (PendingClass clazz : classes) {
+            declared.add(new DeclaredClass(clazz.fqcn, clazz.isFinal, resolve(clazz.superclass)));
+        }
+        return new FileFacts(javaTypes, declared, configItems, buildSteps, counters != null ? counters : Map.of());
+    }
+
+    /**
+     * @param name a simple or qualified type name
+     * @return the possible fully qualified names, in the order of precedence
+     */
+    private List<String> resolve(String name) {
+        int dot = name.indexOf('.');
+        String first = dot == -1 ? name : name.substring(0, dot);
+        String rest = dot == -1 ? "" : name.substring(dot);
+        // The types declared in the file shadow the imports
+        String resolved = declaredTypes.get(first);
+        if (resolved == null) {
+            resolved = imports.get(first);
+        }
+        if (resolved != null) {
+            return List.of(resolved + rest);
+        }
+        List<String> candidates = new ArrayList<>(2 + onDemandImports.size());
+        if (dot != -1) {
+            // Either a fully qualified name or a nested type of a class from the same package
+            candidates.add(name);
+        }
+        candidates.add(packageName.isEmpty() ? name : packageName + "." + name);
+        if (dot == -1) {
+            for (String onDemandImport : onDemandImports) {
+                candidates.add(onDemandImport + "." + name);
+            }
+        }
+        return candidates;
+    }
+
+    private static final class PendingClass {
+
+        private final String fqcn;
+        private final boolean isFinal;
+        private final String superclass;
+
+        PendingClass(String fqcn, boolean isFinal, String superclass) {
+            this.fqcn = fqcn;
+            this.isFinal = isFinal;
+            this.superclass = superclass;
+        }
+
+    }
+
+}
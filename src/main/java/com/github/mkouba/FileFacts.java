@@ -0,0 +1,95 @@
+package com.github.mkouba;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The facts extracted from a single java source file.
+ * <p>
+ * The facts only depend on the content of the file, i.e. a git blob. The path-dependent information (such as test
+ * classification) is derived when the facts of a tag are aggregated. Likewise, the build items are resolved from the
+ * classes of all files of a tag.
+ */
+final class FileFacts {
+
+    static final FileFacts UNPARSABLE = new FileFacts(0, List.of(), List.of(), List.of(), Map.of(), false, null);
+
+    private final long javaTypes;
+    // The classes that extend another class; used to resolve the build items of a tag
+    private final List<DeclaredClass> classes;
+    // Names of the fields annotated with @ConfigItem, qualified with the declaring type, e.g. org.acme.FooConfig.name
+    private final List<String> configItems;
+    // Method declarations annotated with @BuildStep, qualified with the declaring type, e.g.
+    // org.acme.FooProcessor#FooBuildItem foo()
+    private final List<String> buildSteps;
+    // The named counters of the custom facts, see FileContext#count(String)
+    private final Map<String, Long> counters;
+    private final boolean parsed;
+    // The facts the lexical pre-filter would give if the file was parsed to verify the scanner; null otherwise
+    private final FileFacts scannerFacts;
+
+    FileFacts(long javaTypes, List<DeclaredClass> classes, List<String> configItems, List<String> buildSteps) {
+        this(javaTypes, classes, configItems, buildSteps, Map.of());
+    }
+
+    FileFacts(long javaTypes, List<DeclaredClass> classes, List<String> configItems, List<String> buildSteps,
+            Map<String, Long> counters) {
+        this(javaTypes, classes, configItems, buildSteps, counters, true, null);
+    }
+
+    private FileFacts(long javaTypes, List<DeclaredClass> classes, List<String> configItems, List<String> buildSteps,
+            Map<String, Long> counters, boolean parsed, FileFacts scannerFacts) {
+        this.javaTypes = javaTypes;
+        this.classes = List.copyOf(classes);
+        this.configItems = List.copyOf(configItems);
+        this.buildSteps = List.copyOf(buildSteps);
+        this.counters = Map.copyOf(counters);
+        this.parsed = parsed;
+        this.scannerFacts = scannerFacts;
+    }
+
+    /**
+     * @param scannerFacts the facts the lexical pre-filter would give
+     * @return a copy of these facts that also holds the facts of the lexical pre-filter
+     */
+    FileFacts withScannerFacts(FileFacts scannerFacts) {
+        return new FileFacts(javaTypes, classes, configItems, buildSteps, counters, parsed, scannerFacts);
+    }
+
+    long getJavaTypes() {
+        return javaTypes;
+    }
+
+    /**
+     * @return the classes that extend another class
+     * @see TypeIndex
+     */
+    List<DeclaredClass> getClasses() {
+        return classes;
+    }
+
+    List<String> getConfigItems() {
+        return configItems;
+    }
+
+    List<String> getBuildSteps() {
+        return buildSteps;
+    }
+
+    Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    boolean isParsed() {
+        return parsed;
+    }
+
+    /**
+     * @return the facts the lexical pre-filter would give, or {@code null} if the scanner was not verified
+     * @see SourceAnalyzer#verify(String, TagStats)
+     */
+    FileFacts getScannerFacts() {
+        return scannerFacts;
+    }
+
+}
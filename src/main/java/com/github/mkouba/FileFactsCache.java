@@ -0,0 +1,106 @@
+package com.github.mkouba;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Content-addressed cache of {@link FileFacts}, keyed by the git blob id.
+ * <p>
+ * Most of the files are byte-identical between two adjacent tags and so each unique file version only needs to be
+ * parsed once. The cache is shared by all the workers.
+ * <p>
+ * A bounded cache keeps two generations of entries. New entries go to the current generation, and an entry found in the
+ * previous generation is moved to the current one. Once the current generation is full, it becomes the previous one
+ * and the old previous generation is dropped. The blobs not used by recently analyzed commits are thus evicted first,
+ * and the cache never holds more than the max size.
+ */
+final class FileFactsCache {
+
+    private final int generationSize;
+    private volatile ConcurrentMap<ObjectId, FileFacts> current = new ConcurrentHashMap<>();
+    // Always empty if the cache is not bounded
+    private volatile ConcurrentMap<ObjectId, FileFacts> previous = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * An unbounded cache, e.g. for a single run.
+     */
+    FileFactsCache() {
+        this(0);
+    }
+
+    /**
+     * @param maxSize the max number of cached entries, or zero if the cache is not bounded
+     */
+    FileFactsCache(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Invalid cache size: " + maxSize);
+        }
+        this.generationSize = maxSize > 0 ? Math.max(1, maxSize / 2) : 0;
+    }
+
+    /**
+     * @param blobId
+     * @return the cached facts or {@code null} if the blob was not analyzed yet
+     */
+    FileFacts get(ObjectId blobId) {
+        FileFacts found = current.get(blobId);
+        if (found == null && generationSize > 0) {
+            found = previous.get(blobId);
+            if (found != null) {
+                previous.remove(blobId);
+                put(blobId, found);
+            }
+        }
+        if (found != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return found;
+    }
+
+    void put(ObjectId blobId, FileFacts fileFacts) {
+        // The parsing is expensive so we don't want to block other workers with computeIfAbsent(); if two workers parse
+        // the same blob at the same time the result is identical anyway
+        ConcurrentMap<ObjectId, FileFacts> generation = current;
+        generation.putIfAbsent(blobId, fileFacts);
+        if (generationSize > 0 && generation.size() >= generationSize) {
+            rotate(generation);
+        }
+    }
+
+    int size() {
+        return current.size() + previous.size();
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of entries dropped from a bounded cache
+     */
+    long getEvictions() {
+        return evictions.sum();
+    }
+
+    private synchronized void rotate(ConcurrentMap<ObjectId, FileFacts> full) {
+        // Another thread may have rotated the generations in the meantime
+        if (current == full) {
+            evictions.add(previous.size());
+            previous = full;
+            current = new ConcurrentHashMap<>();
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.github.mkouba;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe histogram of durations with fixed bucket bounds.
+ */
+final class Histogram {
+
+    // Upper bounds in nanoseconds; the last bucket is unbounded
+    private final long[] bounds;
+    private final AtomicLongArray counts;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param unit
+     * @param bounds the upper bounds of the buckets in the given unit, in ascending order
+     */
+    Histogram(TimeUnit unit, long... bounds) {
+        this.bounds = new long[bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            this.bounds[i] = unit.toNanos(bounds[i]);
+        }
+        this.counts = new AtomicLongArray(bounds.length + 1);
+    }
+
+    void record(long nanos) {
+        int bucket = 0;
+        while (bucket < bounds.length && nanos > bounds[bucket]) {
+            bucket++;
+        }
+        counts.incrementAndGet(bucket);
+        count.increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    long getSum() {
+        return sum.sum();
+    }
+
+    long getMax() {
+        return max.get();
+    }
+
+    int getBuckets() {
+        return counts.length();
+    }
+
+    /**
+     * @param bucket
+     * @return the upper bound of the bucket in nanoseconds, or {@link Long#MAX_VALUE} for the last bucket
+     */
+    long getBound(int bucket) {
+        return bucket < bounds.length ? bounds[bucket] : Long.MAX_VALUE;
+    }
+
+    long getCount(int bucket) {
+        return counts.get(bucket);
+    }
+
+}
@@ -0,0 +1,218 @@
+package com.github.mkouba;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.jboss.logging.Logger;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+@Command(name = "history", mixinStandardHelpOptions = true, description = "Analyze a sample of the commits of a branch to track the growth of the codebase between releases")
+public class History implements Runnable {
+
+    private static final Logger LOG = Logger.getLogger(History.class);
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ISO_LOCAL_DATE.withZone(ZoneOffset.UTC);
+
+    @Option(names = { "-o", "--organization" }, description = "GitHub organization")
+    String organization = "quarkusio";
+
+    @Option(names = { "-r", "--repository" }, description = "GitHub repository")
+    String repository = "quarkus";
+
+    @Option(names = { "--uri" }, description = "The URI of the repository to clone if the working dir does not contain a clone yet; by default the GitHub repository is cloned")
+    String uri;
+
+    @Option(names = { "-w", "--work-dir" }, description = "Working directory")
+    String workDirPath;
+
+    @Option(names = { "-t", "--threads" }, description = "The number of threads used to analyze the commits")
+    int threads = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = {
+            "--range" }, description = "The commits to analyze, either a revision, e.g. main, or a range, e.g. 2.0.0.Final..main; only the first parent of a merge commit is followed")
+    String range = "HEAD";
+
+    @Option(names = {
+            "--sample" }, description = "Analyze every N-th commit, or the last commit of each day or week: N, daily or weekly")
+    String sample = CommitSampling.WEEKLY;
+
+    @Option(names = {
+            "--no-store" }, description = "Do not reuse the stored results of previous runs and do not store the results")
+    boolean noStore = false;
+
+    @Option(names = {
+            "--timeout" }, description = "The timeout of the whole analysis in minutes; 0 means no timeout")
+    long timeout = 0;
+
+    @Option(names = {
+            "--tag-timeout" }, description = "The timeout of the analysis of a single commit in minutes; 0 means no timeout")
+    long tagTimeout = 30;
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        Path workDir = workDirPath != null ? new File(workDirPath).toPath() : Paths.get("work");
+        Path repoDir = workDir.resolve(repository).resolve("_0");
+        Path reportsDir = workDir.resolve("reports").resolve("history");
+        Workspace.cloneIfMissing(uri != null ? uri : "https://github.com/" + organization + "/" + repository + ".git",
+                repoDir);
+        CommitSampling sampling = CommitSampling.parse(sample);
+        SourceFilter sourceFilter = SourceFilter.defaults();
+        SourceAnalyzer sourceAnalyzer = new SourceAnalyzer();
+        FileFactsCache cache = new FileFactsCache();
+        ItemNames itemNames = new ItemNames();
+
+        try (Git git = Git.open(repoDir.toFile())) {
+            List<RevCommit> commits = sampling.select(walk(git.getRepository(), range), RevCommit::getCommitTime);
+            LOG.infof("%s commits sampled from %s (%s)", commits.size(), range, sampling);
+
+            List<Result> results = new CopyOnWriteArrayList<>();
+            int rulesVersion = 31 * sourceAnalyzer.getRulesVersion() + sourceFilter.getFingerprint();
+            ResultStore store = noStore ? null : new ResultStore(workDir.resolve("history.db"), rulesVersion,
+                    itemNames);
+            List<RevCommit> commitsToAnalyze = commits;
+            if (store != null) {
+                store.load();
+                commitsToAnalyze = new ArrayList<>();
+                for (RevCommit commit : commits) {
+                    Result stored = store.get(name(commit), commit.name());
+                    if (stored != null) {
+                        // The commit time is not stored
+                        stored.setCommitTime(commit.getCommitTime());
+                        results.add(stored);
+                    } else {
+                        commitsToAnalyze.add(commit);
+                    }
+                }
+                LOG.infof("Reusing %s stored results", results.size());
+            }
+
+            AnalysisPipeline pipeline = new AnalysisPipeline(commitsToAnalyze.size(), threads,
+                    TimeUnit.MINUTES.toMillis(tagTimeout));
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            ForkJoinPool sourcesPool = new ForkJoinPool(threads);
+            try {
+                for (List<RevCommit> chain : chains(commitsToAnalyze, threads)) {
+                    executor.execute(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            TagChainAnalyzer chainAnalyzer = new TagChainAnalyzer(git.getRepository(), sourcesPool,
+                                    sourceAnalyzer, cache, sourceFilter, itemNames);
+                            for (RevCommit commit : chain) {
+                                if (pipeline.isDone()) {
+                                    return;
+                                }
+                                String name = name(commit);
+                                CompletableFuture<Result> future = pipeline.dispatch(name, results);
+                                try {
+                                    long analyzeStart = System.nanoTime();
+                                    Result result = chainAnalyzer.analyze(name, commit, null);
+                                    LOG.infof("%s analyzed in %s ms; %s java source files changed", name,
+                                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - analyzeStart),
+                                            chainAnalyzer.getChanged());
+                                    future.complete(result);
+                                } catch (RuntimeException | IOException e) {
+                                    future.completeExceptionally(e);
+                                    return;
+                                }
+                            }
+                        }
+                    });
+                }
+                pipeline.await(TimeUnit.MINUTES.toMillis(timeout));
+            } finally {
+                executor.shutdownNow();
+                sourcesPool.shutdownNow();
+            }
+
+            List<Result> sorted = new ArrayList<>(results);
+            sorted.sort(Comparator.comparingLong(Result::getCommitTime));
+            if (store != null) {
+                store.putAll(sorted);
+                store.save();
+            }
+            Reports.write(reportsDir, sorted, rulesVersion);
+            LOG.infof("History of %s commits written to %s in %s s; %s files parsed, %s cache hits", sorted.size(),
+                    reportsDir.toAbsolutePath(), TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start),
+                    sourceAnalyzer.getParsed(), cache.getHits());
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to analyze the history of: " + range, e);
+        }
+    }
+
+    /**
+     * @param repository
+     * @param range a revision or a range in the form {@code from..to}
+     * @return the first-parent commits ordered from the oldest to the newest
+     * @throws IOException
+     */
+    static List<RevCommit> walk(Repository repository, String range) throws IOException {
+        int dots = range.indexOf("..");
+        String from = dots != -1 ? range.substring(0, dots) : null;
+        String to = dots != -1 ? range.substring(dots + 2) : range;
+        List<RevCommit> commits = new ArrayList<>();
+        try (RevWalk walk = new RevWalk(repository)) {
+            walk.setFirstParent(true);
+            walk.markStart(walk.parseCommit(resolve(repository, to.isEmpty() ? "HEAD" : to)));
+            if (from != null && !from.isEmpty()) {
+                walk.markUninteresting(walk.parseCommit(resolve(repository, from)));
+            }
+            for (RevCommit commit : walk) {
+                commits.add(commit);
+            }
+        }
+        Collections.reverse(commits);
+        return commits;
+    }
+
+    /**
+     * @return e.g. {@code 2023-05-01 4508769a}
+     */
+    static String name(RevCommit commit) {
+        return DATE.format(Instant.ofEpochSecond(commit.getCommitTime())) + " " + commit.abbreviate(8).name();
+    }
+
+    private static ObjectId resolve(Repository repository, String revision) throws IOException {
+        ObjectId id = repository.resolve(revision + "^{commit}");
+        if (id == null) {
+            throw new IllegalStateException("Unknown revision: " + revision);
+        }
+        return id;
+    }
+
+    /**
+     * Split the commits into at most {@code count} chains of consecutive commits.
+     */
+    private static <T> List<List<T>> chains(List<T> commits, int count) {
+        int chains = Math.max(1, Math.min(count, commits.size()));
+        List<List<T>> ret = new ArrayList<>(chains);
+        for (int i = 0; i < chains; i++) {
+            ret.add(commits.subList(i * commits.size() / chains, (i + 1) * commits.size() / chains));
+        }
+        return ret;
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.github.mkouba;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.github.mkouba.TagItems.Kind;
+
+/**
+ * The build items, config items and build steps added and removed between two consecutive versions.
+ */
+public final class ItemDiff {
+
+    private final String from;
+    private final String to;
+    private final Change buildItems;
+    private final Change configItems;
+    private final Change buildSteps;
+
+    private ItemDiff(String from, String to, Change buildItems, Change configItems, Change buildSteps) {
+        this.from = from;
+        this.to = to;
+        this.buildItems = buildItems;
+        this.configItems = configItems;
+        this.buildSteps = buildSteps;
+    }
+
+    /**
+     * The results without items, e.g. loaded from an old store, are skipped.
+     *
+     * @param results the sorted results
+     * @return the diffs of each two consecutive results that differ
+     */
+    static List<ItemDiff> between(List<Result> results) {
+        List<ItemDiff> diffs = new ArrayList<>();
+        Result previous = null;
+        for (Result result : results) {
+            if (result.getItems() == null) {
+                continue;
+            }
+            if (previous != null) {
+                ItemDiff diff = of(previous, result);
+                if (!diff.isEmpty()) {
+                    diffs.add(diff);
+                }
+            }
+            previous = result;
+        }
+        return diffs;
+    }
+
+    static ItemDiff of(Result from, Result to) {
+        TagItems fromItems = from.getItems();
+        // The ids can only be compared within the same names table
+        TagItems toItems = to.getItems().in(fromItems.getItemNames());
+        return new ItemDiff(from.getTagName(), to.getTagName(),
+                change(fromItems, toItems, Kind.BUILD_ITEM),
+                change(fromItems, toItems, Kind.CONFIG_ITEM),
+                change(fromItems, toItems, Kind.BUILD_STEP));
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public Change getBuildItems() {
+        return buildItems;
+    }
+
+    public Change getConfigItems() {
+        return configItems;
+    }
+
+    public Change getBuildSteps() {
+        return buildSteps;
+    }
+
+    public boolean isEmpty() {
+        return buildItems.isEmpty() && configItems.isEmpty() && buildSteps.isEmpty();
+    }
+
+    private static Change change(TagItems from, TagItems to, Kind kind) {
+        int[] oldIds = from.getIds(kind);
+        int[] newIds = to.getIds(kind);
+        if (Arrays.equals(oldIds, newIds)) {
+            return Change.NONE;
+        }
+        // Both arrays are sorted
+        int[] added = new int[newIds.length];
+        int[] removed = new int[oldIds.length];
+        int addedCount = 0;
+        int removedCount = 0;
+        int i = 0;
+        int j = 0;
+        while (i < oldIds.length || j < newIds.length) {
+            if (j == newIds.length || (i < oldIds.length && oldIds[i] < newIds[j])) {
+                removed[removedCount++] = oldIds[i++];
+            } else if (i == oldIds.length || newIds[j] < oldIds[i]) {
+                added[addedCount++] = newIds[j++];
+            } else {
+                i++;
+                j++;
+            }
+        }
+        return new Change(to.names(Arrays.copyOf(added, addedCount)),
+                from.names(Arrays.copyOf(removed, removedCount)));
+    }
+
+    public static final class Change {
+
+        static final Change NONE = new Change(List.of(), List.of());
+
+        private final List<String> added;
+        private final List<String> removed;
+
+        Change(List<String> added, List<String> removed) {
+            this.added = added;
+            this.removed = removed;
+        }
+
+        /**
+         * @return the names sorted alphabetically
+         */
+        public List<String> getAdded() {
+            return added;
+        }
+
+        /**
+         * @return the names sorted alphabetically
+         */
+        public List<String> getRemoved() {
+            return removed;
+        }
+
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty();
+        }
+
+    }
+
+}
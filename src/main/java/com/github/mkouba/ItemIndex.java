@@ -0,0 +1,316 @@
+package com.github.mkouba;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.mkouba.TagItems.Kind;
+
+/**
+ * An inverted index from an item, i.e. a build item, a config item or a build step, to the tags that contain the item.
+ * <p>
+ * The tags are identified by their ordinals in the sorted results. The tags of an item are a bitmap over the ordinals
+ * compressed as runs of consecutive ordinals; most items appear in one version and stay until they are removed, and so
+ * most bitmaps consist of a single run. The index is a single binary file that is memory-mapped when loaded:
+ *
+ * <pre>
+ * int magic, int formatVersion, int tagCount, tagCount * (short tagNameLength, byte[] tagName), int itemCount
+ * itemCount * (byte kind, int nameLength, byte[] name, int runCount, runCount * (int start, int end))
+ * </pre>
+ */
+final class ItemIndex {
+
+    private static final int MAGIC = 0x51434149;
+    private static final int FORMAT_VERSION = 1;
+
+    private final List<String> tags;
+    // Sorted by kind and name
+    private final List<Item> items;
+
+    private ItemIndex(List<String> tags, List<Item> items) {
+        this.tags = tags;
+        this.items = items;
+    }
+
+    /**
+     * The results without items, e.g. loaded from an old store, are skipped.
+     *
+     * @param results the sorted results
+     * @return the index
+     */
+    static ItemIndex build(List<Result> results) {
+        List<String> tags = new ArrayList<>();
+        // kind and item name id -> runs
+        Map<Long, Runs> runs = new HashMap<>();
+        // The table of the first result; the ids can only be compared within the same table
+        ItemNames names = null;
+        for (Result result : results) {
+            TagItems items = result.getItems();
+            if (items == null) {
+                continue;
+            }
+            if (names == null) {
+                names = items.getItemNames();
+            } else {
+                items = items.in(names);
+            }
+            int ordinal = tags.size();
+            tags.add(result.getTagName());
+            for (Kind kind : Kind.values()) {
+                for (int id : items.getIds(kind)) {
+                    runs.computeIfAbsent(((long) kind.ordinal() << 32) | id, k -> new Runs()).add(ordinal);
+                }
+            }
+        }
+        List<Item> items = new ArrayList<>(runs.size());
+        for (Map.Entry<Long, Runs> entry : runs.entrySet()) {
+            items.add(new Item(Kind.values()[(int) (entry.getKey() >>> 32)],
+                    names.name((int) entry.getKey().longValue()), entry.getValue().toArray()));
+        }
+        items.sort(Item.ORDER);
+        return new ItemIndex(List.copyOf(tags), items);
+    }
+
+    /**
+     * @param file
+     * @return the index
+     * @throws IOException
+     * @throws IllegalStateException if the file is not a valid index
+     */
+    static ItemIndex load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new IllegalStateException("Incompatible item index: " + file);
+            }
+            String[] tags = new String[buffer.getInt()];
+            for (int i = 0; i < tags.length; i++) {
+                tags[i] = readString(buffer, buffer.getShort());
+            }
+            Item[] items = new Item[buffer.getInt()];
+            Kind[] kinds = Kind.values();
+            for (int i = 0; i < items.length; i++) {
+                Kind kind = kinds[buffer.get()];
+                String name = readString(buffer, buffer.getInt());
+                int[] runs = new int[2 * buffer.getInt()];
+                for (int j = 0; j < runs.length; j++) {
+                    runs[j] = buffer.getInt();
+                }
+                items[i] = new Item(kind, name, runs);
+            }
+            return new ItemIndex(List.of(tags), Arrays.asList(items));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IllegalStateException("Corrupted item index: " + file, e);
+        }
+    }
+
+    /**
+     * Write the index to a temporary file which then atomically replaces the given file.
+     */
+    void save(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp);
+                DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out))) {
+            data.writeInt(MAGIC);
+            data.writeInt(FORMAT_VERSION);
+            data.writeInt(tags.size());
+            for (String tag : tags) {
+                byte[] tagName = tag.getBytes(StandardCharsets.UTF_8);
+                data.writeShort(tagName.length);
+                data.write(tagName);
+            }
+            data.writeInt(items.size());
+            for (Item item : items) {
+                data.writeByte(item.kind.ordinal());
+                byte[] name = item.name.getBytes(StandardCharsets.UTF_8);
+                data.writeInt(name.length);
+                data.write(name);
+                data.writeInt(item.runs.length / 2);
+                for (int value : item.runs) {
+                    data.writeInt(value);
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the sorted tags
+     */
+    List<String> getTags() {
+        return tags;
+    }
+
+    /**
+     * @return the items sorted by kind and name
+     */
+    List<Item> getItems() {
+        return items;
+    }
+
+    /**
+     * @param kind
+     * @param name
+     * @return the item, or {@code null} if no tag contains the item
+     */
+    Item get(Kind kind, String name) {
+        int index = Collections.binarySearch(items, new Item(kind, name, null), Item.ORDER);
+        return index >= 0 ? items.get(index) : null;
+    }
+
+    /**
+     * @param query the name of an item, or a part of the name
+     * @param kind the kind of the items, or {@code null} for all kinds
+     * @return the items named exactly as the query, or the items whose names contain the query if there is no such
+     *         item
+     */
+    List<Item> find(String query, Kind kind) {
+        List<Item> found = new ArrayList<>();
+        for (Kind k : Kind.values()) {
+            if (kind == null || kind == k) {
+                Item item = get(k, query);
+                if (item != null) {
+                    found.add(item);
+                }
+            }
+        }
+        if (found.isEmpty()) {
+            for (Item item : items) {
+                if ((kind == null || kind == item.kind) && item.name.contains(query)) {
+                    found.add(item);
+                }
+            }
+        }
+        return found;
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static final class Item {
+
+        static final Comparator<Item> ORDER = Comparator.comparing((Item item) -> item.kind)
+                .thenComparing(item -> item.name);
+
+        private final Kind kind;
+        private final String name;
+        // Sorted and disjoint runs of tag ordinals; start inclusive, end exclusive
+        private final int[] runs;
+
+        private Item(Kind kind, String name, int[] runs) {
+            this.kind = kind;
+            this.name = name;
+            this.runs = runs;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        /**
+         * @return the ordinal of the first tag that contains the item
+         */
+        int getFirst() {
+            return runs[0];
+        }
+
+        /**
+         * @return the ordinal of the last tag that contains the item
+         */
+        int getLast() {
+            return runs[runs.length - 1] - 1;
+        }
+
+        /**
+         * @param ordinal
+         * @return {@code true} if the tag with the given ordinal contains the item
+         */
+        boolean contains(int ordinal) {
+            // Binary search over the run starts
+            int low = 0;
+            int high = runs.length / 2 - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (ordinal < runs[2 * middle]) {
+                    high = middle - 1;
+                } else if (ordinal >= runs[2 * middle + 1]) {
+                    low = middle + 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return the number of tags that contain the item
+         */
+        int getCount() {
+            int count = 0;
+            for (int i = 0; i < runs.length; i += 2) {
+                count += runs[i + 1] - runs[i];
+            }
+            return count;
+        }
+
+        /**
+         * @return the runs of tag ordinals; each run is a pair of the first ordinal and the ordinal after the last one
+         */
+        List<int[]> getRuns() {
+            List<int[]> ret = new ArrayList<>(runs.length / 2);
+            for (int i = 0; i < runs.length; i += 2) {
+                ret.add(new int[] { runs[i], runs[i + 1] });
+            }
+            return ret;
+        }
+
+    }
+
+    private static final class Runs {
+
+        private int[] values = new int[2];
+        private int size;
+
+        void add(int ordinal) {
+            if (size > 0 && values[size - 1] == ordinal) {
+                values[size - 1]++;
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = ordinal;
+            values[size++] = ordinal + 1;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+    }
+
+}
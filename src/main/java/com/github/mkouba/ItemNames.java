@@ -0,0 +1,66 @@
+package com.github.mkouba;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interns the names of the build items, config items and build steps.
+ * <p>
+ * Most of the names are shared by hundreds of tags; each distinct name is stored once and the items of a tag are kept
+ * as arrays of int ids, see {@link TagItems}. A table is scoped to a run, or to a generation of the results of the
+ * {@link AnalysisService}, so that the names are released together with the results that refer to them. The ids are
+ * only valid within a table; the {@link ResultStore} writes the names.
+ */
+final class ItemNames {
+
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    // id -> name; guarded by this
+    private String[] names = new String[1024];
+    private int size;
+
+    /**
+     * @param name
+     * @return the id of the name
+     */
+    int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(name);
+            if (id == null) {
+                if (size == names.length) {
+                    names = Arrays.copyOf(names, size * 2);
+                }
+                names[size] = name;
+                id = size++;
+                // The name must be visible before the id is published
+                ids.put(name, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * @param id
+     * @return the name
+     * @throws IllegalArgumentException if no such name exists
+     */
+    synchronized String name(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("Unknown item name id: " + id);
+        }
+        return names[id];
+    }
+
+    /**
+     * @return the number of distinct names
+     */
+    synchronized int size() {
+        return size;
+    }
+
+}
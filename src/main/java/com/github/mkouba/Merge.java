@@ -0,0 +1,70 @@
+package com.github.mkouba;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.logging.Logger;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+@Command(name = "merge", mixinStandardHelpOptions = true, description = "Merge the partial results of shards and render the report")
+public class Merge implements Runnable {
+
+    private static final Logger LOG = Logger.getLogger(Merge.class);
+
+    @Parameters(arity = "1..*", description = "The partial results files")
+    List<File> files;
+
+    @Option(names = { "-w", "--work-dir" }, description = "Working directory")
+    String workDirPath;
+
+    @Override
+    public void run() {
+        Path workDir = workDirPath != null ? new File(workDirPath).toPath() : Paths.get("work");
+        Map<String, Result> merged = new HashMap<>();
+        Set<Integer> rulesVersions = new HashSet<>();
+        for (File file : files) {
+            if (!file.isFile()) {
+                throw new IllegalStateException("Partial results file not found: " + file);
+            }
+            ResultStore partial = new ResultStore(file.toPath());
+            rulesVersions.addAll(partial.loadAll());
+            for (Result result : partial.getResults()) {
+                Result existing = merged.put(result.getTagName(), result);
+                if (existing != null && !existing.getCommitId().equals(result.getCommitId())) {
+                    throw new IllegalStateException("Tag " + result.getTagName()
+                            + " was analyzed from different commits: " + existing.getCommitId() + " and "
+                            + result.getCommitId());
+                }
+            }
+            LOG.infof("Merged %s results from %s", partial.getResults().size(), file);
+        }
+        if (rulesVersions.size() > 1) {
+            throw new IllegalStateException("The partial results were analyzed with different rules");
+        }
+        int rulesVersion = rulesVersions.isEmpty() ? SourceAnalyzer.RULES_VERSION : rulesVersions.iterator().next();
+
+        List<Result> results = new ArrayList<>(merged.values());
+        Collections.sort(results);
+        try {
+            Path reportsDir = workDir.resolve("reports");
+            Reports.write(reportsDir, results, rulesVersion);
+            LOG.infof("Report with %s tags rendered to %s", results.size(), reportsDir.resolve(Reports.REPORT)
+                    .toAbsolutePath());
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to render the report", e);
+        }
+    }
+
+}
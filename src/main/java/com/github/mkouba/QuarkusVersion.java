@@ -1,10 +1,26 @@
 package com.github.mkouba;
 
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 class QuarkusVersion implements Comparable<QuarkusVersion> {
 
+    private static final Pattern PATTERN = Pattern.compile("\\d+\\.\\d+\\.\\d+(\\..*)?");
+
+    /**
+     * Orders the tag names by version; the names that are not versions follow in alphabetical order.
+     */
+    static final Comparator<String> TAG_NAMES = (tag1, tag2) -> {
+        boolean version1 = isVersion(tag1);
+        boolean version2 = isVersion(tag2);
+        if (version1 && version2) {
+            return new QuarkusVersion(tag1).compareTo(new QuarkusVersion(tag2));
+        }
+        return version1 ? -1 : version2 ? 1 : tag1.compareTo(tag2);
+    };
+
     private final int major;
     private final int minor;
     private final int bugfix;
@@ -21,6 +37,14 @@ class QuarkusVersion implements Comparable<QuarkusVersion> {
         this.classifier = parts.length < 4 ? "" : parts[3];
     }
 
+    /**
+     * @param value
+     * @return {@code true} if the value can be parsed as a version, e.g. {@code 2.1.1.Final}
+     */
+    static boolean isVersion(String value) {
+        return PATTERN.matcher(value).matches();
+    }
+
     @Override
     public int compareTo(QuarkusVersion o) {
         int ret = Integer.compare(major, o.major);
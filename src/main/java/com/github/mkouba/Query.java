@@ -0,0 +1,128 @@
+package com.github.mkouba;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.logging.Logger;
+
+import com.github.mkouba.ItemIndex.Item;
+import com.github.mkouba.TagItems.Kind;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+@Command(name = "query", mixinStandardHelpOptions = true, description = "Find the versions in which a build item, config item or build step appeared, disappeared and is present, using the item index of a previous run")
+public class Query implements Runnable {
+
+    private static final Logger LOG = Logger.getLogger(Query.class);
+
+    @Parameters(arity = "1..*", description = "The names of the items, e.g. io.quarkus.arc.deployment.AdditionalBeanBuildItem; if no item has the name then the items whose names contain it are listed")
+    List<String> names;
+
+    @Option(names = { "-w", "--work-dir" }, description = "Working directory")
+    String workDirPath;
+
+    @Option(names = {
+            "--repository" }, description = "The name of the repository analyzed in a multi-repository run, e.g. quarkus-freemarker")
+    String repository;
+
+    @Option(names = { "--file" }, description = "The item index; by default the items.idx in the reports directory")
+    File file;
+
+    @Option(names = { "--kind" }, description = "Only find the items of the given kind: build-item, config-item or build-step")
+    String kind;
+
+    @Option(names = { "--max" }, description = "The max number of items listed for a name")
+    int max = 20;
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        Path reportsDir = (workDirPath != null ? new File(workDirPath).toPath() : Paths.get("work")).resolve("reports");
+        if (repository != null) {
+            reportsDir = reportsDir.resolve(repository);
+        }
+        Path indexFile = file != null ? file.toPath() : reportsDir.resolve(Reports.ITEM_INDEX);
+        if (!indexFile.toFile().isFile()) {
+            throw new IllegalStateException("Item index not found: " + indexFile);
+        }
+        Kind selectedKind = kind != null ? parseKind(kind) : null;
+        ItemIndex index;
+        try {
+            index = ItemIndex.load(indexFile);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to load the item index: " + indexFile, e);
+        }
+        PrintStream out = System.out;
+        for (String name : names) {
+            List<Item> items = index.find(name, selectedKind);
+            if (items.isEmpty()) {
+                out.printf("%s: not found in any of the %s tags%n", name, index.getTags().size());
+                continue;
+            }
+            for (Item item : items.subList(0, Math.min(max, items.size()))) {
+                print(out, index.getTags(), item);
+            }
+            if (items.size() > max) {
+                out.printf("... and %s more items containing %s%n", items.size() - max, name);
+            }
+        }
+        LOG.infof("%s queries answered from the index of %s tags and %s items in %s ms", names.size(),
+                index.getTags().size(), index.getItems().size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    static void print(PrintStream out, List<String> tags, Item item) {
+        out.printf("%s %s%n", label(item.getKind()), item.getName());
+        out.printf("  appeared in: %s%n", tags.get(item.getFirst()));
+        if (item.getLast() == tags.size() - 1) {
+            out.printf("  present in the latest tag: %s%n", tags.get(item.getLast()));
+        } else {
+            out.printf("  last present in: %s%n", tags.get(item.getLast()));
+            out.printf("  disappeared in: %s%n", tags.get(item.getLast() + 1));
+        }
+        StringBuilder ranges = new StringBuilder();
+        for (int[] run : item.getRuns()) {
+            if (ranges.length() > 0) {
+                ranges.append(", ");
+            }
+            ranges.append(tags.get(run[0]));
+            if (run[1] - run[0] > 1) {
+                ranges.append("..").append(tags.get(run[1] - 1));
+            }
+        }
+        out.printf("  present in %s of %s tags: %s%n", item.getCount(), tags.size(), ranges);
+    }
+
+    static Kind parseKind(String value) {
+        switch (value) {
+            case "build-item":
+                return Kind.BUILD_ITEM;
+            case "config-item":
+                return Kind.CONFIG_ITEM;
+            case "build-step":
+                return Kind.BUILD_STEP;
+            default:
+                throw new IllegalArgumentException(
+                        "Invalid kind: " + value + "; expected build-item, config-item or build-step");
+        }
+    }
+
+    private static String label(Kind kind) {
+        switch (kind) {
+            case BUILD_ITEM:
+                return "build item";
+            case CONFIG_ITEM:
+                return "config item";
+            default:
+                return "build step";
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.github.mkouba;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.logging.Logger;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+@Command(name = "render", mixinStandardHelpOptions = true, description = "Render the report from the results file of a previous run")
+public class Render implements Runnable {
+
+    private static final Logger LOG = Logger.getLogger(Render.class);
+
+    @Parameters(arity = "0..1", description = "The results file; by default the results.db in the reports directory")
+    File file;
+
+    @Option(names = { "-w", "--work-dir" }, description = "Working directory")
+    String workDirPath;
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        Path reportsDir = (workDirPath != null ? new File(workDirPath).toPath() : Paths.get("work")).resolve("reports");
+        Path resultsFile = file != null ? file.toPath() : reportsDir.resolve(Reports.RESULTS);
+        if (!resultsFile.toFile().isFile()) {
+            throw new IllegalStateException("Results file not found: " + resultsFile);
+        }
+        ResultStore store = new ResultStore(resultsFile);
+        store.loadAll();
+        List<Result> results = new ArrayList<>(store.getResults());
+        Collections.sort(results);
+        try {
+            Path report = Reports.render(reportsDir, results);
+            LOG.infof("Report with %s tags rendered to %s in %s ms", results.size(), report.toAbsolutePath(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to render the report", e);
+        }
+    }
+
+}
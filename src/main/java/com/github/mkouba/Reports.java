@@ -0,0 +1,261 @@
+package com.github.mkouba;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Writes the report and the results files to the reports directory:
+ * <ul>
+ * <li>{@code report.html} - the report,</li>
+ * <li>{@code results.db} - the results in the compact binary format of the {@link ResultStore}; used by the
+ * {@code render} command,</li>
+ * <li>{@code results.csv} (RFC 4180) and {@code results.json} - the results for other tools; the counters of the
+ * custom facts are only included in the JSON,</li>
+ * <li>{@code diff.json} - the items added and removed between consecutive versions,</li>
+ * <li>{@code items.idx} - the {@link ItemIndex}; used by the {@code query} command.</li>
+ * </ul>
+ * A multi-repository run writes these files for each repository and a {@code combined.html} report.
+ */
+final class Reports {
+
+    static final String REPORT = "report.html";
+    static final String COMBINED_REPORT = "combined.html";
+    static final String RESULTS = "results.db";
+    static final String RESULTS_CSV = "results.csv";
+    static final String RESULTS_JSON = "results.json";
+    static final String DIFF_JSON = "diff.json";
+    static final String ITEM_INDEX = "items.idx";
+
+    private static final String[] COLUMNS = { "tag", "commitId", "javaSourceFiles", "mainSourceFiles",
+            "testSourceFiles", "javaTypes", "mainTypes", "testTypes", "buildItems", "buildSteps", "configItems" };
+
+    private Reports() {
+    }
+
+    /**
+     * Write the report and all the results files.
+     *
+     * @param reportsDir
+     * @param results the sorted results
+     * @param rulesVersion
+     * @throws IOException
+     */
+    static void write(Path reportsDir, List<Result> results, int rulesVersion) throws IOException {
+        render(reportsDir, results);
+        ResultStore store = new ResultStore(reportsDir.resolve(RESULTS), rulesVersion);
+        store.putAll(results);
+        store.save();
+        writeCsv(reportsDir.resolve(RESULTS_CSV), results);
+        writeJson(reportsDir.resolve(RESULTS_JSON), results);
+        writeDiffJson(reportsDir.resolve(DIFF_JSON), ItemDiff.between(results));
+        ItemIndex.build(results).save(reportsDir.resolve(ITEM_INDEX));
+    }
+
+    /**
+     * @param reportsDir
+     * @param results the sorted results
+     * @return the report file
+     * @throws IOException
+     */
+    static Path render(Path reportsDir, List<Result> results) throws IOException {
+        if (!Files.exists(reportsDir)) {
+            Files.createDirectories(reportsDir);
+        }
+        Path report = reportsDir.resolve(REPORT);
+        // Stream the output directly to the file instead of rendering the whole page into a string first
+        try (Writer out = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            render(results, out);
+        }
+        return report;
+    }
+
+    /**
+     * @param results the sorted results
+     * @param out
+     * @throws IOException
+     */
+    static void render(List<Result> results, Writer out) throws IOException {
+        try {
+            Templates.report(dataset(results), ItemDiff.between(results)).consume(chunk -> {
+                try {
+                    out.write(chunk);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).toCompletableFuture().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @param results
+     * @return the results as a JSON array that can be embedded in a script element of the report
+     */
+    static String dataset(List<Result> results) {
+        StringBuilder json = new StringBuilder(results.size() * 256);
+        try {
+            appendJson(json, results);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // A "<" can only occur in a JSON string; escape it so that e.g. a tag name with "</script>" cannot close the
+        // element
+        return json.toString().replace("<", "\\u003c");
+    }
+
+    /**
+     * Render the combined report of a multi-repository run; the reports of the repositories are expected in the
+     * subdirectories named after the repositories.
+     *
+     * @param reportsDir
+     * @param repositories
+     * @return the report file
+     * @throws IOException
+     */
+    static Path renderCombined(Path reportsDir, List<RepositoryResults> repositories) throws IOException {
+        if (!Files.exists(reportsDir)) {
+            Files.createDirectories(reportsDir);
+        }
+        Path report = reportsDir.resolve(COMBINED_REPORT);
+        Files.writeString(report, Templates.combined(repositories, RepositoryResults.total(repositories)).render());
+        return report;
+    }
+
+    static void writeCsv(Path file, List<Result> results) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.append(String.join(",", COLUMNS)).append('\n');
+            for (Result result : results) {
+                Object[] values = values(result);
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        out.append(',');
+                    }
+                    out.append(csv(String.valueOf(values[i])));
+                }
+                out.append('\n');
+            }
+        }
+    }
+
+    static void writeJson(Path file, List<Result> results) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            appendJson(out, results);
+        }
+    }
+
+    static void appendJson(Appendable out, List<Result> results) throws IOException {
+        out.append("[");
+        for (int i = 0; i < results.size(); i++) {
+            out.append(i > 0 ? ",\n  " : "\n  ");
+            appendJson(out, results.get(i));
+        }
+        out.append("\n]\n");
+    }
+
+    static void appendJson(Appendable out, Result result) throws IOException {
+        out.append("{");
+        Object[] values = values(result);
+        for (int j = 0; j < values.length; j++) {
+            if (j > 0) {
+                out.append(", ");
+            }
+            out.append('"').append(COLUMNS[j]).append("\": ");
+            if (values[j] instanceof String) {
+                out.append('"').append(escape((String) values[j])).append('"');
+            } else {
+                out.append(String.valueOf(values[j]));
+            }
+        }
+        if (!result.getCounters().isEmpty()) {
+            out.append(", \"counters\": {");
+            boolean first = true;
+            for (Map.Entry<String, Long> counter : result.getCounters().entrySet()) {
+                out.append(first ? "\"" : ", \"").append(escape(counter.getKey())).append("\": ")
+                        .append(String.valueOf(counter.getValue()));
+                first = false;
+            }
+            out.append("}");
+        }
+        out.append("}");
+    }
+
+    static void writeDiffJson(Path file, List<ItemDiff> diffs) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.append("[");
+            for (int i = 0; i < diffs.size(); i++) {
+                ItemDiff diff = diffs.get(i);
+                out.append(i > 0 ? ",\n  " : "\n  ");
+                out.append("{\"from\": \"").append(escape(diff.getFrom()))
+                        .append("\", \"to\": \"").append(escape(diff.getTo())).append('"');
+                appendChange(out, "buildItems", diff.getBuildItems());
+                appendChange(out, "configItems", diff.getConfigItems());
+                appendChange(out, "buildSteps", diff.getBuildSteps());
+                out.append("}");
+            }
+            out.append("\n]\n");
+        }
+    }
+
+    private static void appendChange(Appendable out, String name, ItemDiff.Change change) throws IOException {
+        out.append(", \"").append(name).append("\": {\"added\": ");
+        appendStrings(out, change.getAdded());
+        out.append(", \"removed\": ");
+        appendStrings(out, change.getRemoved());
+        out.append("}");
+    }
+
+    private static void appendStrings(Appendable out, List<String> values) throws IOException {
+        out.append("[");
+        for (int i = 0; i < values.size(); i++) {
+            out.append(i > 0 ? ", \"" : "\"").append(escape(values.get(i))).append('"');
+        }
+        out.append("]");
+    }
+
+    private static String csv(String value) {
+        // RFC 4180; a git ref name may contain a comma or a quote
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+
+    static String escape(String value) {
+        // Tag names and commit ids only need to be escaped if requested from the server, e.g. a ref with a quote; item
+        // names may contain a quote, e.g. a build step with an annotated parameter
+        StringBuilder builder = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                if (builder == null) {
+                    builder = new StringBuilder(value.length() + 8).append(value, 0, i);
+                }
+                builder.append(String.format("\\u%04x", (int) c));
+            } else if (builder != null) {
+                builder.append(c);
+            }
+        }
+        return builder != null ? builder.toString() : value;
+    }
+
+    private static Object[] values(Result result) {
+        return new Object[] { result.getTagName(), result.getCommitId(), result.getJavaSourceFiles(),
+                result.getMainSourceFiles(), result.getTestSourceFiles(), result.getJavaTypes(), result.getMainTypes(),
+                result.getTestTypes(), result.getBuildItems(), result.getBuildSteps(), result.getConfigItems() };
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.github.mkouba;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The sorted results of a repository; used by the combined report of a multi-repository run.
+ */
+public final class RepositoryResults {
+
+    private final String name;
+    private final List<Result> results;
+
+    RepositoryResults(String name, List<Result> results) {
+        this.name = name;
+        this.results = results;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getTags() {
+        return results.size();
+    }
+
+    /**
+     * @return the result of the latest version, or {@code null} if no tag was analyzed
+     */
+    public Result getLatest() {
+        return results.isEmpty() ? null : results.get(results.size() - 1);
+    }
+
+    /**
+     * @param repositories
+     * @return the sum of the latest results of all repositories
+     */
+    static Result total(List<RepositoryResults> repositories) {
+        Result total = new Result();
+        total.setTagName("Total");
+        Map<String, Long> counters = new TreeMap<>();
+        for (RepositoryResults repository : repositories) {
+            Result latest = repository.getLatest();
+            if (latest == null) {
+                continue;
+            }
+            total.setJavaSourceFiles(total.getJavaSourceFiles() + latest.getJavaSourceFiles());
+            total.setTestSourceFiles(total.getTestSourceFiles() + latest.getTestSourceFiles());
+            total.setJavaTypes(total.getJavaTypes() + latest.getJavaTypes());
+            total.setTestTypes(total.getTestTypes() + latest.getTestTypes());
+            total.setBuildItems(total.getBuildItems() + latest.getBuildItems());
+            total.setBuildSteps(total.getBuildSteps() + latest.getBuildSteps());
+            total.setConfigItems(total.getConfigItems() + latest.getConfigItems());
+            latest.getCounters().forEach((name, value) -> counters.merge(name, value, Long::sum));
+        }
+        total.setCounters(counters);
+        return total;
+    }
+
+}
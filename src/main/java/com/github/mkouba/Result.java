@@ -1,12 +1,17 @@
 package com.github.mkouba;
 
+import java.util.Map;
+
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 
 public class Result implements Comparable<Result> {
 
     private QuarkusVersion version;
-    private Ref tag;
+    private String tagName;
+    private String commitId;
+    // Seconds since the epoch; only set if the result was analyzed from the git object database
+    private long commitTime;
     private long javaSourceFiles;
     private long javaTypes;
     private long testSourceFiles;
@@ -14,19 +19,40 @@ public class Result implements Comparable<Result> {
     private long buildItems;
     private long buildSteps;
     private long configItems;
-
-    public Ref getTag() {
-        return tag;
-    }
+    // May be null, e.g. if loaded from an old store
+    private TagItems items;
+    // Sorted by name
+    private Map<String, Long> counters = Map.of();
 
     public void setTag(Ref tag) {
-        this.tag = tag;
-        this.version = new QuarkusVersion(getTagName());
+        // refs/tags/2.1.1.Final -> 2.1.1.Final
+        setTagName(Repository.shortenRefName(tag.getName()));
     }
 
     public String getTagName() {
-        // refs/tags/2.1.1.Final -> 2.1.1.Final
-        return Repository.shortenRefName(tag.getName());
+        return tagName;
+    }
+
+    public void setTagName(String tagName) {
+        this.tagName = tagName;
+        // Branches and commit ids analyzed by the server are not versions
+        this.version = QuarkusVersion.isVersion(tagName) ? new QuarkusVersion(tagName) : null;
+    }
+
+    public String getCommitId() {
+        return commitId;
+    }
+
+    public void setCommitId(String commitId) {
+        this.commitId = commitId;
+    }
+
+    public long getCommitTime() {
+        return commitTime;
+    }
+
+    public void setCommitTime(long commitTime) {
+        this.commitTime = commitTime;
     }
 
     public long getMainSourceFiles() {
@@ -97,6 +123,26 @@ public class Result implements Comparable<Result> {
         this.configItems = configItems;
     }
 
+    /**
+     * @return the named counters of the custom facts reported by the extractors, sorted by name
+     * @see FactExtractor
+     */
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    public void setCounters(Map<String, Long> counters) {
+        this.counters = counters;
+    }
+
+    TagItems getItems() {
+        return items;
+    }
+
+    void setItems(TagItems items) {
+        this.items = items;
+    }
+
     @Override
     public String toString() {
         return "Result [tag=" + getTagName() + "]";
@@ -104,6 +150,10 @@ public class Result implements Comparable<Result> {
 
     @Override
     public int compareTo(Result o) {
+        if (version == null || o.version == null) {
+            // Versions first
+            return version != null ? -1 : o.version != null ? 1 : tagName.compareTo(o.tagName);
+        }
         return version.compareTo(o.version);
     }
 
@@ -0,0 +1,288 @@
+package com.github.mkouba;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.jboss.logging.Logger;
+
+import com.github.mkouba.TagItems.Kind;
+
+/**
+ * Persistent store of the analysis results.
+ * <p>
+ * A stored result is only valid if it was computed from the same commit and with the same version of the analyzer
+ * rules, by default {@link SourceAnalyzer#RULES_VERSION}. The store is a single binary file that is memory-mapped when
+ * loaded. The item names of all results are written once and each result refers to them by index:
+ *
+ * <pre>
+ * int magic, int formatVersion, int nameCount, nameCount * (int nameLength, byte[] name), int count
+ * count * (short tagNameLength, byte[] tagName, byte[20] commitId, int rulesVersion, 7 * long values, byte hasItems,
+ *          [3 * (int itemCount, itemCount * int nameIndex)], int counterCount,
+ *          counterCount * (short counterNameLength, byte[] counterName, long value))
+ * </pre>
+ */
+class ResultStore {
+
+    private static final Logger LOG = Logger.getLogger(ResultStore.class);
+
+    private static final int MAGIC = 0x51434152;
+    private static final int FORMAT_VERSION = 3;
+
+    private final Path file;
+    private final int rulesVersion;
+    // The table of the names of the loaded items
+    private final ItemNames itemNames;
+    // tag name -> result
+    private final Map<String, Result> results = new HashMap<>();
+
+    ResultStore(Path file) {
+        this(file, SourceAnalyzer.RULES_VERSION);
+    }
+
+    /**
+     * @param file
+     * @param rulesVersion the results analyzed with different rules are discarded
+     */
+    ResultStore(Path file, int rulesVersion) {
+        this(file, rulesVersion, new ItemNames());
+    }
+
+    /**
+     * @param file
+     * @param rulesVersion the results analyzed with different rules are discarded
+     * @param itemNames the table used to intern the names of the loaded items, e.g. the table of the current run
+     */
+    ResultStore(Path file, int rulesVersion, ItemNames itemNames) {
+        this.file = file;
+        this.rulesVersion = rulesVersion;
+        this.itemNames = itemNames;
+    }
+
+    /**
+     * Load the stored results. Results computed with a different version of the analyzer rules are discarded. A corrupted
+     * or incompatible store is ignored.
+     */
+    void load() {
+        load(false);
+    }
+
+    /**
+     * Load all the stored results regardless of the version of the analyzer rules, e.g. the partial results of a shard.
+     *
+     * @return the versions of the analyzer rules found in the store
+     */
+    Set<Integer> loadAll() {
+        return load(true);
+    }
+
+    Collection<Result> getResults() {
+        return results.values();
+    }
+
+    private Set<Integer> load(boolean allRules) {
+        Set<Integer> rulesVersions = new HashSet<>();
+        if (!Files.exists(file)) {
+            return rulesVersions;
+        }
+        long start = System.nanoTime();
+        int discarded = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                LOG.warnf("Ignoring incompatible results store: %s", file);
+                return rulesVersions;
+            }
+            // name index -> interned id
+            int[] nameIds = new int[buffer.getInt()];
+            for (int i = 0; i < nameIds.length; i++) {
+                byte[] name = new byte[buffer.getInt()];
+                buffer.get(name);
+                nameIds[i] = itemNames.intern(new String(name, StandardCharsets.UTF_8));
+            }
+            int count = buffer.getInt();
+            byte[] commitId = new byte[Constants.OBJECT_ID_LENGTH];
+            for (int i = 0; i < count; i++) {
+                byte[] tagName = new byte[buffer.getShort()];
+                buffer.get(tagName);
+                buffer.get(commitId);
+                int storedRulesVersion = buffer.getInt();
+                Result result = new Result();
+                result.setTagName(new String(tagName, StandardCharsets.UTF_8));
+                result.setCommitId(ObjectId.fromRaw(commitId).name());
+                readValues(buffer, result);
+                if (buffer.get() != 0) {
+                    result.setItems(new TagItems(itemNames, readItems(buffer, nameIds), readItems(buffer, nameIds),
+                            readItems(buffer, nameIds)));
+                }
+                result.setCounters(readCounters(buffer));
+                if (allRules || storedRulesVersion == rulesVersion) {
+                    results.put(result.getTagName(), result);
+                    rulesVersions.add(storedRulesVersion);
+                } else {
+                    discarded++;
+                }
+            }
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            LOG.warnf(e, "Ignoring corrupted results store: %s", file);
+            results.clear();
+            rulesVersions.clear();
+            return rulesVersions;
+        }
+        LOG.infof("Loaded %s stored results (%s discarded) in %s ms", results.size(), discarded,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return rulesVersions;
+    }
+
+    /**
+     * @param tagName
+     * @param commitId
+     * @return the stored result if it was computed for the given commit, {@code null} otherwise
+     */
+    Result get(String tagName, String commitId) {
+        Result result = results.get(tagName);
+        return result != null && result.getCommitId().equals(commitId) ? result : null;
+    }
+
+    void putAll(Collection<Result> newResults) {
+        for (Result result : newResults) {
+            results.put(result.getTagName(), result);
+        }
+    }
+
+    /**
+     * Write all results to a temporary file which then atomically replaces the store.
+     */
+    void save() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp);
+                DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out))) {
+            data.writeInt(MAGIC);
+            data.writeInt(FORMAT_VERSION);
+            // The ids can only be compared within the same table; the table of the first result is used for all
+            Map<Result, TagItems> items = new HashMap<>();
+            ItemNames names = null;
+            // interned id -> name index
+            Map<Integer, Integer> nameIndexes = new HashMap<>();
+            for (Result result : results.values()) {
+                if (result.getItems() != null) {
+                    if (names == null) {
+                        names = result.getItems().getItemNames();
+                    }
+                    TagItems resultItems = result.getItems().in(names);
+                    items.put(result, resultItems);
+                    for (Kind kind : Kind.values()) {
+                        for (int id : resultItems.getIds(kind)) {
+                            nameIndexes.putIfAbsent(id, nameIndexes.size());
+                        }
+                    }
+                }
+            }
+            int[] ids = new int[nameIndexes.size()];
+            nameIndexes.forEach((id, index) -> ids[index] = id);
+            data.writeInt(ids.length);
+            for (int id : ids) {
+                byte[] name = names.name(id).getBytes(StandardCharsets.UTF_8);
+                data.writeInt(name.length);
+                data.write(name);
+            }
+            data.writeInt(results.size());
+            byte[] commitId = new byte[Constants.OBJECT_ID_LENGTH];
+            for (Result result : results.values()) {
+                byte[] tagName = result.getTagName().getBytes(StandardCharsets.UTF_8);
+                data.writeShort(tagName.length);
+                data.write(tagName);
+                ObjectId.fromString(result.getCommitId()).copyRawTo(commitId, 0);
+                data.write(commitId);
+                data.writeInt(rulesVersion);
+                writeValues(data, result);
+                TagItems resultItems = items.get(result);
+                data.writeByte(resultItems != null ? 1 : 0);
+                if (resultItems != null) {
+                    for (Kind kind : Kind.values()) {
+                        int[] itemIds = resultItems.getIds(kind);
+                        data.writeInt(itemIds.length);
+                        for (int id : itemIds) {
+                            data.writeInt(nameIndexes.get(id));
+                        }
+                    }
+                }
+                writeCounters(data, result);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void readValues(ByteBuffer buffer, Result result) {
+        result.setJavaSourceFiles(buffer.getLong());
+        result.setJavaTypes(buffer.getLong());
+        result.setTestSourceFiles(buffer.getLong());
+        result.setTestTypes(buffer.getLong());
+        result.setBuildItems(buffer.getLong());
+        result.setBuildSteps(buffer.getLong());
+        result.setConfigItems(buffer.getLong());
+    }
+
+    private static Map<String, Long> readCounters(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count == 0) {
+            return Map.of();
+        }
+        Map<String, Long> counters = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            byte[] name = new byte[buffer.getShort()];
+            buffer.get(name);
+            counters.put(new String(name, StandardCharsets.UTF_8), buffer.getLong());
+        }
+        return counters;
+    }
+
+    private static void writeCounters(DataOutputStream data, Result result) throws IOException {
+        data.writeInt(result.getCounters().size());
+        for (Map.Entry<String, Long> counter : result.getCounters().entrySet()) {
+            byte[] name = counter.getKey().getBytes(StandardCharsets.UTF_8);
+            data.writeShort(name.length);
+            data.write(name);
+            data.writeLong(counter.getValue());
+        }
+    }
+
+    private static int[] readItems(ByteBuffer buffer, int[] nameIds) {
+        int[] ids = new int[buffer.getInt()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = nameIds[buffer.getInt()];
+        }
+        // The interned ids may be ordered differently than in the process that wrote the store
+        return TagItems.distinct(ids);
+    }
+
+    private static void writeValues(DataOutputStream data, Result result) throws IOException {
+        data.writeLong(result.getJavaSourceFiles());
+        data.writeLong(result.getJavaTypes());
+        data.writeLong(result.getTestSourceFiles());
+        data.writeLong(result.getTestTypes());
+        data.writeLong(result.getBuildItems());
+        data.writeLong(result.getBuildSteps());
+        data.writeLong(result.getConfigItems());
+    }
+
+}
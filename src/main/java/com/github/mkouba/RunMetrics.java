@@ -0,0 +1,261 @@
+package com.github.mkouba;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Collects the per-stage timing metrics of an analysis run and writes them as a JSON file.
+ */
+final class RunMetrics {
+
+    static final int SLOWEST_FILES = 20;
+
+    private final long start = System.nanoTime();
+    private final int poolParallelism;
+    // May be null
+    private final ConcurrencyController controller;
+    private final List<TagMetrics> tags = new CopyOnWriteArrayList<>();
+    private final Map<String, Worker> workers = new ConcurrentHashMap<>();
+    private final Histogram fileTimes = new Histogram(TimeUnit.MICROSECONDS, 50, 100, 250, 500, 1_000, 2_500, 5_000,
+            10_000, 25_000, 50_000, 100_000, 250_000, 500_000, 1_000_000);
+    private final Histogram tagTimes = new Histogram(TimeUnit.MILLISECONDS, 100, 250, 500, 1_000, 2_500, 5_000, 10_000,
+            30_000, 60_000, 120_000, 300_000, 600_000, 1_800_000);
+
+    // A min-heap of the slowest files; guarded by this
+    private final PriorityQueue<SlowFile> slowestFiles = new PriorityQueue<>(
+            Comparator.comparingLong(SlowFile::getNanos));
+    // The fastest of the slowest files once the heap is full; used to avoid locking for most files
+    private volatile long slowestFilesThreshold;
+
+    /**
+     * @param poolParallelism the parallelism of the sources pool
+     * @param controller the controller of the concurrent parses, may be {@code null}
+     */
+    RunMetrics(int poolParallelism, ConcurrencyController controller) {
+        this.poolParallelism = poolParallelism;
+        this.controller = controller;
+    }
+
+    TagMetrics tag(String tagName) {
+        TagMetrics metrics = new TagMetrics(tagName, this);
+        tags.add(metrics);
+        return metrics;
+    }
+
+    /**
+     * @param worker
+     * @param nanos the time a tag worker was blocked waiting for the sources pool
+     */
+    void addWorkerIdle(String worker, long nanos) {
+        workers.computeIfAbsent(worker, Worker::new).idle.add(nanos);
+    }
+
+    /**
+     * @param worker
+     * @param nanos the total time of a tag worker
+     */
+    void workerFinished(String worker, long nanos) {
+        workers.computeIfAbsent(worker, Worker::new).total = nanos;
+    }
+
+    void recordTag(long nanos) {
+        tagTimes.record(nanos);
+    }
+
+    void recordFile(String tagName, String path, long nanos) {
+        fileTimes.record(nanos);
+        if (nanos <= slowestFilesThreshold) {
+            return;
+        }
+        synchronized (this) {
+            slowestFiles.add(new SlowFile(tagName, path, nanos));
+            if (slowestFiles.size() > SLOWEST_FILES) {
+                slowestFiles.poll();
+                slowestFilesThreshold = slowestFiles.peek().getNanos();
+            }
+        }
+    }
+
+    void write(Path file) throws IOException {
+        long total = System.nanoTime() - start;
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.append("{\n");
+            out.append("  \"totalMs\": ").append(millis(total)).append(",\n");
+            out.append("  \"tags\": ").append(String.valueOf(tags.size())).append(",\n");
+
+            out.append("  \"aggregate\": {\n");
+            appendStages(out, "    ", tags);
+            out.append("  },\n");
+
+            long busy = sum(tags, TagMetrics::getRead) + sum(tags, TagMetrics::getScan)
+                    + sum(tags, TagMetrics::getParse) + sum(tags, TagMetrics::getExtract);
+            out.append("  \"sourcesPool\": {\n");
+            out.append("    \"parallelism\": ").append(String.valueOf(poolParallelism)).append(",\n");
+            out.append("    \"busyMs\": ").append(millis(busy)).append(",\n");
+            out.append("    \"idleMs\": ").append(millis(Math.max(0, poolParallelism * total - busy))).append("\n");
+            out.append("  },\n");
+
+            if (controller != null) {
+                out.append("  \"concurrency\": {\n");
+                out.append("    \"heapBudgetMb\": ").append(String.valueOf(controller.getBudget() / (1024 * 1024)))
+                        .append(",\n");
+                out.append("    \"maxParseLimit\": ").append(String.valueOf(controller.getMaxLimit())).append(",\n");
+                out.append("    \"minParseLimit\": ").append(String.valueOf(controller.getMinLimitReached()))
+                        .append(",\n");
+                out.append("    \"finalParseLimit\": ").append(String.valueOf(controller.getLimit())).append(",\n");
+                out.append("    \"adjustments\": ").append(String.valueOf(controller.getAdjustments())).append(",\n");
+                out.append("    \"discoveryThrottledMs\": ").append(millis(controller.getThrottled())).append("\n");
+                out.append("  },\n");
+            }
+
+            out.append("  \"workers\": [");
+            List<Worker> sortedWorkers = new ArrayList<>(workers.values());
+            sortedWorkers.sort(Comparator.comparing(w -> w.name));
+            for (int i = 0; i < sortedWorkers.size(); i++) {
+                Worker worker = sortedWorkers.get(i);
+                out.append(i > 0 ? ",\n" : "\n");
+                out.append("    { \"name\": ").append(string(worker.name))
+                        .append(", \"totalMs\": ").append(millis(worker.total))
+                        .append(", \"idleMs\": ").append(millis(worker.idle.sum())).append(" }");
+            }
+            out.append("\n  ],\n");
+
+            out.append("  \"histograms\": {\n");
+            appendHistogram(out, "fileAnalysis", fileTimes);
+            out.append(",\n");
+            appendHistogram(out, "tag", tagTimes);
+            out.append("\n  },\n");
+
+            out.append("  \"slowestFiles\": [");
+            List<SlowFile> sortedFiles;
+            synchronized (this) {
+                sortedFiles = new ArrayList<>(slowestFiles);
+            }
+            sortedFiles.sort(Comparator.comparingLong(SlowFile::getNanos).reversed());
+            for (int i = 0; i < sortedFiles.size(); i++) {
+                SlowFile slowFile = sortedFiles.get(i);
+                out.append(i > 0 ? ",\n" : "\n");
+                out.append("    { \"tag\": ").append(string(slowFile.tagName))
+                        .append(", \"path\": ").append(string(slowFile.path))
+                        .append(", \"ms\": ").append(millis(slowFile.nanos)).append(" }");
+            }
+            out.append("\n  ],\n");
+
+            out.append("  \"perTag\": [");
+            for (int i = 0; i < tags.size(); i++) {
+                TagMetrics tag = tags.get(i);
+                out.append(i > 0 ? ",\n" : "\n");
+                out.append("    {\n");
+                out.append("      \"tag\": ").append(string(tag.getTagName())).append(",\n");
+                out.append("      \"totalMs\": ").append(millis(tag.getTotal())).append(",\n");
+                appendStages(out, "      ", List.of(tag));
+                out.append("    }");
+            }
+            out.append("\n  ]\n");
+            out.append("}\n");
+        }
+    }
+
+    private static long sum(List<TagMetrics> tags, ToLongFunction<TagMetrics> fun) {
+        return tags.stream().mapToLong(fun).sum();
+    }
+
+    private static void appendStages(Writer out, String indent, List<TagMetrics> tags) throws IOException {
+        out.append(indent).append("\"resolveMs\": ").append(millis(sum(tags, TagMetrics::getResolve))).append(",\n");
+        out.append(indent).append("\"discoveryMs\": ").append(millis(sum(tags, TagMetrics::getDiscovery))).append(",\n");
+        out.append(indent).append("\"readMs\": ").append(millis(sum(tags, TagMetrics::getRead))).append(",\n");
+        out.append(indent).append("\"scanMs\": ").append(millis(sum(tags, TagMetrics::getScan))).append(",\n");
+        out.append(indent).append("\"parseMs\": ").append(millis(sum(tags, TagMetrics::getParse))).append(",\n");
+        out.append(indent).append("\"extractMs\": ").append(millis(sum(tags, TagMetrics::getExtract))).append(",\n");
+        out.append(indent).append("\"files\": ").append(String.valueOf(sum(tags, TagMetrics::getFoundFiles)))
+                .append(",\n");
+        out.append(indent).append("\"javaSources\": ").append(String.valueOf(sum(tags, TagMetrics::getJavaSources)))
+                .append(",\n");
+        out.append(indent).append("\"cacheHits\": ").append(String.valueOf(sum(tags, TagMetrics::getCacheHits)))
+                .append(",\n");
+        out.append(indent).append("\"bytesRead\": ").append(String.valueOf(sum(tags, TagMetrics::getBytes)))
+                .append(",\n");
+        out.append(indent).append("\"parseFailures\": ")
+                .append(String.valueOf(sum(tags, TagMetrics::getParseFailures))).append("\n");
+    }
+
+    private static void appendHistogram(Writer out, String name, Histogram histogram) throws IOException {
+        out.append("    ").append(string(name)).append(": {\n");
+        out.append("      \"count\": ").append(String.valueOf(histogram.getCount())).append(",\n");
+        out.append("      \"sumMs\": ").append(millis(histogram.getSum())).append(",\n");
+        out.append("      \"maxMs\": ").append(millis(histogram.getMax())).append(",\n");
+        out.append("      \"buckets\": [");
+        for (int i = 0; i < histogram.getBuckets(); i++) {
+            long bound = histogram.getBound(i);
+            out.append(i > 0 ? ", " : "")
+                    .append("{ \"upToMs\": ").append(bound == Long.MAX_VALUE ? "\"+Inf\"" : millis(bound))
+                    .append(", \"count\": ").append(String.valueOf(histogram.getCount(i))).append(" }");
+        }
+        out.append("]\n");
+        out.append("    }");
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    private static String string(String value) {
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    private static final class Worker {
+
+        private final String name;
+        private final LongAdder idle = new LongAdder();
+        private volatile long total;
+
+        Worker(String name) {
+            this.name = name;
+        }
+
+    }
+
+    private static final class SlowFile {
+
+        private final String tagName;
+        private final String path;
+        private final long nanos;
+
+        SlowFile(String tagName, String path, long nanos) {
+            this.tagName = tagName;
+            this.path = path;
+            this.nanos = nanos;
+        }
+
+        long getNanos() {
+            return nanos;
+        }
+
+    }
+
+}
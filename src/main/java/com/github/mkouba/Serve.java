@@ -0,0 +1,256 @@
+package com.github.mkouba;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.jboss.logging.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.quarkus.runtime.Quarkus;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+@Command(name = "serve", mixinStandardHelpOptions = true, description = "Start an HTTP server that analyzes tags, commits or other refs on demand")
+public class Serve implements Runnable {
+
+    private static final Logger LOG = Logger.getLogger(Serve.class);
+
+    @Option(names = { "-o", "--organization" }, description = "GitHub organization")
+    String organization = "quarkusio";
+
+    @Option(names = { "-r", "--repository" }, description = "GitHub repository")
+    String repository = "quarkus";
+
+    @Option(names = { "--uri" }, description = "The URI of the repository to clone if the working dir does not contain a clone yet, e.g. file:///path/to/quarkus; by default the GitHub repository is cloned")
+    String uri;
+
+    @Option(names = { "-w", "--work-dir" }, description = "Working directory")
+    String workDirPath;
+
+    @Option(names = { "-t", "--threads" }, description = "The number of commits analyzed at the same time and the number of threads used to analyze the java sources of a commit")
+    int threads = Runtime.getRuntime().availableProcessors();
+
+    @Option(names = { "--host" }, description = "The host to bind to")
+    String host = "localhost";
+
+    @Option(names = { "--port" }, description = "The port to listen on")
+    int port = 8080;
+
+    @Option(names = {
+            "--tag-timeout" }, description = "The time a request waits for the analysis of a single ref in minutes; 0 means no timeout")
+    long tagTimeout = 30;
+
+    @Option(names = {
+            "--git-cache" }, description = "The size of the JGit cache of the pack files in MB")
+    int gitCache = 256;
+
+    @Option(names = {
+            "--cache-size" }, description = "The max number of java source files whose facts are kept between the requests; 0 means no limit")
+    int cacheSize = AnalysisService.DEFAULT_CACHE_SIZE;
+
+    @Option(names = {
+            "--max-results" }, description = "The max number of analyzed commits whose results are kept between the requests")
+    int maxResults = AnalysisService.DEFAULT_MAX_RESULTS;
+
+    @Option(names = {
+            "--include" }, split = ",", description = "Comma-separated globs of the java sources; default: **/*.java")
+    List<String> includes;
+
+    @Option(names = {
+            "--exclude" }, split = ",", description = "Comma-separated globs of the excluded files; a glob ending with /** excludes a whole directory")
+    List<String> excludes;
+
+    @Option(names = {
+            "--test-sources" }, split = ",", description = "Comma-separated globs of the test sources; default: **/*test/java/**,**/*integration-tests*/**")
+    List<String> testSources;
+
+    @Override
+    public void run() {
+        Path workDir = workDirPath != null ? new File(workDirPath).toPath() : Paths.get("work");
+        Path repoDir = workDir.resolve(repository).resolve("_0");
+        Workspace.cloneIfMissing(uri != null ? uri : "https://github.com/" + organization + "/" + repository + ".git",
+                repoDir);
+
+        // The default limit of 10 MB is not enough to keep the packs of a large repository in memory between requests
+        WindowCacheConfig cacheConfig = new WindowCacheConfig();
+        cacheConfig.setPackedGitLimit(gitCache * WindowCacheConfig.MB);
+        cacheConfig.install();
+
+        // The same source filter as the analyze command so that the server reports the same numbers
+        SourceFilter sourceFilter = new SourceFilter(includes != null ? includes : SourceFilter.DEFAULT_INCLUDES,
+                excludes != null ? excludes : SourceFilter.DEFAULT_EXCLUDES,
+                testSources != null ? testSources : SourceFilter.DEFAULT_TESTS);
+
+        ExecutorService requests = Executors.newCachedThreadPool();
+        HttpServer server = null;
+        try (Git git = Git.open(repoDir.toFile());
+                AnalysisService service = new AnalysisService(git.getRepository(), new SourceAnalyzer(),
+                        sourceFilter, threads, cacheSize, maxResults, AnalysisService.DEFAULT_MAX_ITEM_NAMES)) {
+            server = HttpServer.create(new InetSocketAddress(host, port), 0);
+            server.createContext("/results", exchange -> handle(exchange, () -> results(service, exchange)));
+            server.createContext("/report", exchange -> handle(exchange, () -> report(service, exchange)));
+            // The request threads only wait for the analyses
+            server.setExecutor(requests);
+            server.start();
+            LOG.infof("Serving %s on http://%s:%s", repoDir.toAbsolutePath(), host, server.getAddress().getPort());
+            Quarkus.waitForExit();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to start the server", e);
+        } finally {
+            if (server != null) {
+                server.stop(0);
+            }
+            requests.shutdownNow();
+        }
+    }
+
+    /**
+     * {@code GET /results/{ref}} - the result of a single ref, {@code GET /results?refs=a,b} - the results of the given
+     * refs, or all tags if no refs are specified
+     */
+    private void results(AnalysisService service, HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String ref = path.length() > "/results/".length() ? path.substring("/results/".length()) : null;
+        if (ref != null) {
+            List<Result> results = await(service, List.of(ref), exchange);
+            if (results != null) {
+                StringBuilder json = new StringBuilder();
+                Reports.appendJson(json, results.get(0));
+                send(exchange, 200, "application/json", json.append('\n').toString());
+            }
+        } else {
+            List<Result> results = await(service, refs(service, exchange), exchange);
+            if (results != null) {
+                StringBuilder json = new StringBuilder();
+                Reports.appendJson(json, results);
+                send(exchange, 200, "application/json", json.toString());
+            }
+        }
+    }
+
+    /**
+     * {@code GET /report?refs=a,b} - the report of the given refs, or all tags if no refs are specified
+     */
+    private void report(AnalysisService service, HttpExchange exchange) throws IOException {
+        List<Result> results = await(service, refs(service, exchange), exchange);
+        if (results != null) {
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+            // 0 means chunked encoding; the page is streamed as it's rendered
+            exchange.sendResponseHeaders(200, 0);
+            try (Writer out = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)) {
+                Reports.render(results, out);
+            }
+        }
+    }
+
+    /**
+     * @return the sorted results, or {@code null} if an error response was sent
+     */
+    private List<Result> await(AnalysisService service, List<String> refs, HttpExchange exchange) throws IOException {
+        List<CompletableFuture<Result>> analyses = new ArrayList<>(refs.size());
+        for (String ref : refs) {
+            CompletableFuture<Result> analysis = service.analyze(ref);
+            if (analysis == null) {
+                send(exchange, 404, "text/plain", "Unknown ref: " + ref + "\n");
+                return null;
+            }
+            analyses.add(analysis);
+        }
+        List<Result> results = new ArrayList<>(analyses.size());
+        try {
+            CompletableFuture<Void> all = CompletableFuture.allOf(analyses.toArray(new CompletableFuture<?>[0]));
+            if (tagTimeout > 0) {
+                // The analyses run in parallel and so the timeout of a single ref applies to all of them
+                all.get(tagTimeout, TimeUnit.MINUTES);
+            } else {
+                all.get();
+            }
+            for (CompletableFuture<Result> analysis : analyses) {
+                results.add(analysis.join());
+            }
+        } catch (ExecutionException e) {
+            send(exchange, 500, "text/plain", "Analysis failed: " + e.getCause() + "\n");
+            return null;
+        } catch (TimeoutException e) {
+            // The analysis is not cancelled; it's shared with other requests and the result is cached
+            send(exchange, 504, "text/plain", "Analysis not finished in " + tagTimeout + " minutes\n");
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            send(exchange, 503, "text/plain", "Server is shutting down\n");
+            return null;
+        }
+        Collections.sort(results);
+        return results;
+    }
+
+    private static List<String> refs(AnalysisService service, HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                if (param.startsWith("refs=")) {
+                    String value = URLDecoder.decode(param.substring("refs=".length()), StandardCharsets.UTF_8);
+                    if (!value.isBlank()) {
+                        return Arrays.asList(value.split(","));
+                    }
+                }
+            }
+        }
+        return service.getTags();
+    }
+
+    private static void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                send(exchange, 405, "text/plain", "Method not allowed\n");
+                return;
+            }
+            handler.handle();
+        } catch (IOException | RuntimeException e) {
+            LOG.errorf(e, "Unable to handle %s", exchange.getRequestURI());
+            throw e;
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+
+        void handle() throws IOException;
+
+    }
+
+}
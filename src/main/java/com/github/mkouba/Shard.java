@@ -0,0 +1,82 @@
+package com.github.mkouba;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A shard of a distributed analysis, e.g. {@code 2/4}. The index is 1-based so that it matches the node index of most CI
+ * systems.
+ * <p>
+ * The tags are sorted by version and assigned to the shards in a round-robin fashion. The assignment only depends on
+ * the set of tags, and so all the shards of a run agree on it. Every shard gets a similar mix of old and new tags.
+ */
+final class Shard {
+
+    private final int index;
+    private final int count;
+
+    /**
+     * @param value the shard in the form {@code i/N}
+     * @return the shard
+     * @throws IllegalArgumentException if the value is not valid
+     */
+    static Shard parse(String value) {
+        int slash = value.indexOf('/');
+        if (slash == -1) {
+            throw new IllegalArgumentException("Invalid shard: " + value + "; expected i/N");
+        }
+        int index;
+        int count;
+        try {
+            index = Integer.parseInt(value.substring(0, slash).trim());
+            count = Integer.parseInt(value.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid shard: " + value + "; expected i/N", e);
+        }
+        if (count < 1 || index < 1 || index > count) {
+            throw new IllegalArgumentException("Invalid shard: " + value + "; i must be between 1 and N");
+        }
+        return new Shard(index, count);
+    }
+
+    Shard(int index, int count) {
+        this.index = index;
+        this.count = count;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * @param tags
+     * @return the tags assigned to this shard, sorted by version; the tags that are not versions follow in alphabetical
+     *         order
+     */
+    List<String> select(List<String> tags) {
+        List<String> sorted = new ArrayList<>(tags);
+        sorted.sort(QuarkusVersion.TAG_NAMES);
+        List<String> selected = new ArrayList<>();
+        for (int i = index - 1; i < sorted.size(); i += count) {
+            selected.add(sorted.get(i));
+        }
+        return selected;
+    }
+
+    /**
+     * @return the file name of the partial results of this shard
+     */
+    String getPartialFileName() {
+        return "results-" + index + "-of-" + count + ".db";
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+
+}
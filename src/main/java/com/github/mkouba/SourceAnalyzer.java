@@ -0,0 +1,264 @@
+package com.github.mkouba;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.jboss.logging.Logger;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+
+/**
+ * Extracts the {@link FileFacts} from the content of a java source file.
+ */
+class SourceAnalyzer {
+
+    private static final Logger LOG = Logger.getLogger(SourceAnalyzer.class);
+
+    /**
+     * The version of the analyzer rules. It must be incremented whenever a change in the detection logic, the source
+     * filter or the test classification may change the results, so that the stored results are invalidated.
+     */
+    static final int RULES_VERSION = 6;
+
+    // Added to the rules version if the scanner is verified, see #getRulesVersion()
+    private static final int VERIFY_SCANNER_RULES = 1 << 16;
+
+    // If set to true then all files are parsed and the results of the scanner are verified
+    private final boolean verifyScanner;
+
+    private final LongAdder scanned = new LongAdder();
+    private final LongAdder parsed = new LongAdder();
+    private final LongAdder mismatches = new LongAdder();
+
+    // Shared by all parsers; without the line separator detection the pre/post processors do not hold any per-parse
+    // state - in a native executable the configuration is initialized at build time
+    private static final ParserConfiguration PARSER_CONFIGURATION = new ParserConfiguration()
+            .setLanguageLevel(LanguageLevel.JAVA_17)
+            .setDetectOriginalLineSeparator(false);
+
+    private final List<FactExtractor> extractors;
+    // The built-in candidate tokens and the tokens of the extractors
+    private final byte[][] candidateTokens;
+
+    // May be null
+    private final ConcurrencyController controller;
+
+    // JavaParser is not thread-safe and so each worker thread reuses its own instance
+    private final ThreadLocal<JavaParser> parser = ThreadLocal
+            .withInitial(() -> new JavaParser(PARSER_CONFIGURATION));
+
+    SourceAnalyzer() {
+        this(false);
+    }
+
+    SourceAnalyzer(boolean verifyScanner) {
+        this(verifyScanner, FactExtractors.defaults(), null);
+    }
+
+    /**
+     * @param verifyScanner
+     * @param controller limits the number of concurrent parses, may be {@code null}
+     */
+    SourceAnalyzer(boolean verifyScanner, ConcurrencyController controller) {
+        this(verifyScanner, FactExtractors.defaults(), controller);
+    }
+
+    SourceAnalyzer(boolean verifyScanner, List<FactExtractor> extractors) {
+        this(verifyScanner, extractors, null);
+    }
+
+    SourceAnalyzer(boolean verifyScanner, List<FactExtractor> extractors, ConcurrencyController controller) {
+        this.verifyScanner = verifyScanner;
+        this.extractors = extractors;
+        this.controller = controller;
+        this.candidateTokens = SourceScanner.candidateTokens(extractors.stream()
+                .flatMap(e -> e.getCandidateTokens().stream()).distinct().collect(Collectors.toList()));
+    }
+
+    /**
+     * The content is first processed by the {@link SourceScanner}. Only the files that could contribute build items,
+     * config items, build steps or the facts of a custom extractor are parsed. A file that is not
+     * {@link SourceScanner#isBalanced() balanced} is parsed as well, so that it is reported as unparsable.
+     *
+     * @param path the path is only used for logging
+     * @param content
+     * @return the facts, or {@link FileFacts#UNPARSABLE} if the content cannot be parsed
+     */
+    FileFacts analyze(String path, byte[] content) {
+        return analyze(path, content, null);
+    }
+
+    /**
+     * @param path the path is only used for logging and metrics
+     * @param content
+     * @param metrics the metrics of the tag, may be {@code null}
+     * @return the facts, or {@link FileFacts#UNPARSABLE} if the content cannot be parsed
+     * @see #analyze(String, byte[])
+     */
+    FileFacts analyze(String path, byte[] content, TagMetrics metrics) {
+        scanned.increment();
+        long start = System.nanoTime();
+        SourceScanner scanner = new SourceScanner(candidateTokens).scan(content);
+        if (metrics != null) {
+            metrics.addScan(System.nanoTime() - start);
+        }
+        if (!scanner.isCandidate() && scanner.isBalanced() && !verifyScanner) {
+            if (metrics != null) {
+                metrics.recordFile(path, System.nanoTime() - start);
+            }
+            return new FileFacts(scanner.getTypes(), List.of(), List.of(), List.of());
+        }
+        parsed.increment();
+        FileFacts facts = parse(path, content, metrics);
+        if (metrics != null) {
+            metrics.recordFile(path, System.nanoTime() - start);
+        }
+        if (!verifyScanner) {
+            return facts;
+        }
+        if (facts.isParsed() && facts.getJavaTypes() != scanner.getTypes()) {
+            mismatches.increment();
+            LOG.warnf("Scanner found %s java types but the parser found %s: %s", scanner.getTypes(),
+                    facts.getJavaTypes(), path);
+        }
+        if (scanner.isCandidate() || !scanner.isBalanced()) {
+            return facts.withScannerFacts(facts);
+        }
+        if (!facts.getClasses().isEmpty() || !facts.getConfigItems().isEmpty() || !facts.getBuildSteps().isEmpty()) {
+            LOG.warnf("Scanner did not consider a file with classes, config items or build steps: %s", path);
+        }
+        return facts.withScannerFacts(new FileFacts(scanner.getTypes(), List.of(), List.of(), List.of()));
+    }
+
+    /**
+     * Compare the build items, config items and build steps resolved from the parsed facts of a tag with the items
+     * that would be resolved from the facts of the lexical pre-filter. Does nothing unless the scanner is verified.
+     *
+     * @param tagName the tag name is only used for logging
+     * @param stats the stats of all java source files of the tag
+     */
+    void verify(String tagName, TagStats stats) {
+        TagStats scannerStats = stats.getScannerStats();
+        if (!verifyScanner || scannerStats == null) {
+            return;
+        }
+        verify(tagName, "build items", new HashSet<>(stats.getBuildItemNames()),
+                new HashSet<>(scannerStats.getBuildItemNames()));
+        verify(tagName, "config items", stats.getConfigItemNames(), scannerStats.getConfigItemNames());
+        verify(tagName, "build steps", stats.getBuildStepNames(), scannerStats.getBuildStepNames());
+    }
+
+    /**
+     * A source that is balanced but still cannot be parsed, e.g. a template, is counted by the scanner unless the
+     * scanner is verified. Therefore, the results of both modes are not interchangeable.
+     *
+     * @return the version of the analyzer rules that also reflects the verification of the scanner
+     */
+    int getRulesVersion() {
+        return verifyScanner ? RULES_VERSION + VERIFY_SCANNER_RULES : RULES_VERSION;
+    }
+
+    /**
+     * @return the number of files processed by the scanner
+     */
+    long getScanned() {
+        return scanned.sum();
+    }
+
+    /**
+     * @return the number of files parsed
+     */
+    long getParsed() {
+        return parsed.sum();
+    }
+
+    /**
+     * @return the number of files for which the scanner found a different number of java types, plus the number of
+     *         tags for which the scanner results would give different items
+     * @see #verify(String, TagStats)
+     */
+    long getMismatches() {
+        return mismatches.sum();
+    }
+
+    private void verify(String tagName, String kind, Set<String> parsedNames, Set<String> scannerNames) {
+        if (parsedNames.equals(scannerNames)) {
+            return;
+        }
+        mismatches.increment();
+        Set<String> missing = new TreeSet<>(parsedNames);
+        missing.removeAll(scannerNames);
+        Set<String> unexpected = new TreeSet<>(scannerNames);
+        unexpected.removeAll(parsedNames);
+        LOG.warnf("Scanner results would give different %s for %s - missing: %s, unexpected: %s", kind, tagName,
+                missing, unexpected);
+    }
+
+    private FileFacts parse(String path, byte[] content, TagMetrics metrics) {
+        if (controller == null) {
+            return doParse(path, content, metrics);
+        }
+        // The compilation unit is only reachable until the facts are extracted
+        controller.acquire(content.length);
+        try {
+            return doParse(path, content, metrics);
+        } finally {
+            controller.release(content.length);
+        }
+    }
+
+    private FileFacts doParse(String path, byte[] content, TagMetrics metrics) {
+        long start = System.nanoTime();
+        ParseResult<CompilationUnit> result = parser.get().parse(new ByteArrayInputStream(content));
+        long extractStart = System.nanoTime();
+        if (metrics != null) {
+            metrics.addParse(extractStart - start);
+        }
+        if (!result.isSuccessful() || result.getResult().isEmpty()) {
+            // Quarkus contains a lot of java source templates
+            LOG.warnf("Unable to parse: " + path);
+            if (metrics != null) {
+                metrics.incrementParseFailures();
+            }
+            return FileFacts.UNPARSABLE;
+        }
+        CompilationUnit unit = result.getResult().get();
+        FileContext context = new FileContext(unit);
+        // A single pre-order traversal dispatches all the extractors
+        unit.walk(node -> {
+            if (node instanceof TypeDeclaration) {
+                TypeDeclaration<?> type = (TypeDeclaration<?>) node;
+                for (FactExtractor extractor : extractors) {
+                    extractor.visitType(type, context);
+                }
+            } else if (node instanceof FieldDeclaration) {
+                FieldDeclaration field = (FieldDeclaration) node;
+                for (FactExtractor extractor : extractors) {
+                    extractor.visitField(field, context);
+                }
+            } else if (node instanceof MethodDeclaration) {
+                MethodDeclaration method = (MethodDeclaration) node;
+                for (FactExtractor extractor : extractors) {
+                    extractor.visitMethod(method, context);
+                }
+            }
+        });
+        if (metrics != null) {
+            metrics.addExtract(System.nanoTime() - extractStart);
+        }
+        return context.toFacts();
+    }
+
+}
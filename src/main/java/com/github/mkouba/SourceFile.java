@@ -0,0 +1,39 @@
+package com.github.mkouba;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * A java source file of a tag.
+ */
+final class SourceFile {
+
+    // The path relative to the repository root, always using '/' as the separator
+    private final String path;
+    // May be null if the file is not tracked
+    private final ObjectId blobId;
+    private final boolean test;
+
+    SourceFile(String path, ObjectId blobId, boolean test) {
+        this.path = path;
+        this.blobId = blobId;
+        this.test = test;
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    ObjectId getBlobId() {
+        return blobId;
+    }
+
+    boolean isTest() {
+        return test;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+}
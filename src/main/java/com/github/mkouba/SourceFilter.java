@@ -0,0 +1,214 @@
+package com.github.mkouba;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * Decides which files of a tag are java sources and which sources are tests.
+ * <p>
+ * The rules are defined as globs matched against the path relative to the repository root, always using '/' as the
+ * separator. {@code *} matches any part of a path segment, {@code **} matches any number of segments and {@code ?}
+ * matches a single character. All globs are compiled into a single regular expression per kind.
+ * <p>
+ * An exclude glob ending with {@code /**} excludes a whole directory. Such directories are pruned, i.e. never visited,
+ * both by the file tree walker and by the git tree walks. The {@code .git} directory is always pruned.
+ */
+final class SourceFilter {
+
+    static final List<String> DEFAULT_INCLUDES = List.of("**/*.java");
+    static final List<String> DEFAULT_EXCLUDES = List.of(
+            "**/target/**",
+            "**/node_modules/**",
+            "**/*create-extension-pom*/**",
+            "**/*create-extension-templates*/**",
+            "**/maven-archetype/src/main/resources/archetype-resources/**",
+            "**/*.tpl.qute.java");
+    static final List<String> DEFAULT_TESTS = List.of("**/*test/java/**", "**/*integration-tests*/**");
+
+    private static final String GIT_DIR = "**/.git";
+    private static final String DIR_SUFFIX = "/**";
+
+    private final List<String> includes;
+    private final List<String> excludes;
+    private final List<String> tests;
+
+    private final Pattern includePattern;
+    private final Pattern excludePattern;
+    private final Pattern prunePattern;
+    private final Pattern testPattern;
+
+    static SourceFilter defaults() {
+        return new SourceFilter(DEFAULT_INCLUDES, DEFAULT_EXCLUDES, DEFAULT_TESTS);
+    }
+
+    SourceFilter(List<String> includes, List<String> excludes, List<String> tests) {
+        this.includes = List.copyOf(includes);
+        this.excludes = List.copyOf(excludes);
+        this.tests = List.copyOf(tests);
+        this.includePattern = compile(includes);
+        this.excludePattern = compile(excludes);
+        this.testPattern = compile(tests);
+        List<String> pruned = new ArrayList<>();
+        pruned.add(GIT_DIR);
+        for (String exclude : excludes) {
+            if (exclude.endsWith(DIR_SUFFIX)) {
+                pruned.add(exclude.substring(0, exclude.length() - DIR_SUFFIX.length()));
+            }
+        }
+        this.prunePattern = compile(pruned);
+    }
+
+    /**
+     * @param path the relative path of a regular file
+     * @return {@code true} if the file is a java source
+     */
+    boolean isSource(String path) {
+        return matches(includePattern, path) && !matches(excludePattern, path);
+    }
+
+    /**
+     * @param path the relative path of a java source
+     * @return {@code true} if the file is a test source
+     */
+    boolean isTest(String path) {
+        return matches(testPattern, path);
+    }
+
+    /**
+     * @param dir the relative path of a directory
+     * @return {@code true} if the directory should not be visited at all
+     */
+    boolean isPruned(String dir) {
+        return matches(prunePattern, dir);
+    }
+
+    /**
+     * The stored results must be invalidated if the rules change.
+     *
+     * @return a value that only depends on the rules
+     */
+    int getFingerprint() {
+        return Objects.hash(includes, excludes, tests);
+    }
+
+    /**
+     * Walk the file tree and skip the pruned directories.
+     *
+     * @param root
+     * @param sources the consumer of the relative paths of the java sources
+     * @return the number of regular files visited
+     * @throws IOException
+     */
+    long walk(Path root, Consumer<String> sources) throws IOException {
+        long[] files = new long[1];
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return dir.equals(root) || !isPruned(relativize(root, dir)) ? FileVisitResult.CONTINUE
+                        : FileVisitResult.SKIP_SUBTREE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    files[0]++;
+                    String path = relativize(root, file);
+                    if (isSource(path)) {
+                        sources.accept(path);
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files[0];
+    }
+
+    /**
+     * @return a tree filter that skips the pruned directories of a recursive git tree walk
+     */
+    TreeFilter toTreeFilter() {
+        return new PruneFilter();
+    }
+
+    private static String relativize(Path root, Path path) {
+        return root.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    private static boolean matches(Pattern pattern, String path) {
+        return pattern != null && pattern.matcher(path).matches();
+    }
+
+    private static Pattern compile(List<String> globs) {
+        if (globs.isEmpty()) {
+            return null;
+        }
+        return Pattern.compile(globs.stream().map(SourceFilter::toRegex).collect(Collectors.joining("|")));
+    }
+
+    static String toRegex(String glob) {
+        StringBuilder regex = new StringBuilder("(?:");
+        int i = 0;
+        while (i < glob.length()) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                if (glob.startsWith("**/", i)) {
+                    // Any number of directories, including none
+                    regex.append("(?:.*/)?");
+                    i += 3;
+                } else if (glob.startsWith("**", i)) {
+                    regex.append(".*");
+                    i += 2;
+                } else {
+                    regex.append("[^/]*");
+                    i++;
+                }
+            } else {
+                if (c == '?') {
+                    regex.append("[^/]");
+                } else {
+                    if ("\\.[]{}()+-^$|".indexOf(c) != -1) {
+                        regex.append('\\');
+                    }
+                    regex.append(c);
+                }
+                i++;
+            }
+        }
+        return regex.append(")").toString();
+    }
+
+    private class PruneFilter extends TreeFilter {
+
+        @Override
+        public boolean include(TreeWalk walker) {
+            return !walker.isSubtree() || !isPruned(walker.getPathString());
+        }
+
+        @Override
+        public boolean shouldBeRecursive() {
+            return false;
+        }
+
+        @Override
+        public TreeFilter clone() {
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,259 @@
+package com.github.mkouba;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A fast token scanner that works directly on the raw bytes of a java source file.
+ * <p>
+ * The comments, string literals, text blocks and char literals are skipped. The scanner counts the type declarations,
+ * i.e. {@code class}, {@code interface}, {@code @interface}, {@code enum} and {@code record}, including the nested and
+ * local ones. It also decides whether a file could contribute build items, config items or build steps, i.e. whether it
+ * contains one of the {@link #CANDIDATE_TOKENS} or the additional tokens, or declares a class that extends another
+ * class. The latter is needed because a build item may extend any number of intermediate classes declared in other
+ * files, and so all the classes with a superclass must be indexed, see {@link TypeIndex}. Only the candidates need a
+ * full parse. A file with unbalanced braces or an unterminated comment or literal cannot be parsed; such a file is
+ * not a candidate but it is not {@link #isBalanced() balanced} either.
+ * <p>
+ * The bytes are not decoded; all the keywords are ASCII and any non-ASCII byte is treated as a part of an identifier.
+ */
+final class SourceScanner {
+
+    static final String[] CANDIDATE_TOKENS = { "BuildStep", "ConfigItem", "SimpleBuildItem", "MultiBuildItem",
+            "EmptyBuildItem" };
+
+    private static final byte[][] CANDIDATE_TOKENS_BYTES = candidateTokens(List.of());
+    private static final byte[] CLASS = ascii("class");
+    private static final byte[] INTERFACE = ascii("interface");
+    private static final byte[] ENUM = ascii("enum");
+    private static final byte[] RECORD = ascii("record");
+    private static final byte[] EXTENDS = ascii("extends");
+
+    // No record keyword pending
+    private static final int RECORD_NONE = 0;
+    // "record" found
+    private static final int RECORD_KEYWORD = 1;
+    // "record Foo" found; a record declaration if followed by '(' or '<'
+    private static final int RECORD_NAME = 2;
+
+    // Not in a class header, i.e. between "class" and the opening brace of the body
+    private static final int NOT_IN_HEADER = -1;
+
+    private final byte[][] candidateTokens;
+
+    private int types;
+    private boolean candidate;
+    private boolean balanced;
+
+    SourceScanner() {
+        this(CANDIDATE_TOKENS_BYTES);
+    }
+
+    /**
+     * @param candidateTokens the tokens returned by {@link #candidateTokens(Collection)}
+     */
+    SourceScanner(byte[][] candidateTokens) {
+        this.candidateTokens = candidateTokens;
+    }
+
+    /**
+     * @param additional the additional identifiers, e.g. {@code Recorder}
+     * @return the {@link #CANDIDATE_TOKENS} and the additional tokens
+     */
+    static byte[][] candidateTokens(Collection<String> additional) {
+        List<byte[]> tokens = new ArrayList<>();
+        for (String token : CANDIDATE_TOKENS) {
+            tokens.add(ascii(token));
+        }
+        for (String token : additional) {
+            tokens.add(ascii(token));
+        }
+        return tokens.toArray(new byte[0][]);
+    }
+
+    /**
+     * @param content
+     * @return this scanner
+     */
+    SourceScanner scan(byte[] content) {
+        types = 0;
+        candidate = false;
+        balanced = true;
+        // The nesting level of the braces
+        int depth = 0;
+        int recordState = RECORD_NONE;
+        // The nesting level of the type parameters in a class header, or NOT_IN_HEADER
+        int header = NOT_IN_HEADER;
+        // The previous significant byte, i.e. not a whitespace or a part of a comment; 'a' stands for an identifier
+        byte prev = 0;
+        int length = content.length;
+        int i = 0;
+        while (i < length) {
+            byte b = content[i];
+            if (b == '/' && i + 1 < length && content[i + 1] == '/') {
+                // Line comment
+                i += 2;
+                while (i < length && content[i] != '\n') {
+                    i++;
+                }
+            } else if (b == '/' && i + 1 < length && content[i + 1] == '*') {
+                // Block comment
+                i += 2;
+                while (i < length && !(content[i] == '*' && i + 1 < length && content[i + 1] == '/')) {
+                    i++;
+                }
+                if (i >= length) {
+                    balanced = false;
+                }
+                i += 2;
+            } else if (b == '"' && i + 2 < length && content[i + 1] == '"' && content[i + 2] == '"') {
+                // Text block
+                i += 3;
+                while (i < length && !(content[i] == '"' && i + 2 < length && content[i + 1] == '"'
+                        && content[i + 2] == '"')) {
+                    i += content[i] == '\\' ? 2 : 1;
+                }
+                if (i >= length) {
+                    balanced = false;
+                }
+                i += 3;
+                prev = '"';
+                recordState = RECORD_NONE;
+            } else if (b == '"' || b == '\'') {
+                // String or char literal
+                i++;
+                while (i < length && content[i] != b && content[i] != '\n') {
+                    i += content[i] == '\\' ? 2 : 1;
+                }
+                if (i >= length || content[i] != b) {
+                    balanced = false;
+                }
+                i++;
+                prev = b;
+                recordState = RECORD_NONE;
+            } else if (isIdentifierStart(b)) {
+                int start = i;
+                while (i < length && isIdentifierPart(content[i])) {
+                    i++;
+                }
+                if (recordState == RECORD_KEYWORD) {
+                    recordState = RECORD_NAME;
+                } else {
+                    recordState = RECORD_NONE;
+                    if (matches(content, start, i, CLASS)) {
+                        // Skip class literals, e.g. Foo.class
+                        if (prev != '.') {
+                            types++;
+                            header = 0;
+                        }
+                    } else if (matches(content, start, i, EXTENDS)) {
+                        // Skip the bounds of type parameters, e.g. class Foo<T extends Bar>
+                        if (header == 0) {
+                            candidate = true;
+                            header = NOT_IN_HEADER;
+                        }
+                    } else if (matches(content, start, i, INTERFACE) || matches(content, start, i, ENUM)) {
+                        types++;
+                    } else if (matches(content, start, i, RECORD)) {
+                        // "record" is a contextual keyword
+                        if (prev != '.') {
+                            recordState = RECORD_KEYWORD;
+                        }
+                    } else if (!candidate && isCandidateToken(content, start, i)) {
+                        candidate = true;
+                    }
+                }
+                prev = 'a';
+            } else {
+                if (!isWhitespace(b)) {
+                    if (recordState == RECORD_NAME && (b == '(' || b == '<')) {
+                        types++;
+                    }
+                    recordState = RECORD_NONE;
+                    if (b == '{') {
+                        depth++;
+                    } else if (b == '}' && --depth < 0) {
+                        balanced = false;
+                    }
+                    if (header != NOT_IN_HEADER) {
+                        if (b == '<') {
+                            header++;
+                        } else if (b == '>') {
+                            header--;
+                        } else if (b == '{' || b == ';') {
+                            header = NOT_IN_HEADER;
+                        }
+                    }
+                    prev = b;
+                }
+                i++;
+            }
+        }
+        if (depth != 0) {
+            balanced = false;
+        }
+        return this;
+    }
+
+    /**
+     * @return the number of type declarations found
+     */
+    int getTypes() {
+        return types;
+    }
+
+    /**
+     * @return {@code true} if the file could contribute build items, config items, build steps or the facts of an
+     *         additional token
+     */
+    boolean isCandidate() {
+        return candidate;
+    }
+
+    /**
+     * @return {@code false} if the braces are not balanced or a comment or literal is not terminated
+     */
+    boolean isBalanced() {
+        return balanced;
+    }
+
+    private boolean isCandidateToken(byte[] content, int start, int end) {
+        for (byte[] token : candidateTokens) {
+            if (matches(content, start, end, token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(byte[] content, int start, int end, byte[] token) {
+        if (end - start != token.length) {
+            return false;
+        }
+        for (int i = 0; i < token.length; i++) {
+            if (content[start + i] != token[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isIdentifierStart(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || b == '_' || b == '$' || b < 0;
+    }
+
+    private static boolean isIdentifierPart(byte b) {
+        return isIdentifierStart(b) || (b >= '0' && b <= '9');
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+}
@@ -0,0 +1,229 @@
+package com.github.mkouba;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffEntry.ChangeType;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * Analyzes a chain of tags, ideally sorted by version, directly from the git object database.
+ * <p>
+ * The first tag of the chain is analyzed with a full scan of its tree. Every other tag is derived from the state of the
+ * previous tag: only the files added or modified in the diff between the two trees are analyzed, and the facts of the
+ * deleted or modified files are subtracted. The cost of a tag is therefore proportional to the size of the change.
+ * <p>
+ * An instance is not thread-safe and is meant to be used by a single worker.
+ */
+class TagChainAnalyzer {
+
+    private final Repository repository;
+    private final ForkJoinPool pool;
+    private final SourceAnalyzer sourceAnalyzer;
+    private final FileFactsCache cache;
+    private final SourceFilter sourceFilter;
+    private final ItemNames itemNames;
+
+    // The state of the last analyzed tree
+    private final Map<String, FileFacts> factsByPath = new ConcurrentHashMap<>();
+    private final TagStats stats = new TagStats();
+    private RevTree tree;
+    private long files;
+    private long parsed;
+    private long changed;
+
+    TagChainAnalyzer(Repository repository, ForkJoinPool pool, SourceAnalyzer sourceAnalyzer, FileFactsCache cache,
+            SourceFilter sourceFilter) {
+        this(repository, pool, sourceAnalyzer, cache, sourceFilter, new ItemNames());
+    }
+
+    /**
+     * @param repository
+     * @param pool
+     * @param sourceAnalyzer
+     * @param cache
+     * @param sourceFilter
+     * @param itemNames the table used to intern the names of the items, e.g. the table of the current run
+     */
+    TagChainAnalyzer(Repository repository, ForkJoinPool pool, SourceAnalyzer sourceAnalyzer, FileFactsCache cache,
+            SourceFilter sourceFilter, ItemNames itemNames) {
+        this.repository = repository;
+        this.pool = pool;
+        this.sourceAnalyzer = sourceAnalyzer;
+        this.cache = cache;
+        this.sourceFilter = sourceFilter;
+        this.itemNames = itemNames;
+    }
+
+    Result analyze(Ref tag) throws IOException {
+        return analyze(tag, null);
+    }
+
+    /**
+     * @param tag
+     * @param metrics the metrics of the tag, may be {@code null}
+     * @return the result
+     * @throws IOException
+     */
+    Result analyze(Ref tag, TagMetrics metrics) throws IOException {
+        return analyze(Repository.shortenRefName(tag.getName()), tag.getObjectId(), metrics);
+    }
+
+    /**
+     * @param name the name of the result, e.g. the tag name
+     * @param id the id of a commit or an annotated tag
+     * @param metrics the metrics of the tag, may be {@code null}
+     * @return the result
+     * @throws IOException
+     */
+    Result analyze(String name, ObjectId id, TagMetrics metrics) throws IOException {
+        Result result = new Result();
+        result.setTagName(name);
+        try (ObjectReader reader = repository.newObjectReader(); RevWalk revWalk = new RevWalk(reader)) {
+            long resolveStart = System.nanoTime();
+            RevCommit commit = revWalk.parseCommit(id);
+            result.setCommitId(commit.name());
+            result.setCommitTime(commit.getCommitTime());
+            if (metrics != null) {
+                metrics.setResolve(System.nanoTime() - resolveStart);
+            }
+            if (tree == null) {
+                scan(reader, commit.getTree(), metrics);
+            } else {
+                applyDiff(reader, commit.getTree(), metrics);
+            }
+            tree = commit.getTree();
+        }
+        stats.apply(result, itemNames);
+        return result;
+    }
+
+    TagStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return the number of files of the last analyzed tree
+     */
+    long getFiles() {
+        return files;
+    }
+
+    /**
+     * @return the number of files parsed for the last analyzed tree
+     */
+    long getParsed() {
+        return parsed;
+    }
+
+    /**
+     * @return the number of java source files that were added, modified or deleted for the last analyzed tree
+     */
+    long getChanged() {
+        return changed;
+    }
+
+    Collection<String> getJavaSources() {
+        return factsByPath.keySet();
+    }
+
+    private void scan(ObjectReader reader, RevTree newTree, TagMetrics metrics) throws IOException {
+        long discoveryStart = System.nanoTime();
+        List<SourceFile> javaSources = new ArrayList<>();
+        try (TreeWalk treeWalk = new TreeWalk(repository, reader)) {
+            treeWalk.addTree(newTree);
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(sourceFilter.toTreeFilter());
+            while (treeWalk.next()) {
+                if (!isFile(treeWalk.getFileMode(0))) {
+                    continue;
+                }
+                files++;
+                String path = treeWalk.getPathString();
+                if (sourceFilter.isSource(path)) {
+                    javaSources.add(new SourceFile(path, treeWalk.getObjectId(0), sourceFilter.isTest(path)));
+                }
+            }
+        }
+        if (metrics != null) {
+            metrics.setDiscovery(System.nanoTime() - discoveryStart, files);
+        }
+        TagStats added = analyzeSources(javaSources, metrics);
+        stats.merge(added);
+        parsed = added.getParsed();
+        changed = javaSources.size();
+    }
+
+    private void applyDiff(ObjectReader reader, RevTree newTree, TagMetrics metrics) throws IOException {
+        long discoveryStart = System.nanoTime();
+        List<DiffEntry> entries;
+        try (TreeWalk treeWalk = new TreeWalk(repository, reader)) {
+            treeWalk.addTree(tree);
+            treeWalk.addTree(newTree);
+            treeWalk.setRecursive(true);
+            // Skip the subtrees that are identical or pruned
+            treeWalk.setFilter(AndTreeFilter.create(sourceFilter.toTreeFilter(), TreeFilter.ANY_DIFF));
+            entries = DiffEntry.scan(treeWalk);
+        }
+        List<SourceFile> javaSources = new ArrayList<>();
+        changed = 0;
+        for (DiffEntry entry : entries) {
+            boolean javaSourceChanged = false;
+            if (entry.getChangeType() != ChangeType.ADD && isFile(entry.getOldMode())) {
+                files--;
+                String oldPath = entry.getOldPath();
+                FileFacts oldFacts = factsByPath.remove(oldPath);
+                if (oldFacts != null) {
+                    stats.remove(sourceFilter.isTest(oldPath), oldFacts);
+                    javaSourceChanged = true;
+                }
+            }
+            if (entry.getChangeType() != ChangeType.DELETE && isFile(entry.getNewMode())) {
+                files++;
+                String newPath = entry.getNewPath();
+                if (sourceFilter.isSource(newPath)) {
+                    javaSources.add(new SourceFile(newPath, entry.getNewId().toObjectId(),
+                            sourceFilter.isTest(newPath)));
+                    javaSourceChanged = true;
+                }
+            }
+            if (javaSourceChanged) {
+                changed++;
+            }
+        }
+        if (metrics != null) {
+            metrics.setDiscovery(System.nanoTime() - discoveryStart, files);
+        }
+        TagStats added = analyzeSources(javaSources, metrics);
+        stats.merge(added);
+        parsed = added.getParsed();
+    }
+
+    private TagStats analyzeSources(List<SourceFile> javaSources, TagMetrics metrics) {
+        return pool.invoke(new AnalyzeSourcesTask(javaSources,
+                source -> repository.open(source.getBlobId(), Constants.OBJ_BLOB).getBytes(Integer.MAX_VALUE),
+                sourceAnalyzer, cache, factsByPath, metrics));
+    }
+
+    private static boolean isFile(FileMode mode) {
+        return FileMode.REGULAR_FILE.equals(mode) || FileMode.EXECUTABLE_FILE.equals(mode);
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.github.mkouba;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.jboss.logging.Logger;
+
+/**
+ * The estimated cost of the analysis of a tag, used by the {@link TagScheduler}.
+ * <p>
+ * The work time of each analyzed tag, i.e. the sum of the stage times regardless of the waiting, is kept in a file
+ * next to the clones of the repository. The recorded time depends on the file facts cache: the files found in the
+ * cache are neither read nor parsed. Therefore, all costs are estimated for an empty cache. The cost of a tag analyzed
+ * in a previous run is the recorded fixed time, i.e. the resolution and discovery, plus the recorded time per file
+ * missed in the cache multiplied by the number of java sources. The cost of any other tag is the number of java
+ * sources in its tree multiplied by the average time per missed file.
+ */
+final class TagCosts {
+
+    private static final Logger LOG = Logger.getLogger(TagCosts.class);
+
+    private final Path file;
+    // tag name -> {fixed time in nanoseconds, time of the missed files in nanoseconds, java sources, missed files}
+    private final Map<String, long[]> timings = new ConcurrentHashMap<>();
+
+    TagCosts(Path file) {
+        this.file = file;
+    }
+
+    void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+            for (String tag : properties.stringPropertyNames()) {
+                String[] values = properties.getProperty(tag).split(",");
+                if (values.length != 4) {
+                    // Recorded by an older version
+                    continue;
+                }
+                long[] timing = new long[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    timing[i] = Long.parseLong(values[i]);
+                }
+                timings.put(tag, timing);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warnf(e, "Ignoring corrupted tag costs: %s", file);
+            timings.clear();
+        }
+    }
+
+    void save() throws IOException {
+        Properties properties = new Properties();
+        timings.forEach((tag, values) -> properties.setProperty(tag,
+                values[0] + "," + values[1] + "," + values[2] + "," + values[3]));
+        Files.createDirectories(file.getParent());
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            properties.store(writer,
+                    "tag=fixed time in nanoseconds,time of the missed files in nanoseconds,java sources,missed files");
+        }
+    }
+
+    /**
+     * @param tag
+     * @param fixedNanos the time that does not depend on the cache, i.e. the resolution and discovery
+     * @param fileNanos the time of the files missed in the cache, i.e. the read, scan, parse and extract
+     * @param javaSources
+     * @param missedFiles the number of java sources not found in the cache
+     */
+    void record(String tag, long fixedNanos, long fileNanos, long javaSources, long missedFiles) {
+        timings.put(tag, new long[] { fixedNanos, fileNanos, javaSources, missedFiles });
+    }
+
+    /**
+     * @param tag
+     * @return the estimated cost in nanoseconds with an empty cache, or {@code -1} if the tag was not analyzed yet or
+     *         all its java sources were found in the cache
+     */
+    long getRecorded(String tag) {
+        long[] values = timings.get(tag);
+        if (values == null) {
+            return -1;
+        }
+        if (values[3] == 0) {
+            return values[2] == 0 ? values[0] : -1;
+        }
+        return values[0] + values[1] * values[2] / values[3];
+    }
+
+    /**
+     * @return the average time per java source missed in the cache in nanoseconds, or 1 if no tag was analyzed yet;
+     *         without any timings only the relative cost of the tags matters
+     */
+    long getNanosPerFile() {
+        long nanos = 0;
+        long files = 0;
+        for (long[] values : timings.values()) {
+            nanos += values[1];
+            files += values[3];
+        }
+        return files > 0 ? Math.max(1, nanos / files) : 1;
+    }
+
+    /**
+     * @param repository
+     * @param id the id of a commit or an annotated tag
+     * @param sourceFilter
+     * @return the number of java sources in the tree of the commit
+     * @throws IOException
+     */
+    static long countJavaSources(Repository repository, AnyObjectId id, SourceFilter sourceFilter)
+            throws IOException {
+        long count = 0;
+        try (ObjectReader reader = repository.newObjectReader();
+                RevWalk revWalk = new RevWalk(reader);
+                TreeWalk treeWalk = new TreeWalk(repository, reader)) {
+            treeWalk.addTree(revWalk.parseCommit(id).getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(sourceFilter.toTreeFilter());
+            while (treeWalk.next()) {
+                if ((FileMode.REGULAR_FILE.equals(treeWalk.getFileMode(0))
+                        || FileMode.EXECUTABLE_FILE.equals(treeWalk.getFileMode(0)))
+                        && sourceFilter.isSource(treeWalk.getPathString())) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+}
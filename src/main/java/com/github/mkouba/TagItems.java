@@ -0,0 +1,125 @@
+package com.github.mkouba;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The names of the build items, config items and build steps of a tag.
+ * <p>
+ * The names are interned by {@link ItemNames}; each kind is a sorted array of distinct ids, so that the items of two
+ * tags with the same names table can be compared in linear time, see {@link ItemDiff}.
+ */
+final class TagItems {
+
+    enum Kind {
+        // The fully qualified class name, e.g. org.acme.FooBuildItem
+        BUILD_ITEM,
+        // The fully qualified name of the declaring class and the field name, e.g. org.acme.FooConfig.enabled
+        CONFIG_ITEM,
+        // The fully qualified name of the declaring class and the method declaration, e.g.
+        // org.acme.FooProcessor#FooBuildItem foo()
+        BUILD_STEP
+    }
+
+    private static final int[] EMPTY = new int[0];
+
+    private final ItemNames names;
+    // kind -> sorted ids
+    private final int[][] ids;
+
+    TagItems(ItemNames names, int[] buildItems, int[] configItems, int[] buildSteps) {
+        this.names = names;
+        this.ids = new int[][] { buildItems, configItems, buildSteps };
+    }
+
+    /**
+     * @param names the table used to intern the names
+     * @param buildItems
+     * @param configItems
+     * @param buildSteps
+     * @return the items; duplicate names are ignored
+     */
+    static TagItems of(ItemNames names, Collection<String> buildItems, Collection<String> configItems,
+            Collection<String> buildSteps) {
+        return new TagItems(names, intern(names, buildItems), intern(names, configItems), intern(names, buildSteps));
+    }
+
+    /**
+     * @return the table of the names
+     */
+    ItemNames getItemNames() {
+        return names;
+    }
+
+    /**
+     * @param other
+     * @return the same items with the ids of the other table
+     */
+    TagItems in(ItemNames other) {
+        if (other == names) {
+            return this;
+        }
+        return new TagItems(other, intern(other, getNames(Kind.BUILD_ITEM)), intern(other, getNames(Kind.CONFIG_ITEM)),
+                intern(other, getNames(Kind.BUILD_STEP)));
+    }
+
+    /**
+     * @param kind
+     * @return the sorted ids, must not be modified
+     */
+    int[] getIds(Kind kind) {
+        return ids[kind.ordinal()];
+    }
+
+    /**
+     * @param kind
+     * @return the names sorted alphabetically
+     */
+    List<String> getNames(Kind kind) {
+        return names(getIds(kind));
+    }
+
+    /**
+     * @param ids
+     * @return the names sorted alphabetically
+     */
+    List<String> names(int[] ids) {
+        List<String> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(names.name(id));
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * @param ids the ids, possibly unsorted and with duplicates; the array may be modified
+     * @return the sorted distinct ids
+     */
+    static int[] distinct(int[] ids) {
+        if (ids.length == 0) {
+            return EMPTY;
+        }
+        Arrays.sort(ids);
+        int size = 1;
+        for (int i = 1; i < ids.length; i++) {
+            if (ids[i] != ids[size - 1]) {
+                ids[size++] = ids[i];
+            }
+        }
+        return size == ids.length ? ids : Arrays.copyOf(ids, size);
+    }
+
+    private static int[] intern(ItemNames table, Collection<String> names) {
+        int[] ids = new int[names.size()];
+        int i = 0;
+        for (String name : names) {
+            ids[i++] = table.intern(name);
+        }
+        return distinct(ids);
+    }
+
+}
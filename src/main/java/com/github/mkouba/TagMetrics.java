@@ -0,0 +1,143 @@
+package com.github.mkouba;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The timing metrics of a single tag. The durations are in nanoseconds. The file-level metrics are recorded concurrently
+ * by the workers of the sources pool.
+ */
+final class TagMetrics {
+
+    private final String tagName;
+    private final RunMetrics run;
+    private final long start = System.nanoTime();
+
+    // Checkout or tree resolution
+    private volatile long resolve;
+    private volatile long discovery;
+    private volatile long total;
+    private volatile long foundFiles;
+
+    private final LongAdder read = new LongAdder();
+    private final LongAdder scan = new LongAdder();
+    private final LongAdder parse = new LongAdder();
+    private final LongAdder extract = new LongAdder();
+    private final LongAdder javaSources = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder parseFailures = new LongAdder();
+
+    TagMetrics(String tagName, RunMetrics run) {
+        this.tagName = tagName;
+        this.run = run;
+    }
+
+    String getTagName() {
+        return tagName;
+    }
+
+    void setResolve(long nanos) {
+        this.resolve = nanos;
+    }
+
+    void setDiscovery(long nanos, long foundFiles) {
+        this.discovery = nanos;
+        this.foundFiles = foundFiles;
+    }
+
+    /**
+     * The tag is finished.
+     */
+    void finish() {
+        this.total = System.nanoTime() - start;
+        run.recordTag(total);
+    }
+
+    void addRead(long nanos, long bytes) {
+        read.add(nanos);
+        this.bytes.add(bytes);
+    }
+
+    void addScan(long nanos) {
+        scan.add(nanos);
+    }
+
+    void addParse(long nanos) {
+        parse.add(nanos);
+    }
+
+    void addExtract(long nanos) {
+        extract.add(nanos);
+    }
+
+    void incrementParseFailures() {
+        parseFailures.increment();
+    }
+
+    /**
+     * @param cacheHit {@code true} if the facts were found in the cache
+     */
+    void addJavaSource(boolean cacheHit) {
+        javaSources.increment();
+        if (cacheHit) {
+            cacheHits.increment();
+        }
+    }
+
+    /**
+     * @param path
+     * @param nanos the time needed to analyze the content of the file
+     */
+    void recordFile(String path, long nanos) {
+        run.recordFile(tagName, path, nanos);
+    }
+
+    long getResolve() {
+        return resolve;
+    }
+
+    long getDiscovery() {
+        return discovery;
+    }
+
+    long getTotal() {
+        return total;
+    }
+
+    long getFoundFiles() {
+        return foundFiles;
+    }
+
+    long getRead() {
+        return read.sum();
+    }
+
+    long getScan() {
+        return scan.sum();
+    }
+
+    long getParse() {
+        return parse.sum();
+    }
+
+    long getExtract() {
+        return extract.sum();
+    }
+
+    long getJavaSources() {
+        return javaSources.sum();
+    }
+
+    long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    long getBytes() {
+        return bytes.sum();
+    }
+
+    long getParseFailures() {
+        return parseFailures.sum();
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.github.mkouba;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Hands out the tags to the workers.
+ * <p>
+ * The tags are split into segments of adjacent versions so that a worker analyzes similar trees one after another,
+ * e.g. a checkout only touches the files changed between two versions. The segments are sorted by the estimated cost
+ * and assigned to the workers largest first, always to the worker with the lowest load. A worker processes its own
+ * segments in that order. An idle worker steals the last queued segment of the most loaded worker, or the second half of
+ * its current segment.
+ * <p>
+ * The methods are synchronized; the analysis of a tag takes orders of magnitude longer than {@link #next(int)}.
+ *
+ * @param <T> the type of the tag
+ */
+final class TagScheduler<T> {
+
+    // The more segments the better the load balancing, the fewer segments the better the locality
+    static final int SEGMENTS_PER_WORKER = 4;
+
+    private final ToLongFunction<T> cost;
+    private final List<Worker<T>> workers;
+    private int steals;
+
+    /**
+     * @param runs the runs of tags that should be analyzed one after another, e.g. the tags of a repository sorted by
+     *        version; a segment never spans two runs
+     * @param cost the estimated cost of a tag
+     * @param workers the number of workers
+     */
+    TagScheduler(List<List<T>> runs, ToLongFunction<T> cost, int workers) {
+        this.cost = cost;
+        this.workers = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            this.workers.add(new Worker<>());
+        }
+        int total = runs.stream().mapToInt(List::size).sum();
+        int segmentSize = Math.max(1, (int) Math.ceil((double) total / (workers * SEGMENTS_PER_WORKER)));
+        List<Segment<T>> segments = new ArrayList<>();
+        for (List<T> run : runs) {
+            for (int i = 0; i < run.size(); i += segmentSize) {
+                segments.add(new Segment<>(run.subList(i, Math.min(run.size(), i + segmentSize)), cost));
+            }
+        }
+        // Largest first; each segment goes to the worker with the lowest load
+        segments.sort(Comparator.comparingLong((Segment<T> s) -> s.cost).reversed());
+        for (Segment<T> segment : segments) {
+            Worker<T> worker = this.workers.get(0);
+            for (Worker<T> w : this.workers) {
+                if (w.load() < worker.load()) {
+                    worker = w;
+                }
+            }
+            worker.queue.addLast(segment);
+            worker.queued += segment.cost;
+        }
+    }
+
+    /**
+     * @param index the index of the worker
+     * @return the next tag of the worker, or {@code null} if there is no tag left for the worker
+     */
+    synchronized T next(int index) {
+        Worker<T> worker = workers.get(index);
+        while (worker.current == null || worker.current.tags.isEmpty()) {
+            if (worker.queue.isEmpty() && !steal(worker)) {
+                return null;
+            }
+            worker.current = worker.queue.pollFirst();
+            worker.queued -= worker.current.cost;
+        }
+        return worker.current.poll(cost);
+    }
+
+    /**
+     * @return the number of segments stolen by idle workers
+     */
+    synchronized int getSteals() {
+        return steals;
+    }
+
+    private boolean steal(Worker<T> thief) {
+        Worker<T> victim = null;
+        for (Worker<T> worker : workers) {
+            if (worker != thief && (!worker.queue.isEmpty() || worker.current != null && worker.current.tags.size() > 1)
+                    && (victim == null || worker.load() > victim.load())) {
+                victim = worker;
+            }
+        }
+        if (victim == null) {
+            return false;
+        }
+        Segment<T> stolen;
+        if (!victim.queue.isEmpty()) {
+            stolen = victim.queue.pollLast();
+            victim.queued -= stolen.cost;
+        } else {
+            stolen = victim.current.split(cost);
+        }
+        thief.queue.addLast(stolen);
+        thief.queued += stolen.cost;
+        steals++;
+        return true;
+    }
+
+    private static final class Worker<T> {
+
+        final Deque<Segment<T>> queue = new ArrayDeque<>();
+        // The cost of the queued segments
+        long queued;
+        Segment<T> current;
+
+        long load() {
+            return queued + (current != null ? current.cost : 0);
+        }
+
+    }
+
+    private static final class Segment<T> {
+
+        final Deque<T> tags;
+        // The cost of the remaining tags
+        long cost;
+
+        Segment(List<T> tags, ToLongFunction<T> cost) {
+            this.tags = new ArrayDeque<>(tags);
+            for (T tag : tags) {
+                this.cost += cost.applyAsLong(tag);
+            }
+        }
+
+        T poll(ToLongFunction<T> costFun) {
+            T tag = tags.pollFirst();
+            cost -= costFun.applyAsLong(tag);
+            return tag;
+        }
+
+        /**
+         * Remove the second half of the remaining tags.
+         */
+        Segment<T> split(ToLongFunction<T> costFun) {
+            List<T> half = new ArrayList<>();
+            for (int i = tags.size() / 2; i > 0; i--) {
+                half.add(0, tags.pollLast());
+            }
+            Segment<T> segment = new Segment<>(half, costFun);
+            cost -= segment.cost;
+            return segment;
+        }
+
+    }
+
+}
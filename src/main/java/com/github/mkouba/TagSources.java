@@ -0,0 +1,60 @@
+package com.github.mkouba;
+
+import java.util.List;
+
+import com.github.mkouba.AnalyzeSourcesTask.ContentLoader;
+
+/**
+ * The java sources discovered for a tag, ready to be handed off to the parse stage.
+ */
+final class TagSources {
+
+    // Tag name and commit id are already set
+    private final Result result;
+    private final List<SourceFile> javaSources;
+    private final ContentLoader loader;
+    private final long foundFiles;
+    private final long start;
+    private final TagMetrics metrics;
+
+    TagSources(Result result, List<SourceFile> javaSources, ContentLoader loader, long foundFiles, long start,
+            TagMetrics metrics) {
+        this.result = result;
+        this.javaSources = javaSources;
+        this.loader = loader;
+        this.foundFiles = foundFiles;
+        this.start = start;
+        this.metrics = metrics;
+    }
+
+    Result getResult() {
+        return result;
+    }
+
+    List<SourceFile> getJavaSources() {
+        return javaSources;
+    }
+
+    ContentLoader getLoader() {
+        return loader;
+    }
+
+    /**
+     * @return the number of all files of the tag
+     */
+    long getFoundFiles() {
+        return foundFiles;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} when the analysis of the tag started
+     */
+    long getStart() {
+        return start;
+    }
+
+    TagMetrics getMetrics() {
+        return metrics;
+    }
+
+}
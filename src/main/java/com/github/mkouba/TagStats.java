@@ -0,0 +1,198 @@
+package com.github.mkouba;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Aggregates the {@link FileFacts} of all java source files of a tag.
+ * <p>
+ * The build items cannot be summed up per file; they are resolved from the classes of all files when requested. The
+ * names of the config items and build steps are counted, so that the facts of a removed file can be subtracted. The
+ * named counters of the custom facts are summed up.
+ */
+class TagStats {
+
+    private long javaSourceFiles;
+    private long testSourceFiles;
+    private long javaTypes;
+    private long testTypes;
+    private long parsed;
+    // The facts of the files that declare classes with a superclass
+    private final List<FileFacts> classes = new ArrayList<>();
+    // Null if not resolved yet
+    private List<String> buildItems;
+    private long buildSteps;
+    private long configItems;
+    // name -> number of occurrences
+    private final Map<String, Integer> buildStepNames = new HashMap<>();
+    private final Map<String, Integer> configItemNames = new HashMap<>();
+    // counter name -> sum
+    private final Map<String, Long> counters = new HashMap<>();
+    // The stats of the facts the lexical pre-filter would give; null unless the scanner is verified
+    private TagStats scannerStats;
+
+    /**
+     * @param test {@code true} if the source file is a test
+     * @param facts
+     * @see SourceFilter#isTest(String)
+     */
+    void add(boolean test, FileFacts facts) {
+        update(test, facts, 1);
+    }
+
+    /**
+     * Subtract the facts of a file that was previously added.
+     *
+     * @param test {@code true} if the source file is a test
+     * @param facts
+     */
+    void remove(boolean test, FileFacts facts) {
+        update(test, facts, -1);
+    }
+
+    /**
+     * @param other
+     * @return this instance with the values of the other stats added
+     */
+    TagStats merge(TagStats other) {
+        javaSourceFiles += other.javaSourceFiles;
+        testSourceFiles += other.testSourceFiles;
+        javaTypes += other.javaTypes;
+        testTypes += other.testTypes;
+        parsed += other.parsed;
+        if (!other.classes.isEmpty()) {
+            classes.addAll(other.classes);
+            buildItems = null;
+        }
+        buildSteps += other.buildSteps;
+        configItems += other.configItems;
+        other.buildStepNames.forEach((name, count) -> count(buildStepNames, name, count));
+        other.configItemNames.forEach((name, count) -> count(configItemNames, name, count));
+        other.counters.forEach(this::sum);
+        if (other.scannerStats != null) {
+            scannerStats().merge(other.scannerStats);
+        }
+        return this;
+    }
+
+    void incrementParsed() {
+        parsed++;
+    }
+
+    /**
+     * @param result
+     * @param names the table used to intern the names of the items
+     */
+    void apply(Result result, ItemNames names) {
+        result.setBuildItems(getBuildItems());
+        result.setBuildSteps(buildSteps);
+        result.setConfigItems(configItems);
+        result.setJavaSourceFiles(javaSourceFiles);
+        result.setJavaTypes(javaTypes);
+        result.setTestSourceFiles(testSourceFiles);
+        result.setTestTypes(testTypes);
+        result.setItems(TagItems.of(names, getBuildItemNames(), configItemNames.keySet(), buildStepNames.keySet()));
+        result.setCounters(new TreeMap<>(counters));
+    }
+
+    long getJavaSourceFiles() {
+        return javaSourceFiles;
+    }
+
+    long getJavaTypes() {
+        return javaTypes;
+    }
+
+    long getParsed() {
+        return parsed;
+    }
+
+    long getBuildItems() {
+        return getBuildItemNames().size();
+    }
+
+    /**
+     * @return the fully qualified names of the build items
+     */
+    List<String> getBuildItemNames() {
+        if (buildItems == null) {
+            buildItems = new TypeIndex(classes).getBuildItems();
+        }
+        return buildItems;
+    }
+
+    long getBuildSteps() {
+        return buildSteps;
+    }
+
+    Set<String> getBuildStepNames() {
+        return buildStepNames.keySet();
+    }
+
+    long getConfigItems() {
+        return configItems;
+    }
+
+    Set<String> getConfigItemNames() {
+        return configItemNames.keySet();
+    }
+
+    /**
+     * @return the stats of the facts the lexical pre-filter would give, or {@code null} if the scanner is not verified
+     * @see FileFacts#getScannerFacts()
+     */
+    TagStats getScannerStats() {
+        return scannerStats;
+    }
+
+    private void update(boolean test, FileFacts facts, int sign) {
+        javaSourceFiles += sign;
+        javaTypes += sign * facts.getJavaTypes();
+        if (test) {
+            testSourceFiles += sign;
+            testTypes += sign * facts.getJavaTypes();
+        }
+        if (!facts.getClasses().isEmpty()) {
+            if (sign > 0) {
+                classes.add(facts);
+            } else {
+                classes.remove(facts);
+            }
+            buildItems = null;
+        }
+        configItems += sign * facts.getConfigItems().size();
+        buildSteps += sign * facts.getBuildSteps().size();
+        for (String name : facts.getConfigItems()) {
+            count(configItemNames, name, sign);
+        }
+        for (String name : facts.getBuildSteps()) {
+            count(buildStepNames, name, sign);
+        }
+        facts.getCounters().forEach((name, value) -> sum(name, sign * value));
+        if (facts.getScannerFacts() != null) {
+            scannerStats().update(test, facts.getScannerFacts(), sign);
+        }
+    }
+
+    private TagStats scannerStats() {
+        if (scannerStats == null) {
+            scannerStats = new TagStats();
+        }
+        return scannerStats;
+    }
+
+    private void sum(String counter, long delta) {
+        // The counter is removed once the sum drops to zero
+        counters.merge(counter, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    private static void count(Map<String, Integer> names, String name, int delta) {
+        // The name is removed once the count drops to zero
+        names.merge(name, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+}
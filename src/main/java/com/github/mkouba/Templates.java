@@ -8,6 +8,8 @@ import io.quarkus.qute.TemplateInstance;
 @CheckedTemplate
 public class Templates {
 
-    static native TemplateInstance report(List<Result> results);
+    static native TemplateInstance report(String dataset, List<ItemDiff> diffs);
+
+    static native TemplateInstance combined(List<RepositoryResults> repositories, Result total);
 
 }
@@ -0,0 +1,97 @@
+package com.github.mkouba;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the classes declared in the java sources of a tag.
+ * <p>
+ * A build item is a final class that extends {@code SimpleBuildItem}, {@code MultiBuildItem} or {@code EmptyBuildItem}
+ * either directly or through any number of intermediate classes. Each class is assigned an int id; the resolved
+ * superclass and the memoized result of the build item check are kept in primitive arrays indexed by the id.
+ */
+final class TypeIndex {
+
+    // The superclass is not declared in the tag, e.g. a JDK class or a class from a dependency
+    private static final int UNKNOWN = -1;
+    // The superclass is one of the build item base classes
+    private static final int BUILD_ITEM_BASE = -2;
+
+    private static final byte UNRESOLVED = 0;
+    private static final byte IN_PROGRESS = 1;
+    private static final byte BUILD_ITEM = 2;
+    private static final byte NOT_BUILD_ITEM = 3;
+
+    private final DeclaredClass[] classes;
+    // id -> id of the superclass, UNKNOWN or BUILD_ITEM_BASE
+    private final int[] superclasses;
+    // id -> the result of the build item check
+    private final byte[] states;
+
+    /**
+     * @param facts the facts of all java source files of a tag
+     */
+    TypeIndex(Collection<FileFacts> facts) {
+        List<DeclaredClass> declared = new ArrayList<>();
+        for (FileFacts fileFacts : facts) {
+            declared.addAll(fileFacts.getClasses());
+        }
+        this.classes = declared.toArray(new DeclaredClass[0]);
+        // FQCN -> id; if a class is declared multiple times, e.g. in a test module, the first declaration wins
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < classes.length; i++) {
+            ids.putIfAbsent(classes[i].getName(), i);
+        }
+        this.superclasses = new int[classes.length];
+        for (int i = 0; i < classes.length; i++) {
+            superclasses[i] = resolveSuperclass(classes[i], ids);
+        }
+        this.states = new byte[classes.length];
+    }
+
+    /**
+     * @return the fully qualified names of all build items
+     */
+    List<String> getBuildItems() {
+        List<String> buildItems = new ArrayList<>();
+        for (int i = 0; i < classes.length; i++) {
+            if (classes[i].isFinal() && isBuildItem(i)) {
+                buildItems.add(classes[i].getName());
+            }
+        }
+        return buildItems;
+    }
+
+    static boolean isBuildItemBase(String name) {
+        return FactExtractors.OLD_BUILD_ITEM_NAMES.contains(name) || FactExtractors.NEW_BUILD_ITEM_NAMES.contains(name);
+    }
+
+    private boolean isBuildItem(int id) {
+        if (states[id] != UNRESOLVED) {
+            // IN_PROGRESS means a cycle which is only possible in a source that does not compile
+            return states[id] == BUILD_ITEM;
+        }
+        states[id] = IN_PROGRESS;
+        int superclass = superclasses[id];
+        boolean buildItem = superclass == BUILD_ITEM_BASE || (superclass != UNKNOWN && isBuildItem(superclass));
+        states[id] = buildItem ? BUILD_ITEM : NOT_BUILD_ITEM;
+        return buildItem;
+    }
+
+    private static int resolveSuperclass(DeclaredClass clazz, Map<String, Integer> ids) {
+        for (String candidate : clazz.getSuperclassCandidates()) {
+            if (isBuildItemBase(candidate)) {
+                return BUILD_ITEM_BASE;
+            }
+            Integer id = ids.get(candidate);
+            if (id != null) {
+                return id;
+            }
+        }
+        return UNKNOWN;
+    }
+
+}
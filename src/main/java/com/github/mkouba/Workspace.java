@@ -0,0 +1,213 @@
+package com.github.mkouba;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.BatchRefUpdate;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.FetchResult;
+import org.eclipse.jgit.transport.ReceiveCommand;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.TagOpt;
+import org.eclipse.jgit.transport.TrackingRefUpdate;
+import org.jboss.logging.Logger;
+
+/**
+ * Manages the main clone and the worker repositories used in the checkout mode.
+ * <p>
+ * A worker repository does not contain any objects. Instead, it borrows the object store of the main clone via
+ * {@code objects/info/alternates}, and so only the working files are duplicated. The tags are copied from the main
+ * clone whenever the workers are prepared. Therefore, the new tags fetched into the main clone are propagated to the
+ * workers without copying any objects.
+ * <p>
+ * Note that the main clone must never be garbage collected with pruning; the workers would lose the objects they
+ * reference.
+ */
+final class Workspace {
+
+    private static final Logger LOG = Logger.getLogger(Workspace.class);
+
+    private Workspace() {
+    }
+
+    /**
+     * Clone the repository unless the directory already exists.
+     *
+     * @param uri
+     * @param repoDir
+     */
+    static void cloneIfMissing(String uri, Path repoDir) {
+        if (Files.exists(repoDir)) {
+            return;
+        }
+        LOG.infof("Clone %s into %s", uri, repoDir);
+        long start = System.nanoTime();
+        try {
+            Git.cloneRepository()
+                    .setURI(uri)
+                    .setDirectory(repoDir.toFile())
+                    .call()
+                    .close();
+        } catch (GitAPIException e) {
+            throw new IllegalStateException("Unable to clone the repo in: " + repoDir, e);
+        }
+        LOG.infof("Cloned into %s in %s s", repoDir.toAbsolutePath(),
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+    }
+
+    /**
+     * Fetch the new branches and tags into the existing clone, or clone the repository if the directory does not exist.
+     * The tags that were deleted or moved in the remote repository are deleted or moved in the clone as well.
+     *
+     * @param uri
+     * @param repoDir
+     * @return the names of the new and moved tags, e.g. {@code 2.1.0.Final}
+     */
+    static List<String> fetch(String uri, Path repoDir) {
+        if (!Files.exists(repoDir)) {
+            cloneIfMissing(uri, repoDir);
+            return List.of();
+        }
+        LOG.infof("Fetch %s into %s", uri, repoDir);
+        long start = System.nanoTime();
+        FetchResult result;
+        try (Git git = Git.open(repoDir.toFile())) {
+            result = git.fetch()
+                    .setRemote(uri)
+                    .setRefSpecs(new RefSpec("+" + Constants.R_HEADS + "*:" + Constants.R_REMOTES
+                            + Constants.DEFAULT_REMOTE_NAME + "/*"),
+                            new RefSpec("+" + Constants.R_TAGS + "*:" + Constants.R_TAGS + "*"))
+                    .setTagOpt(TagOpt.NO_TAGS)
+                    .setRemoveDeletedRefs(true)
+                    .call();
+        } catch (IOException | GitAPIException e) {
+            throw new IllegalStateException("Unable to fetch into the repo: " + repoDir, e);
+        }
+        List<String> tags = new ArrayList<>();
+        int deleted = 0;
+        for (TrackingRefUpdate update : result.getTrackingRefUpdates()) {
+            if (update.getLocalName().startsWith(Constants.R_TAGS)) {
+                if (update.getNewObjectId().equals(ObjectId.zeroId())) {
+                    deleted++;
+                } else {
+                    tags.add(Repository.shortenRefName(update.getLocalName()));
+                }
+            }
+        }
+        LOG.infof("Fetched %s new or moved tags and %s deleted tags into %s in %s ms: %s", tags.size(), deleted, repoDir,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), tags);
+        return tags;
+    }
+
+    /**
+     * Create the missing worker repositories and synchronize the tags of the existing ones with the main clone. The workers are prepared
+     * concurrently.
+     *
+     * @param mainRepoDir the main clone
+     * @param workerDirs
+     * @param executor
+     */
+    static void prepareWorkers(Path mainRepoDir, List<Path> workerDirs, ExecutorService executor) {
+        if (workerDirs.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        Map<String, Ref> tags;
+        Path objectsDir;
+        try (Git main = Git.open(mainRepoDir.toFile())) {
+            tags = main.getRepository().getRefDatabase().getRefsByPrefix(Constants.R_TAGS).stream()
+                    .collect(Collectors.toMap(Ref::getName, r -> r));
+            objectsDir = main.getRepository().getDirectory().toPath().resolve("objects").toAbsolutePath();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to open the repo: " + mainRepoDir, e);
+        }
+
+        List<Future<?>> futures = new ArrayList<>(workerDirs.size());
+        for (Path workerDir : workerDirs) {
+            futures.add(executor.submit(() -> {
+                prepareWorker(workerDir, objectsDir, tags);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Unable to prepare the worker repositories", e.getCause());
+            }
+        }
+        LOG.infof("Prepared %s worker repositories in %s ms", workerDirs.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static void prepareWorker(Path workerDir, Path objectsDir, Map<String, Ref> tags)
+            throws IOException, GitAPIException {
+        if (!Files.exists(workerDir)) {
+            LOG.infof("Create worker repository %s sharing objects with %s", workerDir, objectsDir);
+            Git.init().setDirectory(workerDir.toFile()).call().close();
+            Path alternates = workerDir.resolve(Constants.DOT_GIT).resolve("objects").resolve("info")
+                    .resolve("alternates");
+            Files.createDirectories(alternates.getParent());
+            Files.write(alternates, (objectsDir.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        // The repository must be reopened so that the alternates are picked up
+        try (Git worker = Git.open(workerDir.toFile())) {
+            syncTags(worker.getRepository(), tags);
+        }
+    }
+
+    private static void syncTags(Repository worker, Map<String, Ref> tags) throws IOException {
+        RefDatabase refDatabase = worker.getRefDatabase();
+        BatchRefUpdate update = refDatabase.newBatchUpdate();
+        update.setAllowNonFastForwards(true);
+        for (Ref tag : tags.values()) {
+            Ref existing = refDatabase.exactRef(tag.getName());
+            ObjectId oldId = existing != null ? existing.getObjectId() : ObjectId.zeroId();
+            if (!tag.getObjectId().equals(oldId)) {
+                update.addCommand(new ReceiveCommand(oldId, tag.getObjectId(), tag.getName()));
+            }
+        }
+        // The tags deleted from the main clone
+        for (Ref existing : refDatabase.getRefsByPrefix(Constants.R_TAGS)) {
+            if (!tags.containsKey(existing.getName())) {
+                update.addCommand(new ReceiveCommand(existing.getObjectId(), ObjectId.zeroId(), existing.getName()));
+            }
+        }
+        if (update.getCommands().isEmpty()) {
+            return;
+        }
+        try (RevWalk revWalk = new RevWalk(worker)) {
+            update.execute(revWalk, NullProgressMonitor.INSTANCE);
+        }
+        for (ReceiveCommand command : update.getCommands()) {
+            if (command.getResult() != ReceiveCommand.Result.OK) {
+                throw new IllegalStateException(
+                        "Unable to update " + command.getRefName() + " in " + worker.getDirectory() + ": "
+                                + command.getResult());
+            }
+        }
+        LOG.debugf("Synchronized %s tags in %s", update.getCommands().size(), worker.getDirectory());
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+
+public class AnalysisPipelineTest {
+
+    private static final Duration MAX_WAIT = Duration.ofSeconds(10);
+
+    @Test
+    public void testNoTags() {
+        AnalysisPipeline pipeline = new AnalysisPipeline(0, 1, 0);
+        assertTrue(pipeline.isDone());
+        assertTimeoutPreemptively(MAX_WAIT, () -> pipeline.await(0));
+    }
+
+    @Test
+    public void testResults() {
+        AnalysisPipeline pipeline = new AnalysisPipeline(2, 1, 0);
+        List<Result> results = new CopyOnWriteArrayList<>();
+        pipeline.dispatch("1.0.0.Final", results).complete(result("1.0.0.Final"));
+        assertEquals(1, results.size());
+        assertFalse(pipeline.isDone());
+        pipeline.dispatch("1.1.0.Final", results).complete(result("1.1.0.Final"));
+        assertTrue(pipeline.isDone());
+        assertTimeoutPreemptively(MAX_WAIT, () -> pipeline.await(0));
+        assertEquals(2, results.size());
+    }
+
+    @Test
+    public void testWorkerFailure() throws InterruptedException {
+        AnalysisPipeline pipeline = new AnalysisPipeline(2, 1, 0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<Result> future = pipeline.dispatch("1.0.0.Final", new CopyOnWriteArrayList<>());
+            pipeline.<Result> handOff(() -> {
+                throw new IllegalArgumentException("Parse error");
+            }, executor).whenComplete((r, e) -> future.completeExceptionally(e));
+            // The other tag is never completed but the run fails immediately
+            pipeline.dispatch("1.1.0.Final", new CopyOnWriteArrayList<>());
+            IllegalStateException e = assertThrows(IllegalStateException.class,
+                    () -> assertTimeoutPreemptively(MAX_WAIT, () -> pipeline.await(0)));
+            assertEquals("Unable to analyze 1.0.0.Final", e.getMessage());
+            assertEquals("Parse error", e.getCause().getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testTagTimeout() {
+        AnalysisPipeline pipeline = new AnalysisPipeline(1, 1, 50);
+        // The future is never completed
+        pipeline.dispatch("1.0.0.Final", new CopyOnWriteArrayList<>());
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> assertTimeoutPreemptively(MAX_WAIT, () -> pipeline.await(0)));
+        assertEquals("Analysis of 1.0.0.Final timed out", e.getMessage());
+        assertTrue(e.getCause() instanceof TimeoutException);
+    }
+
+    @Test
+    public void testRunTimeout() {
+        AnalysisPipeline pipeline = new AnalysisPipeline(1, 1, 0);
+        pipeline.dispatch("1.0.0.Final", new CopyOnWriteArrayList<>());
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> assertTimeoutPreemptively(MAX_WAIT, () -> pipeline.await(50)));
+        assertEquals("Analysis timed out; 1 tags were not analyzed", e.getMessage());
+    }
+
+    @Test
+    public void testBlockedHandOffWakesUpOnFailure() throws InterruptedException {
+        AnalysisPipeline pipeline = new AnalysisPipeline(2, 1, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch blocked = new CountDownLatch(1);
+        try {
+            // Takes the only hand-off permit
+            pipeline.handOff(() -> {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }, executor);
+            CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> {
+                try {
+                    pipeline.handOff(() -> null, executor);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            pipeline.fail(new IllegalStateException("Failed"));
+            assertTimeoutPreemptively(MAX_WAIT, () -> {
+                Throwable failure = assertThrows(Exception.class, waiting::join).getCause();
+                assertTrue(failure instanceof CancellationException, String.valueOf(failure));
+            });
+        } finally {
+            blocked.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static Result result(String tag) {
+        Result result = new Result();
+        result.setTagName(tag);
+        return result;
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.mkouba.TagItems.Kind;
+
+public class AnalysisServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testSharedAnalysis() throws IOException, GitAPIException {
+        try (Git git = Git.init().setDirectory(tempDir.toFile()).call()) {
+            write("core/src/main/java/org/acme/FooBuildItem.java", "package org.acme;\n"
+                    + "import io.quarkus.builder.item.SimpleBuildItem;\n"
+                    + "public final class FooBuildItem extends SimpleBuildItem {}");
+            write("core/src/test/java/org/acme/FooTest.java", "package org.acme;\nclass FooTest {}");
+            RevCommit first = commit(git, "1.0.0.Final");
+            write("core/src/main/java/org/acme/Bar.java", "package org.acme;\nclass Bar {}\ninterface Baz {}");
+            commit(git, "1.1.0.Final");
+
+            try (AnalysisService service = new AnalysisService(git.getRepository(), new SourceAnalyzer(),
+                    SourceFilter.defaults(), 2)) {
+                assertEquals(List.of("1.0.0.Final", "1.1.0.Final"), service.getTags());
+                assertNull(service.analyze("2.0.0.Final"));
+
+                // The tag and the commit id share a single analysis
+                CompletableFuture<Result> tag = service.analyze("1.0.0.Final");
+                CompletableFuture<Result> commit = service.analyze(first.name());
+                Result tagResult = tag.join();
+                Result commitResult = commit.join();
+                assertEquals(1, service.getAnalyses());
+                assertEquals("1.0.0.Final", tagResult.getTagName());
+                assertEquals(first.name(), commitResult.getTagName());
+                assertEquals(first.name(), tagResult.getCommitId());
+                assertEquals(2, tagResult.getJavaSourceFiles());
+                assertEquals(1, tagResult.getTestSourceFiles());
+                assertEquals(1, tagResult.getBuildItems());
+                assertEquals(1, commitResult.getBuildItems());
+
+                // A branch that points to the same commit as a tag
+                Result head = service.analyze("master").join();
+                assertEquals(2, service.getAnalyses());
+                assertEquals("master", head.getTagName());
+                assertEquals(4, head.getJavaTypes());
+                service.analyze("refs/tags/1.1.0.Final").join();
+                assertEquals(2, service.getAnalyses());
+            }
+        }
+    }
+
+    @Test
+    public void testMaxResults() throws IOException, GitAPIException {
+        try (Git git = Git.init().setDirectory(tempDir.toFile()).call()) {
+            write("core/src/main/java/org/acme/Foo.java", "package org.acme;\nclass Foo {}");
+            commit(git, "1.0.0.Final");
+            write("core/src/main/java/org/acme/Bar.java", "package org.acme;\nclass Bar {}");
+            commit(git, "1.1.0.Final");
+
+            try (AnalysisService service = new AnalysisService(git.getRepository(), new SourceAnalyzer(),
+                    SourceFilter.defaults(), 1, 10, 1, AnalysisService.DEFAULT_MAX_ITEM_NAMES)) {
+                service.analyze("1.0.0.Final").join();
+                service.analyze("1.0.0.Final").join();
+                assertEquals(1, service.getAnalyses());
+                // Evicts the result of 1.0.0.Final
+                assertEquals(2, service.analyze("1.1.0.Final").join().getJavaSourceFiles());
+                service.analyze("1.1.0.Final").join();
+                assertEquals(2, service.getAnalyses());
+                assertEquals(1, service.analyze("1.0.0.Final").join().getJavaSourceFiles());
+                assertEquals(3, service.getAnalyses());
+            }
+        }
+    }
+
+    @Test
+    public void testItemNamesTable() throws IOException, GitAPIException {
+        try (Git git = Git.init().setDirectory(tempDir.toFile()).call()) {
+            write("core/src/main/java/org/acme/FooBuildItem.java", "package org.acme;\n"
+                    + "import io.quarkus.builder.item.SimpleBuildItem;\n"
+                    + "public final class FooBuildItem extends SimpleBuildItem {}");
+            commit(git, "1.0.0.Final");
+            write("core/src/main/java/org/acme/BarBuildItem.java", "package org.acme;\n"
+                    + "import io.quarkus.builder.item.MultiBuildItem;\n"
+                    + "public final class BarBuildItem extends MultiBuildItem {}");
+            commit(git, "1.1.0.Final");
+
+            try (AnalysisService service = new AnalysisService(git.getRepository(), new SourceAnalyzer(),
+                    SourceFilter.defaults(), 1, 10, 10, 1)) {
+                Result first = service.analyze("1.0.0.Final").join();
+                // The table holds one name and so the next analysis gets a new table
+                Result second = service.analyze("1.1.0.Final").join();
+                assertNotSame(first.getItems().getItemNames(), second.getItems().getItemNames());
+                assertEquals(List.of("org.acme.FooBuildItem"), first.getItems().getNames(Kind.BUILD_ITEM));
+                assertEquals(List.of("org.acme.BarBuildItem", "org.acme.FooBuildItem"),
+                        second.getItems().getNames(Kind.BUILD_ITEM));
+                List<ItemDiff> diffs = ItemDiff.between(List.of(first, second));
+                assertEquals(1, diffs.size());
+                assertEquals(List.of("org.acme.BarBuildItem"), diffs.get(0).getBuildItems().getAdded());
+                assertEquals(List.of(), diffs.get(0).getBuildItems().getRemoved());
+            }
+        }
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = tempDir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static RevCommit commit(Git git, String tag) throws GitAPIException {
+        git.add().addFilepattern(".").call();
+        RevCommit commit = git.commit().setMessage(tag).setAuthor("test", "test@acme.org")
+                .setCommitter("test", "test@acme.org").setSign(false).call();
+        git.tag().setName(tag).call();
+        return commit;
+    }
+
+}
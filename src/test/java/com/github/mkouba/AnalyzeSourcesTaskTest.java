@@ -0,0 +1,117 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.junit.jupiter.api.Test;
+
+import com.github.mkouba.TagItems.Kind;
+
+public class AnalyzeSourcesTaskTest {
+
+    private static final int FILES = 4 * AnalyzeSourcesTask.THRESHOLD - 8;
+
+    @Test
+    public void testSplitMatchesSequentialPass() {
+        Map<String, byte[]> contents = new HashMap<>();
+        List<SourceFile> sources = new ArrayList<>();
+        ObjectInserter.Formatter formatter = new ObjectInserter.Formatter();
+        for (int i = 0; i < FILES; i++) {
+            String path;
+            String content;
+            if (i == 0) {
+                // The superclass is analyzed by the first leaf task...
+                path = "core/src/main/java/org/acme/BaseBuildItem.java";
+                content = "package org.acme;\n"
+                        + "import io.quarkus.builder.item.MultiBuildItem;\n"
+                        + "public abstract class BaseBuildItem extends MultiBuildItem {}";
+            } else if (i == FILES - 1) {
+                // ...and the subclass by the last one
+                path = "core/src/main/java/org/acme/LastBuildItem.java";
+                content = "package org.acme;\npublic final class LastBuildItem extends BaseBuildItem {}";
+            } else if (i % 10 == 1) {
+                path = "core/src/main/java/org/acme/Processor" + i + ".java";
+                content = "package org.acme;\n"
+                        + "import io.quarkus.deployment.annotations.BuildStep;\n"
+                        + "class Processor" + i + " {\n"
+                        + "  @BuildStep Simple" + (i - 1) + "BuildItem produce() { return null; }\n"
+                        + "}";
+            } else if (i % 10 == 2) {
+                path = "core/src/main/java/org/acme/Config" + i + ".java";
+                content = "package org.acme;\n"
+                        + "import io.quarkus.runtime.annotations.ConfigItem;\n"
+                        + "class Config" + i + " {\n"
+                        + "  @ConfigItem public String name;\n"
+                        + "}";
+            } else if (i % 10 == 3) {
+                path = "core/src/test/java/org/acme/Foo" + i + "Test.java";
+                content = "package org.acme;\nclass Foo" + i + "Test {}";
+            } else if (i % 10 == 4) {
+                path = "core/src/main/java/org/acme/Simple" + i + "BuildItem.java";
+                content = "package org.acme;\n"
+                        + "import io.quarkus.builder.item.SimpleBuildItem;\n"
+                        + "public final class Simple" + i + "BuildItem extends SimpleBuildItem {}";
+            } else if (i % 10 == 5) {
+                // The same blob in every leaf task
+                path = "module" + i + "/src/main/java/org/acme/Shared.java";
+                content = "package org.acme;\nclass Shared {}\ninterface SharedApi {}";
+            } else {
+                path = "core/src/main/java/org/acme/Foo" + i + ".java";
+                content = "package org.acme;\nclass Foo" + i + " extends Foo" + (i - 1) + " {}";
+            }
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            contents.put(path, bytes);
+            sources.add(new SourceFile(path, formatter.idFor(Constants.OBJ_BLOB, bytes), path.contains("/src/test/")));
+        }
+        assertTrue(sources.size() > 2 * AnalyzeSourcesTask.THRESHOLD);
+
+        SourceAnalyzer analyzer = new SourceAnalyzer();
+        TagStats sequential = new TagStats();
+        for (SourceFile source : sources) {
+            sequential.add(source.isTest(), analyzer.analyze(source.getPath(), contents.get(source.getPath()), null));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Map<String, FileFacts> factsByPath = new ConcurrentHashMap<>();
+        TagStats split;
+        try {
+            split = pool.invoke(new AnalyzeSourcesTask(sources, source -> contents.get(source.getPath()), analyzer,
+                    new FileFactsCache(), factsByPath, null));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(FILES, factsByPath.size());
+
+        Result expected = new Result();
+        sequential.apply(expected, new ItemNames());
+        Result actual = new Result();
+        split.apply(actual, new ItemNames());
+        assertEquals(FILES, actual.getJavaSourceFiles());
+        assertEquals(expected.getJavaSourceFiles(), actual.getJavaSourceFiles());
+        assertEquals(expected.getJavaTypes(), actual.getJavaTypes());
+        assertEquals(expected.getTestSourceFiles(), actual.getTestSourceFiles());
+        assertEquals(expected.getTestTypes(), actual.getTestTypes());
+        assertEquals(expected.getBuildItems(), actual.getBuildItems());
+        assertEquals(expected.getBuildSteps(), actual.getBuildSteps());
+        assertEquals(expected.getConfigItems(), actual.getConfigItems());
+        for (Kind kind : Kind.values()) {
+            assertEquals(expected.getItems().getNames(kind), actual.getItems().getNames(kind), kind.toString());
+        }
+        // The subclass is resolved across the leaf tasks; the abstract superclass is not a build item
+        List<String> buildItems = actual.getItems().getNames(Kind.BUILD_ITEM);
+        assertTrue(buildItems.contains("org.acme.LastBuildItem"), buildItems.toString());
+        assertEquals(sequential.getBuildItems(), buildItems.size());
+        assertEquals(13, buildItems.size());
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdRef;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.jupiter.api.Test;
+
+public class AnalyzeTest {
+
+    @Test
+    public void testChainsMixedTags() {
+        List<Ref> tags = new ArrayList<>();
+        for (String name : List.of("v1.0.0", "2.0.0.Final", "quarkus-foo-1.0", "1.0.0.Final", "1.1.0.CR1")) {
+            tags.add(new ObjectIdRef.Unpeeled(Ref.Storage.LOOSE, Constants.R_TAGS + name, ObjectId.zeroId()));
+        }
+        List<List<String>> chains = Analyze.chains(tags, 2).stream()
+                .map(chain -> chain.stream().map(t -> Repository.shortenRefName(t.getName()))
+                        .collect(Collectors.toList()))
+                .collect(Collectors.toList());
+        // The versions are sorted first, the other tags follow in alphabetical order
+        assertEquals(List.of(List.of("1.0.0.Final", "1.1.0.CR1"), List.of("2.0.0.Final", "quarkus-foo-1.0", "v1.0.0")),
+                chains);
+    }
+
+    @Test
+    public void testUpdateRequiresStore() {
+        Analyze analyze = new Analyze();
+        analyze.update = true;
+        analyze.noStore = true;
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, analyze::run);
+        assertEquals("The --update option requires the results store; it cannot be combined with --no-store",
+                e.getMessage());
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class AnalyzedRepositoryTest {
+
+    private static final Path WORK = Path.of("work");
+    private static final Path REPORTS = WORK.resolve("reports");
+
+    @Test
+    public void testSpec() {
+        AnalyzedRepository github = AnalyzedRepository.of("quarkiverse/quarkus-foo", WORK, REPORTS);
+        assertEquals("quarkus-foo", github.getName());
+        assertEquals("https://github.com/quarkiverse/quarkus-foo.git", github.getUri());
+        assertEquals(WORK.resolve("quarkus-foo").resolve("_0"), github.getMainDir());
+        assertEquals(REPORTS.resolve("quarkus-foo"), github.getReportsDir());
+        assertEquals(WORK.resolve("quarkus-foo").resolve("results.db"), github.getStoreFile());
+        assertEquals("quarkus-foo/1.0.0", github.qualify("1.0.0"));
+
+        assertEquals("bar", AnalyzedRepository.of("file:///tmp/repos/bar/", WORK, REPORTS).getName());
+        assertEquals("baz", AnalyzedRepository.of("/tmp/repos/baz.git", WORK, REPORTS).getName());
+        assertEquals("quarkus-qux", AnalyzedRepository.of("git@github.com:quarkiverse/quarkus-qux.git", WORK, REPORTS)
+                .getName());
+        assertThrows(IllegalArgumentException.class, () -> AnalyzedRepository.of("quarkus", WORK, REPORTS));
+        assertThrows(IllegalArgumentException.class, () -> AnalyzedRepository.of("a/b/c", WORK, REPORTS));
+    }
+
+    @Test
+    public void testInterleave() {
+        assertEquals(List.of("a1", "b1", "c1", "a2", "c2", "a3"),
+                Analyze.interleave(List.of(List.of("a1", "a2", "a3"), List.of("b1"), List.of("c1", "c2"))));
+        assertEquals(List.of(), Analyze.interleave(List.of(List.of(), List.of())));
+    }
+
+}
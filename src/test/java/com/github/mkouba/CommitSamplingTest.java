@@ -0,0 +1,55 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class CommitSamplingTest {
+
+    @Test
+    public void testParse() {
+        assertEquals("every 10 commits", CommitSampling.parse("10").toString());
+        assertEquals("daily", CommitSampling.parse("daily").toString());
+        assertEquals("weekly", CommitSampling.parse(" weekly").toString());
+        assertThrows(IllegalArgumentException.class, () -> CommitSampling.parse("0"));
+        assertThrows(IllegalArgumentException.class, () -> CommitSampling.parse("monthly"));
+    }
+
+    @Test
+    public void testEveryN() {
+        List<Integer> commits = List.of(1, 2, 3, 4, 5, 6, 7);
+        // The newest commit is always selected
+        assertEquals(List.of(1, 4, 7), CommitSampling.parse("3").select(commits, c -> 0));
+        assertEquals(List.of(2, 4, 6), CommitSampling.parse("2").select(List.of(1, 2, 3, 4, 5, 6), c -> 0));
+        assertEquals(commits, CommitSampling.parse("1").select(commits, c -> 0));
+        assertEquals(List.of(7), CommitSampling.parse("100").select(commits, c -> 0));
+        assertEquals(List.of(), CommitSampling.parse("3").select(List.<Integer> of(), c -> 0));
+    }
+
+    @Test
+    public void testPeriods() {
+        // Monday 2023-05-01 .. Tuesday 2023-05-09
+        List<Integer> commits = List.of(
+                time("2023-05-01T08:00"),
+                time("2023-05-01T17:00"),
+                time("2023-05-03T10:00"),
+                // Commit times are not monotonic
+                time("2023-05-02T23:00"),
+                time("2023-05-07T23:59"),
+                time("2023-05-08T00:00"),
+                time("2023-05-09T12:00"));
+        assertEquals(List.of(commits.get(1), commits.get(2), commits.get(3), commits.get(4), commits.get(5),
+                commits.get(6)), CommitSampling.parse("daily").select(commits, c -> c));
+        assertEquals(List.of(commits.get(4), commits.get(6)), CommitSampling.parse("weekly").select(commits, c -> c));
+    }
+
+    private static int time(String dateTime) {
+        return (int) LocalDateTime.parse(dateTime).toEpochSecond(ZoneOffset.UTC);
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class ConcurrencyControllerTest {
+
+    private static final long INTERVAL = ConcurrencyController.ADJUST_INTERVAL;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong gcTime = new AtomicLong();
+    private final AtomicLong liveHeap = new AtomicLong();
+
+    @Test
+    public void testGcPressure() {
+        ConcurrencyController controller = controller(8, Long.MAX_VALUE);
+        assertEquals(8, controller.getLimit());
+        controller.acquire(100);
+        clock.addAndGet(INTERVAL);
+        // Half of the interval spent in GC
+        gcTime.addAndGet(TimeUnit.NANOSECONDS.toMillis(INTERVAL / 2));
+        controller.release(100);
+        assertEquals(4, controller.getLimit());
+        assertEquals(4, controller.getMinLimitReached());
+        assertEquals(1, controller.getAdjustments());
+    }
+
+    @Test
+    public void testIncreaseAndStepBack() {
+        ConcurrencyController controller = controller(4, Long.MAX_VALUE);
+        controller.acquire(100);
+        clock.addAndGet(INTERVAL);
+        gcTime.addAndGet(TimeUnit.NANOSECONDS.toMillis(INTERVAL));
+        controller.release(100);
+        assertEquals(2, controller.getLimit());
+
+        // All parses in progress - the limit grows; the bytes released after an adjustment count in the next interval
+        controller.acquire(2000);
+        controller.acquire(0);
+        clock.addAndGet(INTERVAL);
+        controller.release(2000);
+        controller.release(0);
+        assertEquals(3, controller.getLimit());
+
+        // The throughput dropped after the increase - step back
+        controller.acquire(100);
+        controller.acquire(100);
+        controller.acquire(100);
+        clock.addAndGet(INTERVAL);
+        controller.release(100);
+        controller.release(100);
+        controller.release(100);
+        assertEquals(2, controller.getLimit());
+
+        // Hold the limit
+        controller.acquire(100);
+        controller.acquire(100);
+        clock.addAndGet(INTERVAL);
+        controller.release(100);
+        controller.release(100);
+        assertEquals(2, controller.getLimit());
+    }
+
+    @Test
+    public void testBudget() throws InterruptedException {
+        // Two files of 50 bytes do not fit the budget
+        ConcurrencyController controller = controller(4, 50 * ConcurrencyController.AST_FACTOR + 1);
+        controller.acquire(50);
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            controller.acquire(50);
+            acquired.countDown();
+            controller.release(50);
+        });
+        thread.start();
+        assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+        controller.release(50);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        thread.join();
+    }
+
+    @Test
+    public void testHeadroom() throws InterruptedException {
+        liveHeap.set(2000);
+        ConcurrencyController controller = controller(4, 1000);
+        // Nothing would free the heap - do not block
+        controller.awaitHeadroom(() -> false);
+        controller.acquire(10);
+        // Block until cancelled
+        controller.awaitHeadroom(() -> clock.addAndGet(1) > 3);
+        assertTrue(controller.getThrottled() > 0);
+        controller.release(10);
+    }
+
+    private ConcurrencyController controller(int maxLimit, long budget) {
+        return new ConcurrencyController(maxLimit, budget, liveHeap::get, gcTime::get, clock::get);
+    }
+
+}
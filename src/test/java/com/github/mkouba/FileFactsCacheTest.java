@@ -0,0 +1,47 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.Test;
+
+public class FileFactsCacheTest {
+
+    @Test
+    public void testBounded() {
+        FileFactsCache cache = new FileFactsCache(6);
+        FileFacts facts = new FileFacts(1, List.of(), List.of(), List.of());
+        cache.put(id(1), facts);
+        cache.put(id(2), facts);
+        cache.put(id(3), facts);
+        // Moves 1 to the current generation
+        assertNotNull(cache.get(id(1)));
+        cache.put(id(4), facts);
+        cache.put(id(5), facts);
+        assertTrue(cache.size() <= 6);
+        // Recently used
+        assertNotNull(cache.get(id(1)));
+        assertNotNull(cache.get(id(5)));
+        // Evicted
+        assertNull(cache.get(id(2)));
+        assertNull(cache.get(id(3)));
+        assertEquals(2, cache.getEvictions());
+
+        FileFactsCache unbounded = new FileFactsCache();
+        for (int i = 0; i < 1000; i++) {
+            unbounded.put(id(i), facts);
+        }
+        assertEquals(1000, unbounded.size());
+        assertEquals(0, unbounded.getEvictions());
+    }
+
+    private static ObjectId id(int value) {
+        return ObjectId.fromString(String.format("%040x", value));
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.mkouba.TagItems.Kind;
+
+public class ItemDiffTest {
+
+    private static final ItemNames NAMES = new ItemNames();
+
+    @Test
+    public void testInterning() {
+        TagItems items1 = TagItems.of(NAMES,
+                List.of("org.acme.BarBuildItem", "org.acme.FooBuildItem", "org.acme.BarBuildItem"), List.of(),
+                List.of());
+        TagItems items2 = TagItems.of(NAMES, List.of("org.acme.FooBuildItem", "org.acme.BarBuildItem"), List.of(),
+                List.of());
+        // Duplicates are ignored and the same names get the same ids
+        assertEquals(2, items1.getIds(Kind.BUILD_ITEM).length);
+        assertEquals(items1.getIds(Kind.BUILD_ITEM)[0], items2.getIds(Kind.BUILD_ITEM)[0]);
+        assertEquals(items1.getIds(Kind.BUILD_ITEM)[1], items2.getIds(Kind.BUILD_ITEM)[1]);
+        assertSame(NAMES.name(items1.getIds(Kind.BUILD_ITEM)[0]), NAMES.name(items2.getIds(Kind.BUILD_ITEM)[0]));
+        assertEquals(List.of("org.acme.BarBuildItem", "org.acme.FooBuildItem"), items2.getNames(Kind.BUILD_ITEM));
+    }
+
+    @Test
+    public void testBetween() {
+        Result first = result("1.0.0.Final", List.of("org.acme.ABuildItem", "org.acme.BBuildItem"),
+                List.of("org.acme.FooConfig.name"));
+        // No items, e.g. loaded from an old store
+        Result skipped = new Result();
+        skipped.setTagName("1.0.1.Final");
+        Result second = result("1.1.0.Final", List.of("org.acme.BBuildItem", "org.acme.CBuildItem"),
+                List.of("org.acme.FooConfig.name"));
+        Result third = result("1.2.0.Final", List.of("org.acme.BBuildItem", "org.acme.CBuildItem"),
+                List.of("org.acme.FooConfig.name"));
+        Result fourth = result("2.0.0.Final", List.of("org.acme.BBuildItem", "org.acme.CBuildItem"),
+                List.of("org.acme.FooConfig.port"));
+
+        List<ItemDiff> diffs = ItemDiff.between(List.of(first, skipped, second, third, fourth));
+        // 1.1.0 -> 1.2.0 has no changes
+        assertEquals(2, diffs.size());
+        ItemDiff diff = diffs.get(0);
+        assertEquals("1.0.0.Final", diff.getFrom());
+        assertEquals("1.1.0.Final", diff.getTo());
+        assertEquals(List.of("org.acme.CBuildItem"), diff.getBuildItems().getAdded());
+        assertEquals(List.of("org.acme.ABuildItem"), diff.getBuildItems().getRemoved());
+        assertTrue(diff.getConfigItems().isEmpty());
+        assertTrue(diff.getBuildSteps().isEmpty());
+        diff = diffs.get(1);
+        assertEquals("1.2.0.Final", diff.getFrom());
+        assertTrue(diff.getBuildItems().isEmpty());
+        assertEquals(List.of("org.acme.FooConfig.port"), diff.getConfigItems().getAdded());
+        assertEquals(List.of("org.acme.FooConfig.name"), diff.getConfigItems().getRemoved());
+    }
+
+    @Test
+    public void testDifferentTables() {
+        ItemNames other = new ItemNames();
+        // Different ids for the same names
+        other.intern("org.acme.Unrelated");
+        Result first = result("1.0.0.Final", List.of("org.acme.ABuildItem", "org.acme.BBuildItem"), List.of());
+        Result second = new Result();
+        second.setTagName("1.1.0.Final");
+        second.setItems(TagItems.of(other, List.of("org.acme.BBuildItem", "org.acme.CBuildItem"), List.of(),
+                List.of()));
+        assertSame(second.getItems(), second.getItems().in(other));
+
+        ItemDiff diff = ItemDiff.of(first, second);
+        assertEquals(List.of("org.acme.CBuildItem"), diff.getBuildItems().getAdded());
+        assertEquals(List.of("org.acme.ABuildItem"), diff.getBuildItems().getRemoved());
+        assertTrue(ItemDiff.of(second, result("1.2.0.Final", List.of("org.acme.CBuildItem", "org.acme.BBuildItem"),
+                List.of())).isEmpty());
+    }
+
+    @Test
+    public void testRemovedFile() {
+        FileFacts facts = new FileFacts(1, List.of(), List.of("org.acme.FooConfig.name"),
+                List.of("org.acme.FooProcessor#void foo()"));
+        TagStats stats = new TagStats();
+        stats.add(false, facts);
+        // The same file in a test module
+        stats.add(true, facts);
+        stats.remove(false, facts);
+        Result result = new Result();
+        stats.apply(result, NAMES);
+        assertEquals(List.of("org.acme.FooConfig.name"), result.getItems().getNames(Kind.CONFIG_ITEM));
+        stats.remove(true, facts);
+        stats.apply(result, NAMES);
+        assertEquals(List.of(), result.getItems().getNames(Kind.CONFIG_ITEM));
+        assertEquals(List.of(), result.getItems().getNames(Kind.BUILD_STEP));
+    }
+
+    private static Result result(String tag, List<String> buildItems, List<String> configItems) {
+        Result result = new Result();
+        result.setTagName(tag);
+        result.setItems(TagItems.of(NAMES, buildItems, configItems, List.of()));
+        return result;
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.mkouba.ItemIndex.Item;
+import com.github.mkouba.TagItems.Kind;
+
+public class ItemIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testLifetime() throws IOException {
+        // 0: 1.0.0 - Foo
+        // 1: 1.1.0 - Foo, Bar
+        // 2: 1.2.0 - Bar
+        // 3: 2.0.0 - Foo, Bar
+        Result skipped = new Result();
+        skipped.setTagName("1.0.1.Final");
+        ItemIndex built = ItemIndex.build(List.of(result("1.0.0.Final", "org.acme.FooBuildItem"), skipped,
+                result("1.1.0.Final", "org.acme.FooBuildItem", "org.acme.BarBuildItem"),
+                result("1.2.0.Final", "org.acme.BarBuildItem"),
+                result("2.0.0.Final", "org.acme.FooBuildItem", "org.acme.BarBuildItem")));
+        Path file = tempDir.resolve("items.idx");
+        built.save(file);
+
+        for (ItemIndex index : List.of(built, ItemIndex.load(file))) {
+            assertEquals(List.of("1.0.0.Final", "1.1.0.Final", "1.2.0.Final", "2.0.0.Final"), index.getTags());
+            assertEquals(3, index.getItems().size());
+
+            Item foo = index.get(Kind.BUILD_ITEM, "org.acme.FooBuildItem");
+            assertEquals(0, foo.getFirst());
+            assertEquals(3, foo.getLast());
+            assertEquals(3, foo.getCount());
+            assertEquals(2, foo.getRuns().size());
+            assertTrue(foo.contains(1));
+            assertFalse(foo.contains(2));
+            assertTrue(foo.contains(3));
+            assertFalse(foo.contains(4));
+
+            Item bar = index.get(Kind.BUILD_ITEM, "org.acme.BarBuildItem");
+            assertEquals(1, bar.getFirst());
+            assertEquals(3, bar.getLast());
+            assertEquals(1, bar.getRuns().size());
+
+            Item name = index.get(Kind.CONFIG_ITEM, "org.acme.FooConfig.name");
+            assertEquals(0, name.getFirst());
+            assertEquals(0, name.getLast());
+
+            assertNull(index.get(Kind.CONFIG_ITEM, "org.acme.FooBuildItem"));
+            // Exact name first, then a part of the name
+            assertEquals(List.of(foo), index.find("org.acme.FooBuildItem", null));
+            assertEquals(List.of(bar, foo), index.find("BuildItem", Kind.BUILD_ITEM));
+            assertEquals(List.of(), index.find("BuildItem", Kind.BUILD_STEP));
+        }
+    }
+
+    private static Result result(String tag, String... buildItems) {
+        Result result = new Result();
+        result.setTagName(tag);
+        result.setItems(TagItems.of(new ItemNames(), List.of(buildItems),
+                tag.equals("1.0.0.Final") ? List.of("org.acme.FooConfig.name") : List.of(), List.of()));
+        return result;
+    }
+
+}
@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
 
@@ -28,4 +29,17 @@ public class QuarkusVersionTest {
         assertEquals(v1110, versions.get(3));
     }
 
+    @Test
+    public void testResultsWithoutVersion() {
+        List<Result> results = new ArrayList<>();
+        for (String name : List.of("main", "1.10.3.Final", "4508769a", "0.9.1")) {
+            Result result = new Result();
+            result.setTagName(name);
+            results.add(result);
+        }
+        Collections.sort(results);
+        assertEquals(List.of("0.9.1", "1.10.3.Final", "4508769a", "main"),
+                results.stream().map(Result::getTagName).collect(Collectors.toList()));
+    }
+
 }
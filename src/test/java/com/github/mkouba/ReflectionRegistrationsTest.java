@@ -0,0 +1,33 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.javaparser.metamodel.BaseNodeMetaModel;
+import com.github.javaparser.metamodel.JavaParserMetaModel;
+import com.github.javaparser.metamodel.PropertyMetaModel;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+public class ReflectionRegistrationsTest {
+
+    @Test
+    public void testNonEmptyNodeListsRegistered() {
+        // The validator reads these properties reflectively
+        Set<Class<?>> expected = new HashSet<>();
+        for (BaseNodeMetaModel model : JavaParserMetaModel.getNodeMetaModels()) {
+            for (PropertyMetaModel property : model.getDeclaredPropertyMetaModels()) {
+                if (property.isNonEmpty() && property.isNodeList()) {
+                    expected.add(model.getType());
+                }
+            }
+        }
+        RegisterForReflection registration = ReflectionRegistrations.class.getAnnotation(RegisterForReflection.class);
+        assertEquals(expected, Set.of(registration.targets()));
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.quarkus.test.junit.main.LaunchResult;
+import io.quarkus.test.junit.main.QuarkusMainLauncher;
+import io.quarkus.test.junit.main.QuarkusMainTest;
+
+@QuarkusMainTest
+public class RenderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRender(QuarkusMainLauncher launcher) throws IOException {
+        Path reportsDir = tempDir.resolve("reports");
+        Files.createDirectories(reportsDir);
+        ResultStore store = new ResultStore(reportsDir.resolve(Reports.RESULTS));
+        store.putAll(List.of(ReportsTest.result("1.1.0.Final"), ReportsTest.result(ReportsTest.SPECIAL_TAG),
+                ReportsTest.result("1.0.0.Final")));
+        store.save();
+
+        LaunchResult result = launcher.launch("render", "-w", tempDir.toString());
+        assertEquals(0, result.exitCode(), result.getErrorOutput());
+        String report = Files.readString(reportsDir.resolve(Reports.REPORT), StandardCharsets.UTF_8);
+        String dataset = report.substring(report.indexOf("<script id=\"results-data\" type=\"application/json\">"));
+        dataset = dataset.substring(dataset.indexOf('>') + 1, dataset.indexOf("</script>"));
+        List<?> parsed = (List<?>) Json.parse(dataset);
+        assertEquals(3, parsed.size());
+        // The results are sorted
+        assertEquals("1.0.0.Final", ((Map<?, ?>) parsed.get(0)).get("tag"));
+        assertEquals("1.1.0.Final", ((Map<?, ?>) parsed.get(1)).get("tag"));
+        assertEquals(ReportsTest.SPECIAL_TAG, ((Map<?, ?>) parsed.get(2)).get("tag"));
+        assertEquals(7L, ((Map<?, ?>) parsed.get(2)).get("mainSourceFiles"));
+    }
+
+    @Test
+    public void testMerge(QuarkusMainLauncher launcher) throws IOException {
+        Path first = tempDir.resolve("shard-0.db");
+        ResultStore store = new ResultStore(first);
+        store.putAll(List.of(ReportsTest.result("1.0.0.Final"), ReportsTest.result(ReportsTest.SPECIAL_TAG)));
+        store.save();
+        Path second = tempDir.resolve("shard-1.db");
+        store = new ResultStore(second);
+        store.putAll(List.of(ReportsTest.result("1.1.0.Final")));
+        store.save();
+
+        LaunchResult result = launcher.launch("merge", "-w", tempDir.toString(), first.toString(),
+                second.toString());
+        assertEquals(0, result.exitCode(), result.getErrorOutput());
+        Path reportsDir = tempDir.resolve("reports");
+        assertTrue(Files.isRegularFile(reportsDir.resolve(Reports.REPORT)));
+
+        List<List<String>> rows = ReportsTest.parseCsv(
+                Files.readString(reportsDir.resolve(Reports.RESULTS_CSV), StandardCharsets.UTF_8));
+        assertEquals(4, rows.size());
+        assertEquals("1.0.0.Final", rows.get(1).get(0));
+        assertEquals("1.1.0.Final", rows.get(2).get(0));
+        assertEquals(ReportsTest.SPECIAL_TAG, rows.get(3).get(0));
+
+        List<?> json = (List<?>) Json.parse(
+                Files.readString(reportsDir.resolve(Reports.RESULTS_JSON), StandardCharsets.UTF_8));
+        assertEquals(ReportsTest.SPECIAL_TAG, ((Map<?, ?>) json.get(2)).get("tag"));
+
+        // The merged results can be rendered again
+        ResultStore merged = new ResultStore(reportsDir.resolve(Reports.RESULTS));
+        merged.loadAll();
+        assertEquals(3, merged.getResults().size());
+    }
+
+}
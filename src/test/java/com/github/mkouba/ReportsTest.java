@@ -0,0 +1,129 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ReportsTest {
+
+    static final String COMMIT_ID = "4508769a6d2b1c1f0e8e8b1f3c1d5e6f7a8b9c0d";
+
+    // A quote, a comma, a newline, a backslash and non-ASCII characters
+    static final String SPECIAL_TAG = "2.0.0 \"\u017d\", fix\nnext \\ \u65e5\u672c";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testEscape() {
+        assertEquals("2.0.0.Final", Reports.escape("2.0.0.Final"));
+        assertEquals("a\\u0022b\\u005cc\\u000a\\u0009\u017e", Reports.escape("a\"b\\c\n\t\u017e"));
+    }
+
+    @Test
+    public void testCsv() throws IOException {
+        Path file = tempDir.resolve(Reports.RESULTS_CSV);
+        Reports.writeCsv(file, List.of(result("1.0.0.Final"), result(SPECIAL_TAG)));
+        List<List<String>> rows = parseCsv(Files.readString(file, StandardCharsets.UTF_8));
+        assertEquals(3, rows.size());
+        assertEquals(List.of("tag", "commitId", "javaSourceFiles", "mainSourceFiles", "testSourceFiles", "javaTypes",
+                "mainTypes", "testTypes", "buildItems", "buildSteps", "configItems"), rows.get(0));
+        assertEquals(List.of("1.0.0.Final", COMMIT_ID, "10", "7", "3", "20", "16", "4", "2", "5", "6"), rows.get(1));
+        assertEquals(List.of(SPECIAL_TAG, COMMIT_ID, "10", "7", "3", "20", "16", "4", "2", "5", "6"), rows.get(2));
+    }
+
+    @Test
+    public void testJson() throws IOException {
+        Path file = tempDir.resolve(Reports.RESULTS_JSON);
+        Result special = result(SPECIAL_TAG);
+        special.setCounters(Map.of("recorders", 3L, "odd \"name\"", 1L));
+        Reports.writeJson(file, List.of(result("1.0.0.Final"), special));
+        List<?> parsed = (List<?>) Json.parse(Files.readString(file, StandardCharsets.UTF_8));
+        assertEquals(2, parsed.size());
+        Map<?, ?> first = (Map<?, ?>) parsed.get(0);
+        assertEquals("1.0.0.Final", first.get("tag"));
+        assertEquals(11, first.size());
+        Map<?, ?> second = (Map<?, ?>) parsed.get(1);
+        assertEquals(SPECIAL_TAG, second.get("tag"));
+        assertEquals(COMMIT_ID, second.get("commitId"));
+        assertEquals(16L, second.get("mainTypes"));
+        assertEquals(6L, second.get("configItems"));
+        assertEquals(Map.of("recorders", 3L, "odd \"name\"", 1L), second.get("counters"));
+    }
+
+    @Test
+    public void testDataset() {
+        Result foo = result("1.0.0.Final");
+        Result bar = result("it's \"a\" \\ & </script><!-- \u017e");
+        String dataset = Reports.dataset(List.of(foo, bar));
+        // Cannot close the script element
+        assertFalse(dataset.contains("<"), dataset);
+        List<?> parsed = (List<?>) Json.parse(dataset);
+        assertEquals(2, parsed.size());
+        Map<?, ?> first = (Map<?, ?>) parsed.get(0);
+        assertEquals("1.0.0.Final", first.get("tag"));
+        assertEquals(10L, first.get("javaSourceFiles"));
+        assertEquals(7L, first.get("mainSourceFiles"));
+        assertEquals(3L, first.get("testSourceFiles"));
+        assertEquals(2L, first.get("buildItems"));
+        assertEquals(bar.getTagName(), ((Map<?, ?>) parsed.get(1)).get("tag"));
+    }
+
+    static Result result(String tag) {
+        Result result = new Result();
+        result.setTagName(tag);
+        result.setCommitId(COMMIT_ID);
+        result.setJavaSourceFiles(10);
+        result.setTestSourceFiles(3);
+        result.setJavaTypes(20);
+        result.setTestTypes(4);
+        result.setBuildItems(2);
+        result.setBuildSteps(5);
+        result.setConfigItems(6);
+        return result;
+    }
+
+    static List<List<String>> parseCsv(String csv) {
+        List<List<String>> rows = new ArrayList<>();
+        List<String> row = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < csv.length(); i++) {
+            char c = csv.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < csv.length() && csv.charAt(i + 1) == '"') {
+                    value.append(c);
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                row.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\n') {
+                row.add(value.toString());
+                value.setLength(0);
+                rows.add(row);
+                row = new ArrayList<>();
+            } else {
+                value.append(c);
+            }
+        }
+        return rows;
+    }
+
+}
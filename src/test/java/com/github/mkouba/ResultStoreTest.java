@@ -0,0 +1,104 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.mkouba.TagItems.Kind;
+
+public class ResultStoreTest {
+
+    private static final String COMMIT_ID = "4508769a6d2b1c1f0e8e8b1f3c1d5e6f7a8b9c0d";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path file = tempDir.resolve("results.db");
+        Result result = new Result();
+        result.setTagName("2.1.1.Final");
+        result.setCommitId(COMMIT_ID);
+        result.setJavaSourceFiles(10);
+        result.setJavaTypes(20);
+        result.setTestSourceFiles(3);
+        result.setTestTypes(4);
+        result.setBuildItems(5);
+        result.setBuildSteps(6);
+        result.setConfigItems(7);
+
+        ResultStore store = new ResultStore(file);
+        store.putAll(List.of(result));
+        store.save();
+
+        ResultStore loaded = new ResultStore(file);
+        loaded.load();
+        Result stored = loaded.get("2.1.1.Final", COMMIT_ID);
+        assertNotNull(stored);
+        assertEquals(10, stored.getJavaSourceFiles());
+        assertEquals(20, stored.getJavaTypes());
+        assertEquals(3, stored.getTestSourceFiles());
+        assertEquals(4, stored.getTestTypes());
+        assertEquals(5, stored.getBuildItems());
+        assertEquals(6, stored.getBuildSteps());
+        assertEquals(7, stored.getConfigItems());
+        // The tag was moved to a different commit
+        assertNull(loaded.get("2.1.1.Final", "0000000000000000000000000000000000000001"));
+    }
+
+    @Test
+    public void testItems() throws IOException {
+        Path file = tempDir.resolve("results.db");
+        Result result1 = new Result();
+        result1.setTagName("2.1.1.Final");
+        result1.setCommitId(COMMIT_ID);
+        result1.setItems(TagItems.of(new ItemNames(), List.of("org.acme.FooBuildItem", "org.acme.BarBuildItem"),
+                List.of("org.acme.FooConfig.name"), List.of("org.acme.FooProcessor#FooBuildItem foo()")));
+        Result result2 = new Result();
+        result2.setTagName("2.2.0.Final");
+        result2.setCommitId(COMMIT_ID);
+        // The results of a store may come from different tables
+        result2.setItems(TagItems.of(new ItemNames(), List.of("org.acme.FooBuildItem"), List.of(), List.of()));
+        result2.setCounters(Map.of("recorders", 3L));
+        // No items
+        Result result3 = new Result();
+        result3.setTagName("2.3.0.Final");
+        result3.setCommitId(COMMIT_ID);
+
+        ResultStore store = new ResultStore(file);
+        store.putAll(List.of(result1, result2, result3));
+        store.save();
+
+        ResultStore loaded = new ResultStore(file);
+        loaded.load();
+        TagItems items = loaded.get("2.1.1.Final", COMMIT_ID).getItems();
+        assertEquals(List.of("org.acme.BarBuildItem", "org.acme.FooBuildItem"), items.getNames(Kind.BUILD_ITEM));
+        assertEquals(List.of("org.acme.FooConfig.name"), items.getNames(Kind.CONFIG_ITEM));
+        assertEquals(List.of("org.acme.FooProcessor#FooBuildItem foo()"), items.getNames(Kind.BUILD_STEP));
+        items = loaded.get("2.2.0.Final", COMMIT_ID).getItems();
+        assertEquals(List.of("org.acme.FooBuildItem"), items.getNames(Kind.BUILD_ITEM));
+        assertEquals(List.of(), items.getNames(Kind.CONFIG_ITEM));
+        assertEquals(Map.of("recorders", 3L), loaded.get("2.2.0.Final", COMMIT_ID).getCounters());
+        assertNull(loaded.get("2.3.0.Final", COMMIT_ID).getItems());
+        assertEquals(Map.of(), loaded.get("2.3.0.Final", COMMIT_ID).getCounters());
+    }
+
+    @Test
+    public void testCorruptedStore() throws IOException {
+        Path file = tempDir.resolve("results.db");
+        Files.write(file, new byte[] { 1, 2, 3 });
+        ResultStore store = new ResultStore(file);
+        store.load();
+        assertNull(store.get("2.1.1.Final", COMMIT_ID));
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RunMetricsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testHistogram() {
+        Histogram histogram = new Histogram(TimeUnit.MILLISECONDS, 1, 10);
+        assertEquals(3, histogram.getBuckets());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1), histogram.getBound(0));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), histogram.getBound(1));
+        assertEquals(Long.MAX_VALUE, histogram.getBound(2));
+
+        // The upper bound is inclusive
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(500));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(5));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(10));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(5, histogram.getCount());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(36_500), histogram.getSum());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(20), histogram.getMax());
+        // The counts are not cumulative
+        assertEquals(2, histogram.getCount(0));
+        assertEquals(2, histogram.getCount(1));
+        assertEquals(1, histogram.getCount(2));
+    }
+
+    @Test
+    public void testWrite() throws IOException {
+        RunMetrics run = new RunMetrics(2, null);
+        TagMetrics tag = run.tag("1.0.0.Final");
+        tag.setResolve(TimeUnit.MILLISECONDS.toNanos(3));
+        tag.setDiscovery(TimeUnit.MILLISECONDS.toNanos(4), 10);
+        tag.addRead(TimeUnit.MILLISECONDS.toNanos(1), 100);
+        tag.addRead(TimeUnit.MILLISECONDS.toNanos(1), 50);
+        tag.addScan(TimeUnit.MICROSECONDS.toNanos(250));
+        tag.addParse(TimeUnit.MILLISECONDS.toNanos(2));
+        tag.addExtract(TimeUnit.MICROSECONDS.toNanos(1_500));
+        tag.addJavaSource(true);
+        tag.addJavaSource(false);
+        tag.incrementParseFailures();
+        tag.recordFile("core/Foo.java", TimeUnit.MICROSECONDS.toNanos(30));
+        tag.recordFile("core/Bar.java", TimeUnit.MICROSECONDS.toNanos(50));
+        tag.recordFile("core/Baz.java", TimeUnit.MILLISECONDS.toNanos(2));
+        tag.finish();
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(2), tag.getRead());
+        assertEquals(150, tag.getBytes());
+        assertEquals(2, tag.getJavaSources());
+        assertEquals(1, tag.getCacheHits());
+
+        Path file = tempDir.resolve("metrics.json");
+        run.write(file);
+        String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        assertContains(json, "\"tags\": 1,");
+        assertContains(json, "\"resolveMs\": 3.000,");
+        assertContains(json, "\"readMs\": 2.000,");
+        assertContains(json, "\"scanMs\": 0.250,");
+        assertContains(json, "\"parseMs\": 2.000,");
+        assertContains(json, "\"extractMs\": 1.500,");
+        assertContains(json, "\"files\": 10,");
+        assertContains(json, "\"javaSources\": 2,");
+        assertContains(json, "\"cacheHits\": 1,");
+        assertContains(json, "\"bytesRead\": 150,");
+        assertContains(json, "\"parseFailures\": 1\n");
+        assertContains(json, "\"busyMs\": 5.750,");
+        assertContains(json, "\"fileAnalysis\": {\n"
+                + "      \"count\": 3,\n"
+                + "      \"sumMs\": 2.080,\n"
+                + "      \"maxMs\": 2.000,\n"
+                + "      \"buckets\": [{ \"upToMs\": 0.050, \"count\": 2 }, { \"upToMs\": 0.100, \"count\": 0 }, "
+                + "{ \"upToMs\": 0.250, \"count\": 0 }, { \"upToMs\": 0.500, \"count\": 0 }, "
+                + "{ \"upToMs\": 1.000, \"count\": 0 }, { \"upToMs\": 2.500, \"count\": 1 }, "
+                + "{ \"upToMs\": 5.000, \"count\": 0 }, { \"upToMs\": 10.000, \"count\": 0 }, "
+                + "{ \"upToMs\": 25.000, \"count\": 0 }, { \"upToMs\": 50.000, \"count\": 0 }, "
+                + "{ \"upToMs\": 100.000, \"count\": 0 }, { \"upToMs\": 250.000, \"count\": 0 }, "
+                + "{ \"upToMs\": 500.000, \"count\": 0 }, { \"upToMs\": 1000.000, \"count\": 0 }, "
+                + "{ \"upToMs\": \"+Inf\", \"count\": 0 }]\n");
+        assertContains(json, "\"tag\": {\n      \"count\": 1,");
+        assertContains(json, "\"slowestFiles\": [\n"
+                + "    { \"tag\": \"1.0.0.Final\", \"path\": \"core/Baz.java\", \"ms\": 2.000 },\n"
+                + "    { \"tag\": \"1.0.0.Final\", \"path\": \"core/Bar.java\", \"ms\": 0.050 },\n"
+                + "    { \"tag\": \"1.0.0.Final\", \"path\": \"core/Foo.java\", \"ms\": 0.030 }\n"
+                + "  ],");
+        assertContains(json, "\"perTag\": [\n    {\n      \"tag\": \"1.0.0.Final\",");
+    }
+
+    private static void assertContains(String json, String expected) {
+        assertTrue(json.contains(expected), () -> "Expected " + expected + " in:\n" + json);
+    }
+
+}
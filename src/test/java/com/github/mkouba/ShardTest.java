@@ -0,0 +1,47 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ShardTest {
+
+    @Test
+    public void testParse() {
+        Shard shard = Shard.parse("2/4");
+        assertEquals(2, shard.getIndex());
+        assertEquals(4, shard.getCount());
+        assertEquals("results-2-of-4.db", shard.getPartialFileName());
+        assertThrows(IllegalArgumentException.class, () -> Shard.parse("0/4"));
+        assertThrows(IllegalArgumentException.class, () -> Shard.parse("5/4"));
+        assertThrows(IllegalArgumentException.class, () -> Shard.parse("2"));
+        assertThrows(IllegalArgumentException.class, () -> Shard.parse("a/b"));
+    }
+
+    @Test
+    public void testSelect() {
+        List<String> tags = List.of("2.0.0.Final", "1.0.0.Final", "1.1.0.Final", "2.1.0.CR1", "1.2.0.Final");
+        assertEquals(List.of("1.0.0.Final", "1.2.0.Final", "2.1.0.CR1"), new Shard(1, 2).select(tags));
+        assertEquals(List.of("1.1.0.Final", "2.0.0.Final"), new Shard(2, 2).select(tags));
+        // Every tag is assigned to exactly one shard regardless of the order of the tags
+        List<String> all = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            all.addAll(new Shard(i, 3).select(List.of(tags.get(4), tags.get(3), tags.get(2), tags.get(1),
+                    tags.get(0))));
+        }
+        assertEquals(tags.size(), all.size());
+        assertEquals(tags.size(), all.stream().distinct().count());
+    }
+
+    @Test
+    public void testSelectMixedTags() {
+        List<String> tags = List.of("v1.0.0", "2.0.0.Final", "quarkus-foo-1.0", "1.0.0.Final", "1.0");
+        assertEquals(List.of("1.0.0.Final", "1.0", "v1.0.0"), new Shard(1, 2).select(tags));
+        assertEquals(List.of("2.0.0.Final", "quarkus-foo-1.0"), new Shard(2, 2).select(tags));
+    }
+
+}
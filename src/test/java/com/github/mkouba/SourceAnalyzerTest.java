@@ -0,0 +1,175 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.javaparser.ast.body.TypeDeclaration;
+
+public class SourceAnalyzerTest {
+
+    @Test
+    public void testBuildItemsAndSteps() {
+        FileFacts facts = analyze("package org.acme;\n"
+                + "import io.quarkus.builder.item.SimpleBuildItem;\n"
+                + "import io.quarkus.deployment.annotations.BuildStep;\n"
+                + "public class FooProcessor {\n"
+                + "  @BuildStep FooBuildItem foo() { return null; }\n"
+                + "  @BuildStep static void ignored() {}\n"
+                + "  public static final class FooBuildItem extends SimpleBuildItem {}\n"
+                + "  static final class BarBuildItem extends io.quarkus.builder.item.MultiBuildItem {}\n"
+                + "  static class NotFinal extends SimpleBuildItem {}\n"
+                + "}");
+        assertTrue(facts.isParsed());
+        assertEquals(4, facts.getJavaTypes());
+        assertEquals(List.of("org.acme.FooProcessor.FooBuildItem", "org.acme.FooProcessor.BarBuildItem"),
+                new TypeIndex(List.of(facts)).getBuildItems());
+        assertEquals(List.of("org.acme.FooProcessor#FooBuildItem foo()"), facts.getBuildSteps());
+    }
+
+    @Test
+    public void testIntermediateClasses() {
+        SourceAnalyzer analyzer = new SourceAnalyzer();
+        List<FileFacts> facts = List.of(
+                analyzer.analyze("Base.java", bytes("package org.acme;\n"
+                        + "import io.quarkus.builder.item.SimpleBuildItem;\n"
+                        + "public abstract class Base extends SimpleBuildItem {}")),
+                analyzer.analyze("Mid.java", bytes("package org.acme;\npublic class Mid extends Base {}")),
+                analyzer.analyze("FooBuildItem.java", bytes("package org.acme;\n"
+                        + "public final class FooBuildItem extends Mid {}")),
+                analyzer.analyze("Leaf.java", bytes("package org.acme;\npublic final class Leaf extends Base {}")),
+                analyzer.analyze("Foo.java", bytes("package org.acme;\npublic final class Foo {}")));
+        assertEquals(4, analyzer.getParsed());
+        assertEquals(List.of("org.acme.FooBuildItem", "org.acme.Leaf"), new TypeIndex(facts).getBuildItems());
+    }
+
+    @Test
+    public void testVerifyScanner() {
+        SourceAnalyzer analyzer = new SourceAnalyzer(true);
+        TagStats stats = new TagStats();
+        stats.add(false, analyzer.analyze("Base.java", bytes("package org.acme;\n"
+                + "import io.quarkus.builder.item.MultiBuildItem;\n"
+                + "public abstract class Base extends MultiBuildItem {}")));
+        stats.add(false, analyzer.analyze("Mid.java", bytes("package org.acme;\npublic class Mid extends Base {}")));
+        stats.add(false, analyzer.analyze("FooBuildItem.java", bytes("package org.acme;\n"
+                + "public final class FooBuildItem extends Mid {}")));
+        stats.add(false, analyzer.analyze("Foo.java", bytes("package org.acme;\npublic final class Foo {}")));
+        analyzer.verify("1.0", stats);
+        assertEquals(4, analyzer.getParsed());
+        assertEquals(0, analyzer.getMismatches());
+        assertEquals(List.of("org.acme.FooBuildItem"), stats.getScannerStats().getBuildItemNames());
+
+        // A build item declared in a file that the scanner would not consider
+        stats.add(false, new FileFacts(1, List.of(new DeclaredClass("org.acme.Leaf", true, List.of("org.acme.Base"))),
+                List.of(), List.of()).withScannerFacts(new FileFacts(1, List.of(), List.of(), List.of())));
+        analyzer.verify("1.1", stats);
+        assertEquals(1, analyzer.getMismatches());
+        assertEquals(List.of("org.acme.FooBuildItem", "org.acme.Leaf"), stats.getBuildItemNames());
+        assertEquals(List.of("org.acme.FooBuildItem"), stats.getScannerStats().getBuildItemNames());
+    }
+
+    @Test
+    public void testConfigItems() {
+        FileFacts facts = analyze("package org.acme;\n"
+                + "import io.quarkus.runtime.annotations.ConfigItem;\n"
+                + "public class FooConfig {\n"
+                + "  @ConfigItem public String name;\n"
+                + "  @ConfigItem private int ignored;\n"
+                + "  @io.quarkus.runtime.annotations.ConfigItem int port;\n"
+                + "  enum Mode { A }\n"
+                + "}");
+        assertEquals(2, facts.getJavaTypes());
+        assertEquals(List.of("org.acme.FooConfig.name", "org.acme.FooConfig.port"), facts.getConfigItems());
+    }
+
+    @Test
+    public void testRecordsAndTextBlocks() {
+        FileFacts facts = analyze("package org.acme;\n"
+                + "import io.quarkus.deployment.annotations.BuildStep;\n"
+                + "public class FooProcessor {\n"
+                + "  record Point(int x, int y) {}\n"
+                + "  @BuildStep void foo() { String s = \"\"\"\n    class Fake {}\n    \"\"\"; }\n"
+                + "}");
+        assertTrue(facts.isParsed());
+        assertEquals(2, facts.getJavaTypes());
+        assertEquals(List.of("org.acme.FooProcessor#void foo()"), facts.getBuildSteps());
+    }
+
+    @Test
+    public void testUnparsable() {
+        // Only the candidates are parsed
+        FileFacts facts = analyze("@BuildStep public class Broken {{{");
+        assertFalse(facts.isParsed());
+        assertEquals(0, facts.getJavaTypes());
+        // Unbalanced sources are parsed as well, so that the result does not depend on the verification of the scanner
+        for (SourceAnalyzer analyzer : List.of(new SourceAnalyzer(), new SourceAnalyzer(true))) {
+            facts = analyzer.analyze("Broken.java", bytes("public class Broken {{{"));
+            assertFalse(facts.isParsed());
+            assertEquals(0, facts.getJavaTypes());
+            assertEquals(1, analyzer.getParsed());
+        }
+        assertNotEquals(new SourceAnalyzer().getRulesVersion(), new SourceAnalyzer(true).getRulesVersion());
+    }
+
+    @Test
+    public void testCustomExtractor() {
+        // Counts the @Recorder classes; the file does not contain any of the built-in candidate tokens
+        FactExtractor recorders = new FactExtractor() {
+
+            @Override
+            public List<String> getCandidateTokens() {
+                return List.of("Recorder");
+            }
+
+            @Override
+            public void visitType(TypeDeclaration<?> type, FileContext context) {
+                if (type.isAnnotationPresent("Recorder")) {
+                    context.count("recorders");
+                }
+            }
+        };
+        List<FactExtractor> extractors = new ArrayList<>(FactExtractors.defaults());
+        extractors.add(recorders);
+        byte[] source = ("package org.acme;\n"
+                + "import io.quarkus.runtime.annotations.Recorder;\n"
+                + "@Recorder public class FooRecorder {}\n"
+                + "@Recorder class BarRecorder {}").getBytes(StandardCharsets.UTF_8);
+        SourceAnalyzer analyzer = new SourceAnalyzer(false, extractors);
+        FileFacts facts = analyzer.analyze("FooRecorder.java", source);
+        assertEquals(1, analyzer.getParsed());
+        assertEquals(Map.of("recorders", 2L), facts.getCounters());
+        // Not a candidate for the default extractors
+        SourceAnalyzer defaults = new SourceAnalyzer();
+        defaults.analyze("FooRecorder.java", source);
+        assertEquals(0, defaults.getParsed());
+
+        // The counters are summed up per tag
+        TagStats stats = new TagStats();
+        stats.add(false, facts);
+        stats.add(false, facts);
+        Result result = new Result();
+        stats.apply(result, new ItemNames());
+        assertEquals(Map.of("recorders", 4L), result.getCounters());
+        stats.remove(false, facts);
+        stats.remove(false, facts);
+        stats.apply(result, new ItemNames());
+        assertEquals(Map.of(), result.getCounters());
+    }
+
+    private static FileFacts analyze(String source) {
+        return new SourceAnalyzer().analyze("Test.java", bytes(source));
+    }
+
+    private static byte[] bytes(String source) {
+        return source.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SourceFilterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testDefaults() {
+        SourceFilter filter = SourceFilter.defaults();
+        assertTrue(filter.isSource("Foo.java"));
+        assertTrue(filter.isSource("core/runtime/src/main/java/io/quarkus/Foo.java"));
+        assertFalse(filter.isSource("core/runtime/pom.xml"));
+        assertFalse(filter.isSource("core/runtime/src/main/resources/Foo.tpl.qute.java"));
+        assertFalse(filter.isSource(
+                "devtools/maven-archetype/src/main/resources/archetype-resources/src/main/java/Foo.java"));
+        assertTrue(filter.isPruned(".git"));
+        assertTrue(filter.isPruned("core/runtime/target"));
+        assertTrue(filter.isPruned("target"));
+        assertTrue(filter.isPruned("devtools/create-extension-templates"));
+        assertFalse(filter.isPruned("core/runtime/src"));
+        assertFalse(filter.isPruned("core/targets"));
+        assertTrue(filter.isTest("core/runtime/src/test/java/io/quarkus/FooTest.java"));
+        assertTrue(filter.isTest("integration-tests/main/src/main/java/io/quarkus/Foo.java"));
+        assertTrue(filter.isTest("extensions/arc/integration-test/java/Foo.java"));
+        assertFalse(filter.isTest("core/runtime/src/main/java/io/quarkus/Foo.java"));
+    }
+
+    @Test
+    public void testGlobs() {
+        SourceFilter filter = new SourceFilter(List.of("src/*/java/**/*.java", "Foo?.java"), List.of("**/generated/**"),
+                List.of());
+        assertTrue(filter.isSource("src/main/java/Foo.java"));
+        assertTrue(filter.isSource("src/main/java/org/acme/Foo.java"));
+        assertFalse(filter.isSource("src/main/resources/java/Foo.java"));
+        assertFalse(filter.isSource("module/src/main/java/Foo.java"));
+        assertTrue(filter.isSource("Foo1.java"));
+        assertFalse(filter.isSource("Foo12.java"));
+        assertFalse(filter.isSource("src/main/java/generated/Foo.java"));
+        assertFalse(filter.isTest("src/test/java/FooTest.java"));
+    }
+
+    @Test
+    public void testWalk() throws IOException {
+        write("src/main/java/Foo.java");
+        write("src/test/java/FooTest.java");
+        write("src/main/resources/application.properties");
+        write("target/classes/Bar.java");
+        write(".git/objects/Baz.java");
+        SourceFilter filter = SourceFilter.defaults();
+        List<String> sources = new ArrayList<>();
+        assertEquals(3, filter.walk(dir, sources::add));
+        Collections.sort(sources);
+        assertEquals(List.of("src/main/java/Foo.java", "src/test/java/FooTest.java"), sources);
+    }
+
+    private void write(String path) throws IOException {
+        Path file = dir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "class Foo {}");
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class SourceScannerTest {
+
+    @Test
+    public void testTypes() {
+        String source = "package org.acme;\n"
+                + "/** This class is an example; class Foo {} */\n"
+                + "public class Foo {\n"
+                + "  // interface Bar {}\n"
+                + "  String s = \"enum Baz {}\";\n"
+                + "  char c = '\"';\n"
+                + "  Class<?> clazz = Foo.class;\n"
+                + "  Class<?> other = String\n    .class;\n"
+                + "  interface Bar {}\n"
+                + "  @interface Ann {}\n"
+                + "  enum Mode { A, B }\n"
+                + "  void record(String record) { Runnable r = new Runnable() { public void run() {} }; class Local {} }\n"
+                + "}";
+        SourceScanner scanner = scan(source);
+        // Foo, Bar, Ann, Mode, Local
+        assertEquals(5, scanner.getTypes());
+        assertFalse(scanner.isCandidate());
+        assertEquals(5, new SourceAnalyzer(true).analyze("Foo.java", source.getBytes(StandardCharsets.UTF_8))
+                .getJavaTypes());
+    }
+
+    @Test
+    public void testRecordsAndTextBlocks() {
+        SourceScanner scanner = scan("public class Foo {\n"
+                + "  String block = \"\"\"\n    class InTextBlock {}\n    \\\"\"\" record R() {}\n    \"\"\";\n"
+                + "  record Point(int x, int y) {}\n"
+                + "  record Pair<A, B>(A a, B b) {}\n"
+                + "  Object record = null;\n"
+                + "}");
+        // Foo, Point, Pair
+        assertEquals(3, scanner.getTypes());
+    }
+
+    @Test
+    public void testCandidates() {
+        assertTrue(scan("import io.quarkus.deployment.annotations.BuildStep; class Foo {}").isCandidate());
+        assertTrue(scan("class Foo { @io.quarkus.runtime.annotations.ConfigItem String foo; }").isCandidate());
+        assertTrue(scan("final class FooBuildItem extends SimpleBuildItem {}").isCandidate());
+        assertFalse(scan("class Foo { /* @BuildStep */ String s = \"ConfigItem\"; }").isCandidate());
+        assertFalse(scan("class FooBuildStep {}").isCandidate());
+        // Any class with a superclass may be an intermediate class of a build item
+        assertTrue(scan("final class FooBuildItem extends AbstractFoo {}").isCandidate());
+        assertTrue(scan("final class Foo extends org.acme.AbstractBuildItem {}").isCandidate());
+        assertTrue(scan("class Mid extends Base { Class<?> c = BarBuildItem.class; }").isCandidate());
+        assertTrue(scan("class Foo<T extends Bar, M extends Map<T, List<T>>> extends Base<T> {}").isCandidate());
+        assertTrue(scan("class Foo { static class Nested extends Base {} }").isCandidate());
+        assertFalse(scan("class Foo<T extends Bar> implements Comparable<Foo<? extends T>> {}").isCandidate());
+        assertFalse(scan("interface Foo extends Bar { <T extends Bar> void foo(); }").isCandidate());
+        assertFalse(scan("class Foo { Class<?> c = Foo.class; <T extends Bar> void foo() {} }").isCandidate());
+    }
+
+    @Test
+    public void testBalanced() {
+        assertTrue(scan("class Foo { char c = '{'; String s = \"}\"; /* { */ void foo() { } }").isBalanced());
+        assertTrue(scan("class Foo { String s = \"\"\"\n  {\n  \"\"\"; }").isBalanced());
+        assertFalse(scan("public class Broken {{{").isBalanced());
+        assertFalse(scan("class Foo { } }").isBalanced());
+        assertFalse(scan("class Foo { /* }").isBalanced());
+        assertFalse(scan("class Foo { String s = \"foo; }").isBalanced());
+        assertFalse(scan("class Foo { String s = \"\"\"\n  foo; }").isBalanced());
+    }
+
+    private static SourceScanner scan(String source) {
+        return new SourceScanner().scan(source.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
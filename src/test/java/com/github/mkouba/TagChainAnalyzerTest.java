@@ -0,0 +1,156 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.mkouba.TagItems.Kind;
+
+public class TagChainAnalyzerTest {
+
+    private static final String MAIN = "core/src/main/java/org/acme/";
+    private static final String TEST = "core/src/test/java/org/acme/";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testDiffMatchesFullScan() throws IOException, GitAPIException {
+        try (Git git = Git.init().setDirectory(tempDir.toFile()).call()) {
+            write(MAIN + "BaseBuildItem.java", "package org.acme;\n"
+                    + "import io.quarkus.builder.item.MultiBuildItem;\n"
+                    + "public abstract class BaseBuildItem extends MultiBuildItem {}");
+            write(MAIN + "FooBuildItem.java", "package org.acme;\n"
+                    + "public final class FooBuildItem extends BaseBuildItem {}");
+            write(MAIN + "BarBuildItem.java", "package org.acme;\n"
+                    + "public final class BarBuildItem extends BaseBuildItem {}");
+            write(MAIN + "FooProcessor.java", "package org.acme;\n"
+                    + "import io.quarkus.deployment.annotations.BuildStep;\n"
+                    + "class FooProcessor {\n"
+                    + "  @BuildStep FooBuildItem foo() { return null; }\n"
+                    + "}");
+            write(MAIN + "FooConfig.java", "package org.acme;\n"
+                    + "import io.quarkus.runtime.annotations.ConfigItem;\n"
+                    + "class FooConfig {\n"
+                    + "  @ConfigItem boolean enabled;\n"
+                    + "}");
+            write(MAIN + "Util.java", "package org.acme;\nclass Util {}");
+            write(TEST + "FooTest.java", "package org.acme;\nclass FooTest {}");
+            commit(git, "1.0.0.Final");
+
+            // Modify a build step, rename a file, add a file in a pruned directory and change a superclass
+            write(MAIN + "FooProcessor.java", "package org.acme;\n"
+                    + "import io.quarkus.deployment.annotations.BuildStep;\n"
+                    + "class FooProcessor {\n"
+                    + "  @BuildStep FooBuildItem foo() { return null; }\n"
+                    + "  @BuildStep BarBuildItem bar() { return null; }\n"
+                    + "}");
+            move(MAIN + "Util.java", MAIN + "Utils.java");
+            write("core/target/generated-sources/org/acme/GeneratedBuildItem.java", "package org.acme;\n"
+                    + "import io.quarkus.builder.item.SimpleBuildItem;\n"
+                    + "public final class GeneratedBuildItem extends SimpleBuildItem {}");
+            write(MAIN + "BaseBuildItem.java", "package org.acme;\n"
+                    + "public abstract class BaseBuildItem {}");
+            commit(git, "1.1.0.Final");
+
+            // Restore the superclass, add a config item and move a file from main to test
+            write(MAIN + "BaseBuildItem.java", "package org.acme;\n"
+                    + "import io.quarkus.builder.item.SimpleBuildItem;\n"
+                    + "public abstract class BaseBuildItem extends SimpleBuildItem {}");
+            write(MAIN + "FooConfig.java", "package org.acme;\n"
+                    + "import io.quarkus.runtime.annotations.ConfigItem;\n"
+                    + "class FooConfig {\n"
+                    + "  @ConfigItem boolean enabled;\n"
+                    + "  @ConfigItem String name;\n"
+                    + "}");
+            move(MAIN + "Utils.java", TEST + "Utils.java");
+            commit(git, "2.0.0.Final");
+
+            // Delete the superclass of the build items and a config class
+            delete(MAIN + "BaseBuildItem.java");
+            delete(MAIN + "FooConfig.java");
+            write(MAIN + "BazBuildItem.java", "package org.acme;\n"
+                    + "import io.quarkus.builder.item.EmptyBuildItem;\n"
+                    + "public final class BazBuildItem extends EmptyBuildItem {}");
+            commit(git, "2.1.0.Final");
+
+            List<Ref> tags = new ArrayList<>(git.tagList().call());
+            tags.sort((t1, t2) -> QuarkusVersion.TAG_NAMES.compare(Repository.shortenRefName(t1.getName()),
+                    Repository.shortenRefName(t2.getName())));
+            ForkJoinPool pool = new ForkJoinPool(2);
+            try {
+                TagChainAnalyzer chain = analyzer(git, pool);
+                List<Long> buildItems = new ArrayList<>();
+                for (Ref tag : tags) {
+                    Result incremental = chain.analyze(tag);
+                    Result full = analyzer(git, pool).analyze(tag);
+                    assertSameResult(full, incremental);
+                    buildItems.add(incremental.getBuildItems());
+                }
+                // Sanity check of the fixture; the abstract base class is not a build item
+                assertEquals(List.of(2L, 0L, 2L, 1L), buildItems);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private static TagChainAnalyzer analyzer(Git git, ForkJoinPool pool) {
+        return new TagChainAnalyzer(git.getRepository(), pool, new SourceAnalyzer(), new FileFactsCache(),
+                SourceFilter.defaults());
+    }
+
+    private static void assertSameResult(Result expected, Result actual) {
+        String tag = expected.getTagName();
+        assertEquals(expected.getCommitId(), actual.getCommitId(), tag);
+        assertEquals(expected.getJavaSourceFiles(), actual.getJavaSourceFiles(), tag);
+        assertEquals(expected.getJavaTypes(), actual.getJavaTypes(), tag);
+        assertEquals(expected.getTestSourceFiles(), actual.getTestSourceFiles(), tag);
+        assertEquals(expected.getTestTypes(), actual.getTestTypes(), tag);
+        assertEquals(expected.getBuildItems(), actual.getBuildItems(), tag);
+        assertEquals(expected.getBuildSteps(), actual.getBuildSteps(), tag);
+        assertEquals(expected.getConfigItems(), actual.getConfigItems(), tag);
+        for (Kind kind : Kind.values()) {
+            assertEquals(expected.getItems().getNames(kind), actual.getItems().getNames(kind), tag + " " + kind);
+        }
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = tempDir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void move(String from, String to) throws IOException {
+        Path target = tempDir.resolve(to);
+        Files.createDirectories(target.getParent());
+        Files.move(tempDir.resolve(from), target);
+    }
+
+    private void delete(String path) throws IOException {
+        Files.delete(tempDir.resolve(path));
+    }
+
+    private static void commit(Git git, String tag) throws GitAPIException {
+        git.add().addFilepattern(".").call();
+        // Stage the deleted files
+        git.add().addFilepattern(".").setUpdate(true).call();
+        git.commit().setMessage(tag).setAuthor("test", "test@acme.org").setCommitter("test", "test@acme.org")
+                .setSign(false).call();
+        git.tag().setName(tag).call();
+    }
+
+}
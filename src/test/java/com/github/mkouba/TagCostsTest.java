@@ -0,0 +1,47 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TagCostsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testColdCacheEstimates() throws IOException {
+        Path file = tempDir.resolve("costs.properties");
+        TagCosts costs = new TagCosts(file);
+        assertEquals(1, costs.getNanosPerFile());
+        // Analyzed with an empty cache: 100 files in 1000 ns
+        costs.record("1.0.0.Final", 50, 1000, 100, 100);
+        // Analyzed with a warm cache: 10 of 110 files missed in 100 ns
+        costs.record("1.1.0.Final", 50, 100, 110, 10);
+        // All files found in the cache
+        costs.record("1.2.0.Final", 50, 0, 110, 0);
+        costs.save();
+
+        TagCosts loaded = new TagCosts(file);
+        loaded.load();
+        assertEquals(1050, loaded.getRecorded("1.0.0.Final"));
+        // Comparable with the tag analyzed with an empty cache
+        assertEquals(1150, loaded.getRecorded("1.1.0.Final"));
+        assertEquals(-1, loaded.getRecorded("1.2.0.Final"));
+        assertEquals(-1, loaded.getRecorded("2.0.0.Final"));
+        // (1000 + 100) / (100 + 10)
+        assertEquals(10, loaded.getNanosPerFile());
+
+        // The timings of an older version are ignored
+        Files.writeString(file, "1.0.0.Final=1000,100\n");
+        TagCosts old = new TagCosts(file);
+        old.load();
+        assertEquals(-1, old.getRecorded("1.0.0.Final"));
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class TagSchedulerTest {
+
+    @Test
+    public void testLargestFirst() {
+        // A single tag per segment
+        TagScheduler<Integer> scheduler = new TagScheduler<>(List.of(List.of(1, 2, 3, 4, 5, 6, 7, 8)), Integer::longValue,
+                1);
+        List<Integer> order = drain(scheduler, 0);
+        // 8 tags, 4 segments of 2 adjacent tags, the most expensive segment first
+        assertEquals(List.of(7, 8, 5, 6, 3, 4, 1, 2), order);
+    }
+
+    @Test
+    public void testLocality() {
+        List<Integer> tags = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            tags.add(i);
+        }
+        TagScheduler<Integer> scheduler = new TagScheduler<>(List.of(tags), tag -> 1, 2);
+        // Segments of 2 adjacent tags
+        for (int i = 0; i < 4; i++) {
+            Integer first = scheduler.next(0);
+            assertEquals(first + 1, scheduler.next(0));
+        }
+        assertEquals(0, scheduler.getSteals());
+    }
+
+    @Test
+    public void testRunsNotMixed() {
+        TagScheduler<String> scheduler = new TagScheduler<>(List.of(List.of("a1", "a2", "a3"), List.of("b1")),
+                tag -> 1, 1);
+        // Segment size is 1 tag; all tags are handed out
+        List<String> order = drain(scheduler, 0);
+        Collections.sort(order);
+        assertEquals(List.of("a1", "a2", "a3", "b1"), order);
+    }
+
+    @Test
+    public void testSteal() {
+        List<Integer> tags = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            tags.add(i);
+        }
+        TagScheduler<Integer> scheduler = new TagScheduler<>(List.of(tags), tag -> 1, 2);
+        // Worker 1 takes a single tag and then stalls; worker 0 steals everything else, including half of the current
+        // segment of worker 1
+        Integer stalled = scheduler.next(1);
+        List<Integer> order = drain(scheduler, 0);
+        assertTrue(scheduler.getSteals() > 0);
+        // Segments of 5 tags; the current segment of worker 1 is split until only the tag after the stalled one is left
+        assertEquals(40 - 1 - 1, order.size());
+        assertEquals(stalled + 1, scheduler.next(1));
+        assertNull(scheduler.next(1));
+        assertNull(scheduler.next(0));
+    }
+
+    @Test
+    public void testConcurrentWorkers() throws InterruptedException {
+        List<List<Integer>> runs = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            List<Integer> run = new ArrayList<>();
+            for (int j = 0; j < 100; j++) {
+                run.add(i * 1000 + j);
+            }
+            runs.add(run);
+        }
+        TagScheduler<Integer> scheduler = new TagScheduler<>(runs, tag -> tag % 7 + 1, 4);
+        ConcurrentLinkedQueue<Integer> handedOut = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            int worker = i;
+            executor.execute(() -> {
+                Integer next;
+                while ((next = scheduler.next(worker)) != null) {
+                    handedOut.add(next);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(500, handedOut.size());
+        assertEquals(500, handedOut.stream().distinct().count());
+    }
+
+    private static <T> List<T> drain(TagScheduler<T> scheduler, int worker) {
+        List<T> tags = new ArrayList<>();
+        T next;
+        while ((next = scheduler.next(worker)) != null) {
+            tags.add(next);
+        }
+        return tags;
+    }
+
+}
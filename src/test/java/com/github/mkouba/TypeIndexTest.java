@@ -0,0 +1,64 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class TypeIndexTest {
+
+    @Test
+    public void testTransitiveBuildItems() {
+        List<String> buildItems = buildItems(
+                // Intermediate class in a different package
+                "package org.acme.spi;\n"
+                        + "import io.quarkus.builder.item.MultiBuildItem;\n"
+                        + "public abstract class BaseTargetable extends MultiBuildItem {}",
+                "package org.acme;\n"
+                        + "import org.acme.spi.BaseTargetable;\n"
+                        + "public final class LabelBuildItem extends BaseTargetable {}",
+                // Same-package references and an on-demand import
+                "package org.acme;\n"
+                        + "import io.quarkus.builder.item.*;\n"
+                        + "public abstract class AbstractInterceptorBuildItem extends SimpleBuildItem {}",
+                "package org.acme;\n"
+                        + "public final class FilterBuildItem extends AbstractInterceptorBuildItem {}",
+                "package org.acme;\n"
+                        + "public class NotFinalBuildItem extends AbstractInterceptorBuildItem {}",
+                // Nested intermediate class and a nested class of a class from the same package
+                "package org.acme;\n"
+                        + "public class Outer {\n"
+                        + "  static abstract class Base extends io.quarkus.builder.item.EmptyBuildItem {}\n"
+                        + "  static final class NestedBuildItem extends Base {}\n"
+                        + "}",
+                "package org.acme;\n"
+                        + "final class OtherBuildItem extends Outer.Base {}",
+                // Unknown superclass and a cycle
+                "package org.acme;\n"
+                        + "final class Unknown extends java.util.AbstractList {}\n"
+                        + "final class CycleA extends CycleB {}\n"
+                        + "final class CycleB extends CycleA {}");
+        assertEquals(List.of("org.acme.LabelBuildItem", "org.acme.FilterBuildItem", "org.acme.Outer.NestedBuildItem",
+                "org.acme.OtherBuildItem"), buildItems);
+    }
+
+    @Test
+    public void testLocalClassIgnored() {
+        assertEquals(List.of(), buildItems("package org.acme;\n"
+                + "import io.quarkus.builder.item.SimpleBuildItem;\n"
+                + "class Foo { void foo() { final class LocalBuildItem extends SimpleBuildItem {} } }"));
+    }
+
+    private static List<String> buildItems(String... sources) {
+        SourceAnalyzer analyzer = new SourceAnalyzer();
+        List<FileFacts> facts = new ArrayList<>();
+        for (String source : sources) {
+            facts.add(analyzer.analyze("Test.java", source.getBytes(StandardCharsets.UTF_8)));
+        }
+        return new TypeIndex(facts).getBuildItems();
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.github.mkouba;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.transport.RefSpec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class WorkspaceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testFetch() throws IOException, GitAPIException {
+        // The remote is a local bare repository; the upstream clone pushes new commits and tags into it
+        Path remoteDir = tempDir.resolve("remote.git");
+        Git.init().setBare(true).setDirectory(remoteDir.toFile()).call().close();
+        String uri = remoteDir.toUri().toString();
+        Path mainDir = tempDir.resolve("work").resolve("_0");
+        Path workerDir = tempDir.resolve("work").resolve("_1");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try (Git upstream = Git.cloneRepository().setURI(uri).setDirectory(tempDir.resolve("upstream").toFile())
+                .call()) {
+            commitAndTag(upstream, "1.0.0.Final");
+            commitAndTag(upstream, "1.1.0.Final");
+
+            // The clone is missing
+            assertEquals(List.of(), Workspace.fetch(uri, mainDir));
+            Workspace.prepareWorkers(mainDir, List.of(workerDir), executor);
+            // Nothing new
+            assertEquals(List.of(), Workspace.fetch(uri, mainDir));
+
+            RevCommit commit = commitAndTag(upstream, "2.0.0.Final");
+            upstream.tagDelete().setTags("1.1.0.Final").call();
+            upstream.push().setRefSpecs(new RefSpec(":refs/tags/1.1.0.Final")).call();
+            assertEquals(List.of("2.0.0.Final"), Workspace.fetch(uri, mainDir));
+
+            long objectFiles = countFiles(workerDir.resolve(Constants.DOT_GIT).resolve("objects"));
+            Workspace.prepareWorkers(mainDir, List.of(workerDir), executor);
+            try (Git main = Git.open(mainDir.toFile()); Git worker = Git.open(workerDir.toFile())) {
+                assertNull(main.getRepository().exactRef(Constants.R_TAGS + "1.1.0.Final"));
+                assertNull(worker.getRepository().exactRef(Constants.R_TAGS + "1.1.0.Final"));
+                Ref tag = worker.getRepository().exactRef(Constants.R_TAGS + "2.0.0.Final");
+                assertNotNull(tag);
+                ObjectId commitId = worker.getRepository().getRefDatabase().peel(tag).getPeeledObjectId();
+                assertEquals(commit.getId(), commitId != null ? commitId : tag.getObjectId());
+                // The new objects are read from the main clone
+                assertFalse(worker.getRepository().parseCommit(commit.getId()).getFullMessage().isEmpty());
+            }
+            // No objects were copied to the worker
+            assertEquals(objectFiles, countFiles(workerDir.resolve(Constants.DOT_GIT).resolve("objects")));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static RevCommit commitAndTag(Git git, String tag) throws IOException, GitAPIException {
+        Path file = git.getRepository().getWorkTree().toPath().resolve("Foo.java");
+        Files.write(file, ("// " + tag + "\nclass Foo {}\n").getBytes(StandardCharsets.UTF_8));
+        git.add().addFilepattern("Foo.java").call();
+        RevCommit commit = git.commit().setMessage("Release " + tag).call();
+        git.tag().setName(tag).setObjectId(commit).setAnnotated(true).setMessage(tag).call();
+        git.push().setPushAll().setPushTags().call();
+        return commit;
+    }
+
+    private static long countFiles(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            return paths.filter(Files::isRegularFile).count();
+        }
+    }
+
+}